@@ -0,0 +1,91 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process stand-in for the Export API, serving one pre-built archive for every
+ * export id on {@code GET /exports/{exportId}/download}.
+ * Like {@code mock-api/mock-server.js} it can delay the response headers and
+ * throttle each connection, so a harness can reproduce slow or distant exporters offline.
+ */
+@Slf4j
+class ExportApiStub implements AutoCloseable {
+
+    private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+
+    private final HttpServer server;
+    private final byte[] archive;
+    private final long latencyMillis;
+    private final long throttleBytesPerSecond;
+
+    /**
+     * @param latencyMillis  Delay before response headers are sent
+     * @param throttleKBps   Per-connection bandwidth limit in KB/s, or 0 for unlimited
+     */
+    ExportApiStub(byte[] archive, long latencyMillis, long throttleKBps) throws IOException {
+        this.archive = archive;
+        this.latencyMillis = latencyMillis;
+        this.throttleBytesPerSecond = throttleKBps * 1024;
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/exports/", this::handle);
+        // Platform threads: the server's blocking writes are synchronized and would pin virtual-thread carriers
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestURI().getPath().endsWith("/download")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/zip");
+            exchange.sendResponseHeaders(200, archive.length);
+
+            OutputStream out = exchange.getResponseBody();
+            long start = System.nanoTime();
+            for (int offset = 0; offset < archive.length; offset += WRITE_CHUNK_SIZE) {
+                int length = Math.min(WRITE_CHUNK_SIZE, archive.length - offset);
+                out.write(archive, offset, length);
+                throttle(offset + length, start);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.debug("Stub download aborted by client: {}", e.getMessage());
+        }
+    }
+
+    /** Sleeps until {@code sent} bytes are within the bandwidth limit. */
+    private void throttle(long sent, long startNanos) throws InterruptedException {
+        if (throttleBytesPerSecond <= 0) {
+            return;
+        }
+        long dueNanos = startNanos + sent * 1_000_000_000L / throttleBytesPerSecond;
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,108 @@
+package com.yourcompany.exportprocessor.service;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * S3 client that drains every request body and answers immediately,
+ * so benchmarks measure the service's own overhead rather than the network.
+ * Counts what it receives so harness runs can report upload throughput.
+ */
+class NoOpS3AsyncClient implements S3AsyncClient {
+
+    private final LongAdder objectsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    @Override
+    public CompletableFuture<PutObjectResponse> putObject(PutObjectRequest request, AsyncRequestBody body) {
+        return drain(body).thenApply(bytes -> {
+            objectsWritten.increment();
+            return PutObjectResponse.builder().eTag("\"noop\"").build();
+        });
+    }
+
+    @Override
+    public CompletableFuture<CreateMultipartUploadResponse> createMultipartUpload(CreateMultipartUploadRequest request) {
+        return CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("noop").build());
+    }
+
+    @Override
+    public CompletableFuture<UploadPartResponse> uploadPart(UploadPartRequest request, AsyncRequestBody body) {
+        return drain(body).thenApply(bytes -> UploadPartResponse.builder().eTag("\"noop\"").build());
+    }
+
+    @Override
+    public CompletableFuture<CompleteMultipartUploadResponse> completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        objectsWritten.increment();
+        return CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build());
+    }
+
+    @Override
+    public CompletableFuture<AbortMultipartUploadResponse> abortMultipartUpload(AbortMultipartUploadRequest request) {
+        return CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build());
+    }
+
+    /** Objects completed, by PutObject or multipart upload. */
+    long objectsWritten() {
+        return objectsWritten.sum();
+    }
+
+    /** Body bytes received across all objects and parts. */
+    long bytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private CompletableFuture<Long> drain(AsyncRequestBody body) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        body.subscribe(new Subscriber<ByteBuffer>() {
+            private long bytes;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                bytes += buffer.remaining();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                bytesWritten.add(bytes);
+                done.complete(bytes);
+            }
+        });
+        return done;
+    }
+}
@@ -0,0 +1,91 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Overhead {@link S3UploadService} adds on top of the S3 client.
+ * {@code clientBaseline} issues the same PutObject straight to the no-op client,
+ * so the difference to the other benchmarks is the service's own cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class S3UploadServiceBenchmark {
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private byte[] payload;
+    private ByteBuffer directPayload;
+    private long payloadCrc;
+    private S3AsyncClient s3AsyncClient;
+    private S3TransferManager transferManager;
+    private S3UploadService s3UploadService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = new byte[size];
+        directPayload = ByteBuffer.allocateDirect(size);
+        directPayload.put(payload).flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        payloadCrc = crc.getValue();
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        s3AsyncClient = new NoOpS3AsyncClient();
+        transferManager = S3TransferManager.builder().s3Client(s3AsyncClient).build();
+        MultipartStreamUploader multipartUploader = new MultipartStreamUploader(
+                s3AsyncClient, new DirectBufferPool(64, 1024, meterRegistry), 8, 4);
+        s3UploadService = new S3UploadService(s3AsyncClient, transferManager, multipartUploader, meterRegistry);
+        ReflectionTestUtils.setField(s3UploadService, "multipartThresholdMb", 100L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transferManager.close();
+        s3AsyncClient.close();
+    }
+
+    @Benchmark
+    public Object clientBaseline() {
+        return s3AsyncClient.putObject(PutObjectRequest.builder()
+                        .bucket("bench-bucket")
+                        .key("exports/bench/object")
+                        .contentLength((long) size)
+                        .build(),
+                AsyncRequestBody.fromRemainingByteBuffersUnsafe(directPayload.duplicate())).join();
+    }
+
+    @Benchmark
+    public void uploadBuffers() {
+        s3UploadService.uploadBuffers("bench-bucket", "exports/bench/object",
+                new ByteBuffer[]{directPayload.duplicate()}, size, payloadCrc);
+    }
+
+    @Benchmark
+    public void uploadStream() {
+        s3UploadService.uploadStream("bench-bucket", "exports/bench/object",
+                new ByteArrayInputStream(payload), size, payloadCrc);
+    }
+}
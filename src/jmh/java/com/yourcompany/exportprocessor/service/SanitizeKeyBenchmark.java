@@ -0,0 +1,30 @@
+package com.yourcompany.exportprocessor.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Per-entry cost of turning an archive entry name into an S3 key suffix. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SanitizeKeyBenchmark {
+
+    @Param({
+            "data/part-00001/records.json",
+            "//data\\2024\\\\01//records.json",
+            "exports/customer-123/2024/01/15/region=eu-west-1/type=orders/batch-000042/part-00001.json"
+    })
+    public String entryName;
+
+    @Benchmark
+    public String sanitizeKey() {
+        return ZipExtractionService.sanitizeKey(entryName);
+    }
+}
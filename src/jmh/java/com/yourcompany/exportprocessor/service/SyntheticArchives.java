@@ -0,0 +1,63 @@
+package com.yourcompany.exportprocessor.service;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/** Builds in-memory ZIP archives shaped like real exports for the benchmarks. */
+final class SyntheticArchives {
+
+    private SyntheticArchives() {
+    }
+
+    /**
+     * Builds an archive of {@code entryCount} entries of {@code entrySize} bytes each.
+     *
+     * @param method {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}
+     */
+    static byte[] archive(int entryCount, int entrySize, int method) {
+        Random random = new Random(42);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(bytes)) {
+            zos.setMethod(method);
+            for (int i = 0; i < entryCount; i++) {
+                byte[] content = records(random, entrySize);
+                ZipArchiveEntry entry = new ZipArchiveEntry(String.format("data/part-%05d/records.json", i));
+                entry.setMethod(method);
+                if (method == ZipEntry.STORED) {
+                    // Stored entries written to a stream need their size and CRC up front
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    entry.setSize(content.length);
+                    entry.setCrc(crc.getValue());
+                }
+                zos.putArchiveEntry(entry);
+                zos.write(content);
+                zos.closeArchiveEntry();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to build synthetic archive", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** JSON-lines content, so deflate sees realistic redundancy. */
+    private static byte[] records(Random random, int size) {
+        StringBuilder sb = new StringBuilder(size + 128);
+        while (sb.length() < size) {
+            sb.append("{\"id\":").append(random.nextInt(1_000_000))
+                    .append(",\"customer\":\"cust-").append(random.nextInt(10_000))
+                    .append("\",\"amount\":").append(random.nextInt(100_000) / 100.0)
+                    .append(",\"status\":\"").append(random.nextBoolean() ? "ACTIVE" : "CLOSED")
+                    .append("\"}\n");
+        }
+        sb.setLength(size);
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
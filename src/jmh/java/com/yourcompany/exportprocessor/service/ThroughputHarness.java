@@ -0,0 +1,281 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yourcompany.exportprocessor.client.ExportApiClient;
+import com.yourcompany.exportprocessor.config.CompressionProperties;
+import com.yourcompany.exportprocessor.model.ExportRequest;
+import com.yourcompany.exportprocessor.repository.JobTrackingRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+
+/**
+ * End-to-end throughput harness for {@link ExportService#processExport}.
+ * <p>
+ * Serves a generated archive from an in-process {@link ExportApiStub}, uploads into
+ * a {@link NoOpS3AsyncClient} sink, and sweeps the number of concurrent exports and
+ * the per-export upload concurrency. For each combination it reports MB/s downloaded
+ * and uploaded, entries/s, and peak heap and direct memory. Runs offline:
+ * <pre>
+ * mvn -Pbenchmarks -DskipTests test-compile exec:exec@run-harness -Dharness.jobs=1,4,8 -Dharness.throttleKBps=20480
+ * </pre>
+ * Settings are read from {@code harness.*} system properties (see {@link #main}); results
+ * are also written as CSV to {@code harness.output}. The archive is built once and held
+ * in memory by the stub, so heap figures include it as a constant.
+ */
+public class ThroughputHarness {
+
+    private static final String BUCKET = "harness-bucket";
+
+    /** Sampled peaks of heap and direct memory while a run is in progress. */
+    private static final class MemorySampler implements AutoCloseable {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final BufferPoolMXBean direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .findFirst()
+                .orElseThrow();
+        private final AtomicLong peakHeap = new AtomicLong();
+        private final AtomicLong peakDirect = new AtomicLong();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        MemorySampler() {
+            thread = Thread.ofPlatform().daemon().name("memory-sampler").start(() -> {
+                while (running) {
+                    sample();
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        private void sample() {
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            peakDirect.accumulateAndGet(direct.getMemoryUsed(), Math::max);
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            running = false;
+            thread.join();
+            sample();
+        }
+    }
+
+    /** One export pipeline wired the way the application context wires it, minus AWS. */
+    private record Pipeline(ExportService exportService,
+                            NoOpS3AsyncClient sink,
+                            S3TransferManager transferManager,
+                            CheckpointWriter checkpointWriter,
+                            HeartbeatService heartbeatService) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            checkpointWriter.shutdown();
+            heartbeatService.shutdown();
+            transferManager.close();
+        }
+    }
+
+    private record Result(int jobs, int uploads, int exports, double seconds, long downloadBytes,
+                          long uploadBytes, long entries, long peakHeap, long peakDirect) {
+
+        double downloadMbPerSecond() {
+            return downloadBytes / seconds / (1024 * 1024);
+        }
+
+        double uploadMbPerSecond() {
+            return uploadBytes / seconds / (1024 * 1024);
+        }
+
+        double entriesPerSecond() {
+            return entries / seconds;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int entries = Integer.getInteger("harness.entries", 2_000);
+        int entrySizeKb = Integer.getInteger("harness.entrySizeKb", 64);
+        String method = System.getProperty("harness.method", "DEFLATED");
+        long latencyMs = Long.getLong("harness.latencyMs", 0);
+        long throttleKBps = Long.getLong("harness.throttleKBps", 0);
+        int exports = Integer.getInteger("harness.exports", 16);
+        int[] jobSweep = ints(System.getProperty("harness.jobs", "1,2,4,8"));
+        int[] uploadSweep = ints(System.getProperty("harness.uploads", "5"));
+        Path output = Path.of(System.getProperty("harness.output", "target/harness-result.csv"));
+
+        byte[] archive = SyntheticArchives.archive(entries, entrySizeKb * 1024,
+                "STORED".equals(method) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+        System.out.printf("Archive: %d entries x %d KB %s = %.1f MB, latency=%dms, throttle=%s%n",
+                entries, entrySizeKb, method, archive.length / (1024.0 * 1024), latencyMs,
+                throttleKBps > 0 ? throttleKBps + " KB/s" : "none");
+
+        List<Result> results = new ArrayList<>();
+        try (ExportApiStub stub = new ExportApiStub(archive, latencyMs, throttleKBps)) {
+            for (int uploads : uploadSweep) {
+                for (int jobs : jobSweep) {
+                    try (Pipeline pipeline = pipeline(stub.baseUrl(), uploads)) {
+                        // Warm up class loading, JIT and buffer-pool slabs before measuring
+                        runExports(pipeline, Math.min(jobs, exports), jobs, uploads, archive.length);
+                        Result result = runExports(pipeline, exports, jobs, uploads, archive.length);
+                        results.add(result);
+                        print(result);
+                    }
+                }
+            }
+        }
+
+        write(output, results);
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+
+    private static Result runExports(Pipeline pipeline, int exports, int jobs, int uploads, long archiveBytes)
+            throws Exception {
+        long bytesBefore = pipeline.sink().bytesWritten();
+        long objectsBefore = pipeline.sink().objectsWritten();
+        System.gc();
+
+        long start = System.nanoTime();
+        MemorySampler sampler = new MemorySampler();
+        try (ExecutorService workers = Executors.newFixedThreadPool(jobs, Thread.ofVirtual().factory())) {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int i = 0; i < exports; i++) {
+                String id = "harness-" + i;
+                ExportRequest request = ExportRequest.builder()
+                        .jobId(id)
+                        .exportId(id)
+                        .metadata(ExportRequest.ExportMetadata.builder().customerId("harness").build())
+                        .build();
+                runs.add(workers.submit(() -> pipeline.exportService().processExport(request, id, id)));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            sampler.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        return new Result(jobs, uploads, exports, seconds, archiveBytes * exports,
+                pipeline.sink().bytesWritten() - bytesBefore,
+                pipeline.sink().objectsWritten() - objectsBefore,
+                sampler.peakHeap.get(), sampler.peakDirect.get());
+    }
+
+    private static Pipeline pipeline(String baseUrl, int maxConcurrentUploads) {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NoOpS3AsyncClient sink = new NoOpS3AsyncClient();
+        S3TransferManager transferManager = S3TransferManager.builder().s3Client(sink).build();
+        DirectBufferPool bufferPool = new DirectBufferPool(256, 1024, meterRegistry);
+
+        MultipartStreamUploader multipartUploader = new MultipartStreamUploader(sink, bufferPool, 8, 4);
+        S3UploadService s3UploadService = new S3UploadService(sink, transferManager, multipartUploader, meterRegistry);
+        ReflectionTestUtils.setField(s3UploadService, "multipartThresholdMb", 100L);
+
+        UploadPermitWaiters permitWaiters = new UploadPermitWaiters(meterRegistry);
+        ZipExtractionService zipExtractionService = new ZipExtractionService(s3UploadService, bufferPool,
+                permitWaiters, meterRegistry);
+        ReflectionTestUtils.setField(zipExtractionService, "maxConcurrentUploads", maxConcurrentUploads);
+        ReflectionTestUtils.setField(zipExtractionService, "checkpointIntervalSeconds", 300);
+        ReflectionTestUtils.setField(zipExtractionService, "multipartThresholdMb", 100L);
+        ReflectionTestUtils.setField(zipExtractionService, "stagingBufferMb", 8);
+
+        ExportApiClient exportApiClient = new ExportApiClient(
+                HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(),
+                baseUrl, 300, 5, false, 8, 64, 256, System.getProperty("java.io.tmpdir"),
+                Retry.ofDefaults("harness"), CircuitBreaker.ofDefaults("harness"), meterRegistry);
+
+        // Checkpoints are accepted without a tracking table
+        JobTrackingRepository jobTrackingRepository = new JobTrackingRepository(null, meterRegistry) {
+            @Override
+            public boolean updateCheckpoint(String messageId, String claimToken, String checkpointData,
+                                            int recordsProcessed) {
+                return true;
+            }
+        };
+        CheckpointWriter checkpointWriter = new CheckpointWriter(jobTrackingRepository, 1000);
+        HeartbeatService heartbeatService = new HeartbeatService(
+                new StubSqsClient(), meterRegistry, "harness-queue", 120, 10, 900);
+
+        ExportService exportService = new ExportService(exportApiClient, zipExtractionService,
+                new SeekableZipExtractionService(s3UploadService),
+                new DirectZipExtractionService(s3UploadService, bufferPool, zipExtractionService, permitWaiters,
+                        meterRegistry),
+                s3UploadService,
+                checkpointWriter, heartbeatService, new ExportManifestStore(sink, new ObjectMapper()),
+                jobTrackingRepository, new CompressionProperties("none", 6, 1024, 0, null));
+        ReflectionTestUtils.setField(exportService, "outputBucket", BUCKET);
+        ReflectionTestUtils.setField(exportService, "checkpointIntervalSeconds", 300);
+        ReflectionTestUtils.setField(exportService, "extractionEngine", "streaming");
+
+        return new Pipeline(exportService, sink, transferManager, checkpointWriter, heartbeatService);
+    }
+
+    /** Answers the queue lookup; the harness never registers heartbeats. */
+    private static final class StubSqsClient implements SqsClient {
+        @Override
+        public GetQueueUrlResponse getQueueUrl(GetQueueUrlRequest request) {
+            return GetQueueUrlResponse.builder().queueUrl("http://localhost/" + request.queueName()).build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static void print(Result r) {
+        System.out.printf("jobs=%-3d uploads=%-3d %6.2fs  download %8.1f MB/s  upload %8.1f MB/s  %9.0f entries/s"
+                        + "  peak heap %6d MB  peak direct %6d MB%n",
+                r.jobs(), r.uploads(), r.seconds(), r.downloadMbPerSecond(), r.uploadMbPerSecond(),
+                r.entriesPerSecond(), r.peakHeap() >> 20, r.peakDirect() >> 20);
+    }
+
+    private static void write(Path output, List<Result> results) throws IOException {
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(output))) {
+            out.println("jobs,uploads,exports,seconds,download_mb_per_s,upload_mb_per_s,entries_per_s,"
+                    + "peak_heap_bytes,peak_direct_bytes");
+            for (Result r : results) {
+                out.printf(Locale.ROOT, "%d,%d,%d,%.3f,%.2f,%.2f,%.1f,%d,%d%n", r.jobs(), r.uploads(), r.exports(), r.seconds(),
+                        r.downloadMbPerSecond(), r.uploadMbPerSecond(), r.entriesPerSecond(),
+                        r.peakHeap(), r.peakDirect());
+            }
+        }
+    }
+
+    private static int[] ints(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
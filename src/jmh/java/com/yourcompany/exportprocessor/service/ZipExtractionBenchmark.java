@@ -0,0 +1,107 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+/**
+ * End-to-end extraction throughput against in-memory archives and a no-op S3 client.
+ * <p>
+ * {@code TINY} archives hold thousands of 1 KB entries and stress per-entry overhead;
+ * {@code HUGE} archives hold a few 32 MB entries, above the 16 MB multipart threshold
+ * used here, and stress inflation and the multipart path. {@code engine} compares the
+ * commons-compress streaming engine with the direct-buffer one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipExtractionBenchmark {
+
+    public enum Shape {
+        TINY(5_000, 1024),
+        HUGE(3, 32 * 1024 * 1024);
+
+        final int entryCount;
+        final int entrySize;
+
+        Shape(int entryCount, int entrySize) {
+            this.entryCount = entryCount;
+            this.entrySize = entrySize;
+        }
+    }
+
+    @Param({"TINY", "HUGE"})
+    public Shape shape;
+
+    @Param({"DEFLATED", "STORED"})
+    public String method;
+
+    @Param({"streaming", "direct"})
+    public String engine;
+
+    private byte[] archive;
+    private S3AsyncClient s3AsyncClient;
+    private S3TransferManager transferManager;
+    private ArchiveExtractor extractor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        archive = SyntheticArchives.archive(shape.entryCount, shape.entrySize,
+                "STORED".equals(method) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DirectBufferPool bufferPool = new DirectBufferPool(256, 1024, meterRegistry);
+        s3AsyncClient = new NoOpS3AsyncClient();
+        transferManager = S3TransferManager.builder().s3Client(s3AsyncClient).build();
+        MultipartStreamUploader multipartUploader = new MultipartStreamUploader(s3AsyncClient, bufferPool, 8, 4);
+        S3UploadService s3UploadService = new S3UploadService(
+                s3AsyncClient, transferManager, multipartUploader, meterRegistry);
+        ReflectionTestUtils.setField(s3UploadService, "multipartThresholdMb", 16L);
+
+        UploadPermitWaiters permitWaiters = new UploadPermitWaiters(meterRegistry);
+        ZipExtractionService zipExtractionService = new ZipExtractionService(s3UploadService, bufferPool,
+                permitWaiters, meterRegistry);
+        ReflectionTestUtils.setField(zipExtractionService, "maxConcurrentUploads", 5);
+        ReflectionTestUtils.setField(zipExtractionService, "checkpointIntervalSeconds", 300);
+        ReflectionTestUtils.setField(zipExtractionService, "multipartThresholdMb", 16L);
+        ReflectionTestUtils.setField(zipExtractionService, "stagingBufferMb", 8);
+
+        DirectZipExtractionService directZipExtractionService = new DirectZipExtractionService(
+                s3UploadService, bufferPool, zipExtractionService, permitWaiters, meterRegistry);
+        ReflectionTestUtils.setField(directZipExtractionService, "maxConcurrentUploads", 5);
+        ReflectionTestUtils.setField(directZipExtractionService, "checkpointIntervalSeconds", 300);
+        ReflectionTestUtils.setField(directZipExtractionService, "multipartThresholdMb", 16L);
+        ReflectionTestUtils.setField(directZipExtractionService, "stagingBufferMb", 8);
+        ReflectionTestUtils.setField(directZipExtractionService, "inputBufferKb", 256);
+
+        extractor = "direct".equals(engine) ? directZipExtractionService : zipExtractionService;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transferManager.close();
+        s3AsyncClient.close();
+    }
+
+    @Benchmark
+    public int extractAndUpload() {
+        return extractor.extractAndUpload(
+                new ByteArrayInputStream(archive), "bench-bucket", "exports/bench/", (name, count) -> { });
+    }
+}
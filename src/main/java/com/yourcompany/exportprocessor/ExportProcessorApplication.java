@@ -1,11 +1,15 @@
 package com.yourcompany.exportprocessor;
 
+import com.yourcompany.exportprocessor.config.CompressionProperties;
+import com.yourcompany.exportprocessor.config.TenantProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@EnableConfigurationProperties({CompressionProperties.class, TenantProperties.class})
 public class ExportProcessorApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,19 @@
+package com.yourcompany.exportprocessor.client;
+
+/**
+ * Progress of an export download, readable from any thread.
+ */
+public interface DownloadProgress {
+
+    /** Bytes received so far. */
+    long bytesTransferred();
+
+    /** Total size of the export, or -1 if the server did not report it. */
+    long totalBytes();
+
+    /**
+     * Runs {@code callback} once, when the whole body has been received.
+     * Not run for downloads that fail or are closed early.
+     */
+    void whenFinished(Runnable callback);
+}
@@ -3,6 +3,9 @@ package com.yourcompany.exportprocessor.client;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.decorators.Decorators;
 import io.github.resilience4j.retry.Retry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -13,6 +16,8 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.function.Supplier;
 
@@ -25,60 +30,270 @@ public class ExportApiClient {
     private final Duration timeout;
     private final Retry retry;
     private final CircuitBreaker circuitBreaker;
+    private final int maxResumeAttempts;
+    private final boolean segmentedEnabled;
+    private final long segmentedMinSize;
+    private final SegmentedDownloader segmentedDownloader;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary downloadThroughput;
 
     public ExportApiClient(
             HttpClient httpClient,
             @Value("${app.export-api.base-url}") String baseUrl,
             @Value("${app.export-api.timeout-seconds:300}") int timeoutSeconds,
+            @Value("${app.export-api.max-resume-attempts:5}") int maxResumeAttempts,
+            @Value("${app.export-api.segmented.enabled:false}") boolean segmentedEnabled,
+            @Value("${app.export-api.segmented.segment-count:8}") int segmentCount,
+            @Value("${app.export-api.segmented.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${app.export-api.segmented.min-size-mb:256}") int segmentedMinSizeMb,
+            @Value("${app.export-api.segmented.temp-dir:${java.io.tmpdir}}") String segmentedTempDir,
             Retry exportApiRetry,
-            CircuitBreaker exportApiCircuitBreaker) {
+            CircuitBreaker exportApiCircuitBreaker,
+            MeterRegistry meterRegistry) {
 
         this.httpClient = httpClient;
         this.baseUrl = baseUrl;
         this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.maxResumeAttempts = maxResumeAttempts;
+        this.segmentedEnabled = segmentedEnabled;
+        this.segmentedMinSize = segmentedMinSizeMb * 1024L * 1024L;
+        this.segmentedDownloader = new SegmentedDownloader(
+                segmentCount, segmentSizeMb * 1024L * 1024L, maxResumeAttempts, Path.of(segmentedTempDir));
         this.retry = exportApiRetry;
         this.circuitBreaker = exportApiCircuitBreaker;
+        this.meterRegistry = meterRegistry;
+        this.downloadThroughput = DistributionSummary.builder("export.download.throughput")
+                .description("Bytes per second of completed export downloads")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     /**
      * Downloads export data with retry and circuit breaker protection.
+     * The returned stream resumes with HTTP Range requests if the connection
+     * drops mid-body, as long as the server advertises byte ranges and a validator.
+     * <p>
+     * When segmented mode is enabled and the export is large enough and supports
+     * ranges, it is fetched over several parallel connections into a local file
+     * instead, and a {@link SegmentedDownloadInputStream} is returned.
      *
      * @param exportId The export identifier
      * @return InputStream of the export data (caller must close)
      */
     public InputStream downloadExport(String exportId) {
-        Supplier<InputStream> decorated = Decorators
-                .ofSupplier(() -> doDownload(exportId))
+        long start = System.nanoTime();
+
+        if (segmentedEnabled) {
+            SegmentedDownloadInputStream segmented = trySegmentedDownload(exportId);
+            if (segmented != null) {
+                recordThroughput(segmented, start);
+                return segmented;
+            }
+        }
+
+        HttpResponse<InputStream> initial = decorate(() -> doDownload(exportId, 0, null)).get();
+
+        ResumableInputStream stream = new ResumableInputStream(exportId, initial,
+                (offset, ifRange) -> decorate(() -> doDownload(exportId, offset, ifRange)).get(),
+                maxResumeAttempts);
+        recordThroughput(stream, start);
+        return stream;
+    }
+
+    /**
+     * HEAD request with retry: size, range support and validator of the export.
+     */
+    public ExportProbe probeExport(String exportId) {
+        return decorate(() -> probe(exportId)).get();
+    }
+
+    /**
+     * Opens the export for random access, fetched as {@code blockSize} HTTP ranges when read.
+     * Every range is sent with {@code validator} as If-Range, so a changed export fails the read.
+     */
+    public SeekableByteChannel openRanged(String exportId, ExportProbe probe, int blockSize) {
+        return new RangedReadChannel(probe.contentLength(), blockSize, (start, end) -> {
+            try (InputStream body = decorate(() -> fetchRange(exportId, start, end, probe.validator())).get().body()) {
+                return body.readAllBytes();
+            }
+        });
+    }
+
+    /**
+     * Downloads bytes {@code [start, endExclusive)} of the export, e.g. one shard of it.
+     * Every request sends {@code validator} as If-Range, and as with {@link #downloadExport}
+     * a dropped body is resumed, from where it stopped up to the end of the range.
+     */
+    public InputStream downloadRange(String exportId, long start, long endExclusive, String validator) {
+        HttpResponse<InputStream> initial = decorate(() -> fetchRange(exportId, start, endExclusive - 1, validator)).get();
+
+        return new ResumableInputStream(exportId, initial, start, endExclusive, validator,
+                (offset, ifRange) -> decorate(() -> fetchRange(exportId, offset, endExclusive - 1, ifRange)).get(),
+                maxResumeAttempts);
+    }
+
+    private void recordThroughput(DownloadProgress download, long startNanos) {
+        download.whenFinished(() -> {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            if (seconds > 0) {
+                downloadThroughput.record(download.bytesTransferred() / seconds);
+            }
+        });
+    }
+
+    /** Sends the request, recording the time until response headers arrive. */
+    private <T> HttpResponse<T> send(String request, HttpRequest httpRequest, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return httpClient.send(httpRequest, handler);
+        } finally {
+            sample.stop(Timer.builder("export.api.time.to.first.byte")
+                    .description("Time from sending an Export API request to receiving response headers")
+                    .tag("request", request)
+                    .register(meterRegistry));
+        }
+    }
+
+    private SegmentedDownloadInputStream trySegmentedDownload(String exportId) {
+        ExportProbe probe;
+        try {
+            probe = decorate(() -> probe(exportId)).get();
+        } catch (RuntimeException e) {
+            log.warn("Export probe failed, using single-stream download: exportId={}: {}",
+                    exportId, e.getMessage());
+            return null;
+        }
+
+        if (!probe.acceptsRanges() || probe.validator() == null || probe.contentLength() < segmentedMinSize) {
+            log.debug("Export not eligible for segmented download: exportId={}, probe={}", exportId, probe);
+            return null;
+        }
+
+        try {
+            return segmentedDownloader.start(exportId, probe.contentLength(), probe.validator(),
+                    (start, end, ifRange) -> decorate(() -> fetchRange(exportId, start, end, ifRange)).get());
+        } catch (IOException e) {
+            log.warn("Could not start segmented download, using single-stream: exportId={}: {}",
+                    exportId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Issues a HEAD request to learn the export size, range support and validator.
+     */
+    ExportProbe probe(String exportId) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(downloadUrl(exportId)))
+                    .timeout(timeout)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+
+            HttpResponse<Void> response = send("probe", request, HttpResponse.BodyHandlers.discarding());
+
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("Export API returned status: " + response.statusCode());
+            }
+
+            return ExportProbe.from(response.headers());
+
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RuntimeException("Export probe failed", e);
+        }
+    }
+
+    /**
+     * Fetches {@code [start, endInclusive]} of the export.
+     * Forces HTTP/1.1 so parallel ranges use separate TCP connections
+     * rather than being multiplexed over a single HTTP/2 connection.
+     */
+    HttpResponse<InputStream> fetchRange(String exportId, long start, long endInclusive, String ifRange) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(downloadUrl(exportId)))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .timeout(timeout)
+                    .header("Accept", "application/octet-stream")
+                    .header("Range", "bytes=" + start + "-" + endInclusive)
+                    .GET();
+
+            if (ifRange != null) {
+                builder.header("If-Range", ifRange);
+            }
+
+            HttpResponse<InputStream> response = send("range", builder.build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+
+            long rangeStart = response.headers().firstValue("Content-Range")
+                    .map(ResumableInputStream::rangeStart)
+                    .orElse(-1L);
+
+            if (response.statusCode() != 206 || rangeStart != start) {
+                response.body().close();
+                throw new RuntimeException("Export API did not honour range " + start + "-" + endInclusive
+                        + ": status=" + response.statusCode());
+            }
+
+            return response;
+
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RuntimeException("Export range download failed", e);
+        }
+    }
+
+    private <T> Supplier<T> decorate(Supplier<T> supplier) {
+        return Decorators
+                .ofSupplier(supplier)
                 .withRetry(retry)
                 .withCircuitBreaker(circuitBreaker)
                 .decorate();
-
-        return decorated.get();
     }
 
-    private InputStream doDownload(String exportId) {
+    /**
+     * Issues the download request. Resumes, which carry {@code ifRange}, are ranged from
+     * {@code offset} even when it is zero, so a drop before the first byte resumes too.
+     * A 200 is expected for full downloads and a 206 for ranged ones; a 200 in reply
+     * to a ranged request (If-Range mismatch) is passed back for the caller to reject.
+     */
+    private HttpResponse<InputStream> doDownload(String exportId, long offset, String ifRange) {
         try {
-            String url = baseUrl + "/exports/" + exportId + "/download";
+            String url = downloadUrl(exportId);
 
-            HttpRequest request = HttpRequest.newBuilder()
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
                     .uri(URI.create(url))
                     .timeout(timeout)
                     .header("Accept", "application/octet-stream")
-                    .GET()
-                    .build();
+                    .GET();
 
-            log.debug("Downloading export: url={}", url);
+            boolean ranged = offset > 0 || ifRange != null;
+            if (ranged) {
+                builder.header("Range", "bytes=" + offset + "-");
+                if (ifRange != null) {
+                    builder.header("If-Range", ifRange);
+                }
+            }
 
-            HttpResponse<InputStream> response = httpClient.send(
-                    request,
-                    HttpResponse.BodyHandlers.ofInputStream()
-            );
+            log.debug("Downloading export: url={}, offset={}", url, offset);
 
-            if (response.statusCode() != 200) {
-                throw new RuntimeException("Export API returned status: " + response.statusCode());
+            HttpResponse<InputStream> response = send("download", builder.build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+
+            int status = response.statusCode();
+            if (status != 200 && !(ranged && status == 206)) {
+                response.body().close();
+                throw new RuntimeException("Export API returned status: " + status);
             }
 
-            return response.body();
+            return response;
 
         } catch (IOException | InterruptedException e) {
             log.error("Failed to download export: exportId={}", exportId, e);
@@ -88,4 +303,8 @@ public class ExportApiClient {
             throw new RuntimeException("Export download failed", e);
         }
     }
+
+    private String downloadUrl(String exportId) {
+        return baseUrl + "/exports/" + exportId + "/download";
+    }
 }
@@ -0,0 +1,25 @@
+package com.yourcompany.exportprocessor.client;
+
+import java.net.http.HttpHeaders;
+
+/**
+ * What a HEAD request tells us about an export download.
+ *
+ * @param contentLength Size in bytes, or -1 if not reported
+ * @param acceptsRanges Whether the server advertises {@code Accept-Ranges: bytes}
+ * @param validator     Strong ETag, or Last-Modified if there is none; usable as If-Range
+ */
+public record ExportProbe(long contentLength, boolean acceptsRanges, String validator) {
+
+    static ExportProbe from(HttpHeaders headers) {
+        String etag = headers.firstValue("ETag").orElse(null);
+        String validator = etag != null && !etag.startsWith("W/")
+                ? etag
+                : headers.firstValue("Last-Modified").orElse(null);
+
+        return new ExportProbe(
+                headers.firstValueAsLong("Content-Length").orElse(-1),
+                headers.firstValue("Accept-Ranges").map(v -> v.contains("bytes")).orElse(false),
+                validator);
+    }
+}
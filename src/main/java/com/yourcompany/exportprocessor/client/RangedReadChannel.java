@@ -0,0 +1,117 @@
+package com.yourcompany.exportprocessor.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only random access to a remote export over HTTP ranges.
+ * Reads are served from fixed-size blocks fetched on first use, and the most
+ * recently used blocks are kept, so the small backward and forward reads of a ZIP
+ * reader turn into a few ranged GETs. Meant for metadata such as the central
+ * directory, not for bulk data.
+ */
+final class RangedReadChannel implements SeekableByteChannel {
+
+    private static final int CACHED_BLOCKS = 8;
+
+    /** Fetches {@code [start, endInclusive]} in full. */
+    @FunctionalInterface
+    interface BlockFetcher {
+        byte[] fetch(long start, long endInclusive) throws IOException;
+    }
+
+    private final long size;
+    private final int blockSize;
+    private final BlockFetcher fetcher;
+    private final Map<Long, byte[]> blocks = new LinkedHashMap<>(CACHED_BLOCKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+    private long position;
+    private boolean open = true;
+
+    RangedReadChannel(long size, int blockSize, BlockFetcher fetcher) {
+        this.size = size;
+        this.blockSize = blockSize;
+        this.fetcher = fetcher;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (position >= size) {
+            return -1;
+        }
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            long index = position / blockSize;
+            byte[] block = block(index);
+            int offset = (int) (position - index * blockSize);
+            int n = Math.min(dst.remaining(), block.length - offset);
+            dst.put(block, offset, n);
+            position += n;
+            total += n;
+        }
+        return total;
+    }
+
+    private byte[] block(long index) throws IOException {
+        byte[] block = blocks.get(index);
+        if (block == null) {
+            long start = index * blockSize;
+            long end = Math.min(size, start + blockSize) - 1;
+            block = fetcher.fetch(start, end);
+            if (block.length != end - start + 1) {
+                throw new IOException("Range " + start + "-" + end + " returned " + block.length + " bytes");
+            }
+            blocks.put(index, block);
+        }
+        return block;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) {
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        blocks.clear();
+    }
+}
@@ -0,0 +1,229 @@
+package com.yourcompany.exportprocessor.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+
+/**
+ * Download body that survives connection drops.
+ * Tracks the byte offset and, on a mid-stream IO error, reissues the request
+ * with {@code Range: bytes=N-} and {@code If-Range}, so readers never notice the reconnect.
+ * A reconnect is only accepted if the server returns the same representation
+ * (206 at the expected offset with a matching ETag).
+ * A body of a byte range of the export is resumed within that range.
+ */
+@Slf4j
+class ResumableInputStream extends InputStream implements DownloadProgress {
+
+    /** Reopens the download at the given offset in the export, sending the validator as If-Range. */
+    @FunctionalInterface
+    interface RangeRequester {
+        HttpResponse<InputStream> open(long offset, String ifRange) throws IOException;
+    }
+
+    private final String exportId;
+    private final RangeRequester requester;
+    private final int maxResumeAttempts;
+    private final boolean rangesSupported;
+    private final String etag;
+    private final String validator;
+    private final long contentLength;
+    /** Position of the body's first byte in the export; {@link #offset} counts from here. */
+    private final long start;
+
+    private InputStream current;
+    private volatile long offset;
+    private int consecutiveFailures;
+    private int totalResumes;
+    private boolean closed;
+    private Runnable finishedCallback;
+
+    ResumableInputStream(String exportId, HttpResponse<InputStream> initial,
+                         RangeRequester requester, int maxResumeAttempts) {
+        this(exportId, initial, 0, ExportProbe.from(initial.headers()), requester, maxResumeAttempts);
+    }
+
+    /**
+     * Body of bytes {@code [start, endExclusive)} of the export, requested with {@code validator}
+     * as If-Range. Resumes ask for the rest of the same range with the same validator.
+     */
+    ResumableInputStream(String exportId, HttpResponse<InputStream> initial, long start, long endExclusive,
+                         String validator, RangeRequester requester, int maxResumeAttempts) {
+        this(exportId, initial, start, new ExportProbe(endExclusive - start, true, validator),
+                requester, maxResumeAttempts);
+    }
+
+    private ResumableInputStream(String exportId, HttpResponse<InputStream> initial, long start,
+                                 ExportProbe probe, RangeRequester requester, int maxResumeAttempts) {
+        this.exportId = exportId;
+        this.requester = requester;
+        this.maxResumeAttempts = maxResumeAttempts;
+        this.current = initial.body();
+        this.start = start;
+
+        this.etag = header(initial, "ETag").orElse(null);
+        this.validator = probe.validator();
+        this.rangesSupported = probe.acceptsRanges() && validator != null;
+        this.contentLength = probe.contentLength();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        while (true) {
+            try {
+                int n = current.read(b, off, len);
+                if (n < 0 && contentLength >= 0 && offset < contentLength) {
+                    throw new EOFException("Connection closed at " + offset + " of " + contentLength + " bytes");
+                }
+                if (n < 0) {
+                    finish();
+                }
+                if (n > 0) {
+                    offset += n;
+                    consecutiveFailures = 0;
+                }
+                return n;
+            } catch (IOException e) {
+                resume(e);
+            }
+        }
+    }
+
+    private void resume(IOException cause) throws IOException {
+        if (!rangesSupported || consecutiveFailures >= maxResumeAttempts) {
+            throw cause;
+        }
+        consecutiveFailures++;
+        totalResumes++;
+
+        log.warn("Download interrupted, resuming: exportId={}, offset={}, attempt={}: {}",
+                exportId, start + offset, consecutiveFailures, cause.getMessage());
+
+        closeQuietly(current);
+
+        HttpResponse<InputStream> response;
+        try {
+            response = requester.open(start + offset, validator);
+        } catch (IOException | RuntimeException e) {
+            cause.addSuppressed(e);
+            throw cause;
+        }
+
+        try {
+            validate(response);
+        } catch (IOException e) {
+            closeQuietly(response.body());
+            e.addSuppressed(cause);
+            throw e;
+        }
+
+        current = response.body();
+    }
+
+    private void validate(HttpResponse<InputStream> response) throws IOException {
+        if (response.statusCode() != 206) {
+            // 200 means If-Range did not match: the export changed under us
+            throw new IOException("Export changed or range not honoured on resume: status="
+                    + response.statusCode());
+        }
+
+        long rangeStart = header(response, "Content-Range")
+                .map(ResumableInputStream::rangeStart)
+                .orElse(-1L);
+        if (rangeStart != start + offset) {
+            throw new IOException("Resume returned unexpected range start " + rangeStart
+                    + ", expected " + (start + offset));
+        }
+
+        String resumedEtag = header(response, "ETag").orElse(null);
+        if (etag != null && resumedEtag != null && !etag.equals(resumedEtag)) {
+            throw new IOException("Export changed during download: ETag " + etag + " -> " + resumedEtag);
+        }
+    }
+
+    /** Parses the start of {@code bytes start-end/total}. */
+    static long rangeStart(String contentRange) {
+        String value = contentRange.trim();
+        if (!value.startsWith("bytes ")) {
+            return -1;
+        }
+        int dash = value.indexOf('-');
+        if (dash < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.substring(6, dash).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getTotalResumes() {
+        return totalResumes;
+    }
+
+    @Override
+    public long bytesTransferred() {
+        return offset;
+    }
+
+    @Override
+    public long totalBytes() {
+        return contentLength;
+    }
+
+    @Override
+    public void whenFinished(Runnable callback) {
+        finishedCallback = callback;
+    }
+
+    private void finish() {
+        Runnable callback = finishedCallback;
+        finishedCallback = null;
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            current.close();
+        }
+    }
+
+    private static Optional<String> header(HttpResponse<?> response, String name) {
+        return response.headers().firstValue(name);
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // Connection is already broken
+        }
+    }
+}
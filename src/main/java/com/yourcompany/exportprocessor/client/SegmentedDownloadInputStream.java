@@ -0,0 +1,251 @@
+package com.yourcompany.exportprocessor.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sequential view over an export that is being downloaded in parallel byte ranges
+ * into a preallocated local file.
+ * Reads block only until the bytes at the current position have landed, so the
+ * extractor can start on the leading segment while later segments are still in flight.
+ * Closing the stream cancels outstanding segments and deletes the file.
+ */
+@Slf4j
+public class SegmentedDownloadInputStream extends InputStream implements DownloadProgress {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long totalLength;
+    private final long segmentSize;
+    private final AtomicLongArray written;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition progress = lock.newCondition();
+
+    private ExecutorService executor;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private long position;
+    private volatile Runnable finishedCallback;
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    SegmentedDownloadInputStream(Path file, FileChannel channel, long totalLength, long segmentSize) {
+        this.file = file;
+        this.channel = channel;
+        this.totalLength = totalLength;
+        this.segmentSize = segmentSize;
+        this.written = new AtomicLongArray(segmentCount(totalLength, segmentSize));
+    }
+
+    static int segmentCount(long totalLength, long segmentSize) {
+        return (int) Math.max(1, (totalLength + segmentSize - 1) / segmentSize);
+    }
+
+    void attach(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    int segmentCount() {
+        return written.length();
+    }
+
+    long segmentStart(int segment) {
+        return segment * segmentSize;
+    }
+
+    long segmentLength(int segment) {
+        return Math.min(segmentSize, totalLength - segmentStart(segment));
+    }
+
+    long segmentWritten(int segment) {
+        return written.get(segment);
+    }
+
+    FileChannel channel() {
+        return channel;
+    }
+
+    /** Called by segment workers after writing {@code bytes} more bytes of a segment. */
+    void onProgress(int segment, long bytes) {
+        if (written.addAndGet(segment, bytes) == segmentLength(segment) && isComplete()) {
+            finish();
+        }
+        signal();
+    }
+
+    private void finish() {
+        Runnable callback = finishedCallback;
+        if (callback != null && finished.compareAndSet(false, true)) {
+            callback.run();
+        }
+    }
+
+    void onFailure(Throwable t) {
+        if (failure == null) {
+            failure = t;
+        }
+        signal();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void signal() {
+        lock.lock();
+        try {
+            progress.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= totalLength) {
+            return -1;
+        }
+
+        int segment = (int) (position / segmentSize);
+        long available = awaitAvailable(segment);
+        int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    @Override
+    public int available() {
+        if (position >= totalLength) {
+            return 0;
+        }
+        int segment = (int) (position / segmentSize);
+        return (int) Math.min(Integer.MAX_VALUE, segmentStart(segment) + written.get(segment) - position);
+    }
+
+    private long awaitAvailable(int segment) throws IOException {
+        lock.lock();
+        try {
+            while (true) {
+                long available = segmentStart(segment) + written.get(segment) - position;
+                if (available > 0) {
+                    return available;
+                }
+                checkState();
+                progress.await(1, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for segment " + segment, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** True once every segment has been fully written. */
+    public boolean isComplete() {
+        for (int i = 0; i < written.length(); i++) {
+            if (written.get(i) < segmentLength(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Blocks until the whole export is on disk and returns the local file.
+     * The file stays valid until this stream is closed.
+     */
+    public Path awaitFile() throws IOException {
+        lock.lock();
+        try {
+            while (!isComplete()) {
+                checkState();
+                progress.await(1, TimeUnit.SECONDS);
+            }
+            return file;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for download", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    @Override
+    public long bytesTransferred() {
+        long total = 0;
+        for (int i = 0; i < written.length(); i++) {
+            total += written.get(i);
+        }
+        return total;
+    }
+
+    @Override
+    public long totalBytes() {
+        return totalLength;
+    }
+
+    @Override
+    public void whenFinished(Runnable callback) {
+        finishedCallback = callback;
+        if (isComplete()) {
+            finish();
+        }
+    }
+
+    private void checkState() throws IOException {
+        if (failure != null) {
+            throw new IOException("Segmented download failed", failure);
+        }
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        signal();
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(file);
+            log.debug("Deleted segmented download file: {}", file);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.yourcompany.exportprocessor.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches an export as parallel byte ranges on virtual threads.
+ * Segments are handed out in order, so the leading segments finish first and
+ * the sequential reader can start early. Each segment resumes from its own
+ * offset on IO errors, like {@link ResumableInputStream} does for the whole body.
+ */
+@Slf4j
+class SegmentedDownloader {
+
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    /** Fetches {@code [start, endInclusive]} with If-Range; must return the 206 response. */
+    @FunctionalInterface
+    interface RangeFetcher {
+        HttpResponse<InputStream> fetch(long start, long endInclusive, String ifRange) throws IOException;
+    }
+
+    private final int parallelSegments;
+    private final long segmentSize;
+    private final int maxResumeAttempts;
+    private final Path tempDir;
+
+    SegmentedDownloader(int parallelSegments, long segmentSize, int maxResumeAttempts, Path tempDir) {
+        this.parallelSegments = parallelSegments;
+        this.segmentSize = segmentSize;
+        this.maxResumeAttempts = maxResumeAttempts;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Preallocates a local file and starts fetching segments.
+     * Returns immediately; the stream blocks reads until bytes arrive.
+     */
+    SegmentedDownloadInputStream start(String exportId, long totalLength, String validator,
+                                       RangeFetcher fetcher) throws IOException {
+
+        Path file = Files.createTempFile(tempDir, "export-" + exportId + "-", ".zip");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(totalLength);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        SegmentedDownloadInputStream stream = new SegmentedDownloadInputStream(
+                file, channel, totalLength, segmentSize);
+        AtomicInteger nextSegment = new AtomicInteger();
+        int workers = Math.min(parallelSegments, stream.segmentCount());
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        stream.attach(executor);
+
+        log.info("Starting segmented download: exportId={}, size={}, segments={}, parallel={}",
+                exportId, totalLength, stream.segmentCount(), workers);
+
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                int segment;
+                while ((segment = nextSegment.getAndIncrement()) < stream.segmentCount() && !stream.isClosed()) {
+                    try {
+                        fetchSegment(exportId, stream, segment, validator, fetcher);
+                    } catch (Throwable t) {
+                        if (!stream.isClosed()) {
+                            log.error("Segment download failed: exportId={}, segment={}", exportId, segment, t);
+                            stream.onFailure(t);
+                        }
+                        return;
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        return stream;
+    }
+
+    private void fetchSegment(String exportId, SegmentedDownloadInputStream stream, int segment,
+                              String validator, RangeFetcher fetcher) throws IOException {
+
+        long start = stream.segmentStart(segment);
+        long end = start + stream.segmentLength(segment) - 1;
+        int failures = 0;
+
+        while (stream.segmentWritten(segment) < stream.segmentLength(segment)) {
+            long from = start + stream.segmentWritten(segment);
+            try {
+                HttpResponse<InputStream> response = fetcher.fetch(from, end, validator);
+                try (InputStream body = response.body()) {
+                    copy(body, stream, segment, from, end);
+                }
+            } catch (IOException e) {
+                if (stream.isClosed() || ++failures > maxResumeAttempts) {
+                    throw e;
+                }
+                log.warn("Segment interrupted, resuming: exportId={}, segment={}, offset={}: {}",
+                        exportId, segment, start + stream.segmentWritten(segment), e.getMessage());
+            }
+        }
+    }
+
+    private void copy(InputStream body, SegmentedDownloadInputStream stream, int segment,
+                      long from, long end) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long position = from;
+        int read;
+
+        while (position <= end && (read = body.read(buffer, 0, (int) Math.min(buffer.length, end - position + 1))) >= 0) {
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                position += stream.channel().write(chunk, position);
+            }
+            stream.onProgress(segment, read);
+        }
+
+        if (position <= end) {
+            throw new IOException("Segment body ended at " + position + ", expected " + (end + 1));
+        }
+    }
+}
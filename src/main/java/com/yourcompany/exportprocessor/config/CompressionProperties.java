@@ -0,0 +1,59 @@
+package com.yourcompany.exportprocessor.config;
+
+import com.yourcompany.exportprocessor.service.OutputCompression;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Output compression of uploaded entries, with overrides per {@code exportType}:
+ * <pre>
+ * app.processing.compression:
+ *   codec: none
+ *   export-types:
+ *     AUDIT_LOG: { codec: gzip, level: 9 }
+ * </pre>
+ *
+ * @param codec       Default codec: none or gzip
+ * @param level       Default compression level, 1 (fastest) to 9 (smallest)
+ * @param blockSizeKb Entries are compressed in blocks of this size, one per core
+ * @param parallelism Blocks compressed at once across all uploads; 0 = available processors
+ * @param exportTypes Codec and level per export type; missing values use the defaults
+ */
+@ConfigurationProperties(prefix = "app.processing.compression")
+public record CompressionProperties(
+        @DefaultValue("none") String codec,
+        @DefaultValue("6") int level,
+        @DefaultValue("1024") int blockSizeKb,
+        @DefaultValue("0") int parallelism,
+        Map<String, ExportTypeCompression> exportTypes) {
+
+    public record ExportTypeCompression(String codec, Integer level) {
+    }
+
+    public CompressionProperties {
+        exportTypes = exportTypes != null ? Map.copyOf(exportTypes) : Map.of();
+        // Fail at startup rather than on the first export of a misconfigured type.
+        // Fields are not assigned yet, so overrides are checked against the parameters
+        OutputCompression.of(codec, level);
+        for (ExportTypeCompression override : exportTypes.values()) {
+            resolve(override, codec, level);
+        }
+    }
+
+    /** Compression for an export type, falling back to the defaults. */
+    public OutputCompression forExportType(String exportType) {
+        ExportTypeCompression override = exportType != null ? exportTypes.get(exportType) : null;
+        if (override == null) {
+            return OutputCompression.of(codec, level);
+        }
+        return resolve(override, codec, level);
+    }
+
+    private static OutputCompression resolve(ExportTypeCompression override, String codec, int level) {
+        return OutputCompression.of(
+                override.codec() != null ? override.codec() : codec,
+                override.level() != null ? override.level() : level);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3CrtAsyncClientBuilder;
 import software.amazon.awssdk.transfer.s3.S3TransferManager;
 
 import java.net.URI;
@@ -22,12 +23,31 @@ public class S3Config {
     @Value("${app.processing.multipart-threshold-mb:100}")
     private long multipartThresholdMb;
 
+    /** netty (default) or crt. */
+    @Value("${app.processing.s3-client:netty}")
+    private String s3ClientType;
+
+    @Value("${app.processing.crt.target-throughput-gbps:10.0}")
+    private double crtTargetThroughputGbps;
+
+    @Value("${app.processing.crt.minimum-part-size-mb:8}")
+    private long crtMinimumPartSizeMb;
+
+    /** 0 lets the CRT derive concurrency from the target throughput. */
+    @Value("${app.processing.crt.max-concurrency:0}")
+    private int crtMaxConcurrency;
+
     /**
      * S3 Async Client optimized for large file transfers.
-     * Uses CRT client for high throughput when available.
+     * In crt mode the AWS CRT client is used, which splits uploads into parallel
+     * parts and scales its connection pool to reach the target throughput.
      */
     @Bean
     public S3AsyncClient s3AsyncClient(AwsCredentialsProvider awsCredentialsProvider) {
+        if ("crt".equalsIgnoreCase(s3ClientType)) {
+            return crtClient(awsCredentialsProvider);
+        }
+
         var builder = S3AsyncClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(awsCredentialsProvider);
@@ -40,6 +60,26 @@ public class S3Config {
         return builder.build();
     }
 
+    private S3AsyncClient crtClient(AwsCredentialsProvider awsCredentialsProvider) {
+        S3CrtAsyncClientBuilder builder = S3AsyncClient.crtBuilder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(awsCredentialsProvider)
+                .targetThroughputInGbps(crtTargetThroughputGbps)
+                .minimumPartSizeInBytes(crtMinimumPartSizeMb * 1024 * 1024)
+                .thresholdInBytes(multipartThresholdMb * 1024 * 1024);
+
+        if (crtMaxConcurrency > 0) {
+            builder.maxConcurrency(crtMaxConcurrency);
+        }
+
+        if (awsEndpoint != null && !awsEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(awsEndpoint))
+                   .forcePathStyle(true);  // Required for LocalStack
+        }
+
+        return builder.build();
+    }
+
     /**
      * S3 Transfer Manager for automatic multipart uploads.
      * Handles files larger than the threshold automatically.
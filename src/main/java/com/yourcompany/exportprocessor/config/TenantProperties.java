@@ -0,0 +1,45 @@
+package com.yourcompany.exportprocessor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Fair sharing of processing slots between customers:
+ * <pre>
+ * app.processing.tenants:
+ *   max-concurrent-per-customer: 2
+ *   max-waiting-per-customer: 1
+ *   weights:
+ *     cust-enterprise: 4
+ * </pre>
+ *
+ * @param maxConcurrentPerCustomer Exports of one customer processed at once by a task; 0 = no cap.
+ *                                 Further messages of that customer wait, invisible, for one to end
+ * @param maxWaitingPerCustomer    With a cap, messages of one customer held waiting beyond its free
+ *                                 capped slots; further ones go back to the queue
+ * @param returnDelaySeconds       Visibility timeout of messages handed back over
+ *                                 {@code max-waiting-per-customer}
+ * @param defaultWeight            Share of customers without an entry in {@code weights}
+ * @param weights                  Share per customerId; twice the weight gets twice the slot time
+ */
+@ConfigurationProperties(prefix = "app.processing.tenants")
+public record TenantProperties(
+        @DefaultValue("0") int maxConcurrentPerCustomer,
+        @DefaultValue("1") int maxWaitingPerCustomer,
+        @DefaultValue("30") int returnDelaySeconds,
+        @DefaultValue("1") int defaultWeight,
+        Map<String, Integer> weights) {
+
+    public TenantProperties {
+        weights = weights != null ? Map.copyOf(weights) : Map.of();
+        if (defaultWeight < 1 || weights.values().stream().anyMatch(w -> w < 1)) {
+            throw new IllegalArgumentException("Tenant weights must be at least 1");
+        }
+    }
+
+    public int weightOf(String customerId) {
+        return weights.getOrDefault(customerId, defaultWeight);
+    }
+}
@@ -1,9 +1,14 @@
 package com.yourcompany.exportprocessor.listener;
 
+import com.yourcompany.exportprocessor.config.TenantProperties;
 import com.yourcompany.exportprocessor.model.ExportRequest;
 import com.yourcompany.exportprocessor.repository.JobTrackingRepository;
+import com.yourcompany.exportprocessor.service.CheckpointWriter;
 import com.yourcompany.exportprocessor.service.ExportService;
 import com.yourcompany.exportprocessor.service.HeartbeatService;
+import com.yourcompany.exportprocessor.service.RecentMessageCache;
+import com.yourcompany.exportprocessor.service.ShardCoordinator;
+import com.yourcompany.exportprocessor.service.TenantScheduler;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 import io.awspring.cloud.sqs.annotation.SqsListenerAcknowledgementMode;
 import io.awspring.cloud.sqs.listener.SqsHeaders;
@@ -16,8 +21,6 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ScheduledFuture;
-
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -26,12 +29,18 @@ public class ExportMessageListener {
     private final ExportService exportService;
     private final JobTrackingRepository jobTrackingRepository;
     private final HeartbeatService heartbeatService;
+    private final CheckpointWriter checkpointWriter;
+    private final RecentMessageCache recentMessages;
+    private final TenantScheduler tenantScheduler;
+    private final TenantProperties tenantProperties;
+    private final ShardCoordinator shardCoordinator;
 
     @SqsListener(value = "${app.sqs.export-queue}", acknowledgementMode = SqsListenerAcknowledgementMode.MANUAL)
     public void processExport(
             @Payload ExportRequest request,
             @Header(MessageHeaders.ID) String messageId,
             @Header(SqsHeaders.SQS_RECEIPT_HANDLE_HEADER) String receiptHandle,
+            @Header(name = SqsHeaders.MessageSystemAttributes.SQS_SENT_TIMESTAMP, required = false) String sentTimestamp,
             Acknowledgement acknowledgement) {
 
         MDC.put("messageId", messageId);
@@ -40,41 +49,97 @@ public class ExportMessageListener {
         log.info("Received export request: jobId={}, exportId={}",
                 request.getJobId(), request.getExportId());
 
-        ScheduledFuture<?> heartbeat = null;
+        // 0. Known duplicate - acknowledge without touching the tracking table
+        if (recentMessages.isKnown(messageId)) {
+            log.info("Duplicate delivery of a recently claimed message, acknowledging");
+            acknowledgement.acknowledge();
+            MDC.clear();
+            return;
+        }
+
+        // Keep the message invisible while it waits, so waiting does not use up its receive count
+        HeartbeatService.Heartbeat heartbeat = heartbeatService.startHeartbeat(messageId, receiptHandle);
+
+        // Wait for this customer's turn at a processing slot
+        String customerId = request.getMetadata() != null ? request.getMetadata().getCustomerId() : null;
+        TenantScheduler.Permit permit;
+        try {
+            permit = tenantScheduler.acquire(customerId,
+                    sentTimestamp != null ? Long.parseLong(sentTimestamp) : System.currentTimeMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            heartbeat.cancel();
+            heartbeatService.releaseMessage(receiptHandle);
+            MDC.clear();
+            return;
+        } catch (RuntimeException e) {
+            heartbeat.cancel();
+            MDC.clear();
+            throw e;
+        }
+        if (permit == null) {
+            // The customer already has its share of messages waiting here; leave this one to other tasks
+            log.info("Customer holds its waiting messages, returning message to queue: customerId={}", customerId);
+            heartbeat.cancel();
+            heartbeatService.releaseMessage(receiptHandle, tenantProperties.returnDelaySeconds());
+            MDC.clear();
+            return;
+        }
 
+        String claimToken = null;
         try {
             // 1. Idempotency check - try to claim the job
-            if (!jobTrackingRepository.claimJob(messageId, request.getJobId())) {
+            claimToken = jobTrackingRepository.claimJob(messageId, request.getJobId());
+            recentMessages.remember(messageId);
+            if (claimToken == null) {
                 log.info("Job already claimed by another worker, acknowledging message");
                 acknowledgement.acknowledge();
                 return;
             }
 
-            // 2. Start heartbeat to extend visibility timeout
-            heartbeat = heartbeatService.startHeartbeat(receiptHandle);
+            // 2. Huge export: hand its shards to other workers instead of processing it here
+            if (shardCoordinator.fanOut(request, messageId, claimToken)) {
+                acknowledgement.acknowledge();
+                log.info("Export fanned out to shard messages");
+                return;
+            }
 
             // 3. Process the export
-            exportService.processExport(request, messageId);
+            // Only uploads left: let the next message start downloading
+            int recordsProcessed = exportService.processExport(request, messageId, claimToken, permit::drain);
 
-            // 4. Mark job as completed
-            jobTrackingRepository.markCompleted(messageId);
+            // 4. Mark job as completed (outputs are in place even if the claim was taken over)
+            checkpointWriter.flush(claimToken);
+            if (!jobTrackingRepository.markCompleted(messageId, claimToken)) {
+                log.warn("Completed job after losing its claim to another worker");
+            }
+            if (request.getShard() != null) {
+                shardCoordinator.completeShard(request.getShard(), recordsProcessed);
+            }
 
             // 5. Acknowledge the message
             acknowledgement.acknowledge();
+            recentMessages.remember(messageId);
 
             log.info("Export processing completed successfully");
 
         } catch (Exception e) {
             log.error("Export processing failed", e);
-            jobTrackingRepository.markFailed(messageId, e.getMessage());
+            recentMessages.forget(messageId);
+            if (claimToken != null) {
+                checkpointWriter.flush(claimToken);
+                jobTrackingRepository.markFailed(messageId, claimToken, e.getMessage());
+            }
+            if (request.getShard() != null) {
+                shardCoordinator.failShard(request.getShard(), e.getMessage());
+            }
             // Don't acknowledge - let SQS retry or send to DLQ
             throw new RuntimeException("Export processing failed", e);
 
         } finally {
             // Stop heartbeat
-            if (heartbeat != null) {
-                heartbeat.cancel(false);
-            }
+            heartbeat.cancel();
+            permit.release();
             MDC.clear();
         }
     }
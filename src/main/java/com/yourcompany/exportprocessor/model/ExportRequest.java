@@ -14,14 +14,22 @@ public class ExportRequest {
 
     private ExportMetadata metadata;
 
+    /** Set on child messages of a sharded export: the part of the archive this message covers. */
+    private Shard shard;
+
     public ExportRequest() {
     }
 
     public ExportRequest(String jobId, String exportId, String callbackUrl, ExportMetadata metadata) {
+        this(jobId, exportId, callbackUrl, metadata, null);
+    }
+
+    public ExportRequest(String jobId, String exportId, String callbackUrl, ExportMetadata metadata, Shard shard) {
         this.jobId = jobId;
         this.exportId = exportId;
         this.callbackUrl = callbackUrl;
         this.metadata = metadata;
+        this.shard = shard;
     }
 
     public String getJobId() {
@@ -56,6 +64,14 @@ public class ExportRequest {
         this.metadata = metadata;
     }
 
+    public Shard getShard() {
+        return shard;
+    }
+
+    public void setShard(Shard shard) {
+        this.shard = shard;
+    }
+
     public static ExportRequestBuilder builder() {
         return new ExportRequestBuilder();
     }
@@ -65,6 +81,7 @@ public class ExportRequest {
         private String exportId;
         private String callbackUrl;
         private ExportMetadata metadata;
+        private Shard shard;
 
         public ExportRequestBuilder jobId(String jobId) {
             this.jobId = jobId;
@@ -86,8 +103,87 @@ public class ExportRequest {
             return this;
         }
 
+        public ExportRequestBuilder shard(Shard shard) {
+            this.shard = shard;
+            return this;
+        }
+
         public ExportRequest build() {
-            return new ExportRequest(jobId, exportId, callbackUrl, metadata);
+            return new ExportRequest(jobId, exportId, callbackUrl, metadata, shard);
+        }
+    }
+
+    /**
+     * A contiguous run of entries of the export archive: {@code [startOffset, endOffset)} starts
+     * at the first entry's local header and ends where the next shard starts.
+     */
+    public static class Shard {
+        private String parentMessageId;
+        private int index;
+        private int count;
+        private long startOffset;
+        private long endOffset;
+        private String validator;   // ETag or Last-Modified the offsets were read from
+
+        public Shard() {
+        }
+
+        public Shard(String parentMessageId, int index, int count, long startOffset, long endOffset,
+                     String validator) {
+            this.parentMessageId = parentMessageId;
+            this.index = index;
+            this.count = count;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.validator = validator;
+        }
+
+        public String getParentMessageId() {
+            return parentMessageId;
+        }
+
+        public void setParentMessageId(String parentMessageId) {
+            this.parentMessageId = parentMessageId;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        public void setStartOffset(long startOffset) {
+            this.startOffset = startOffset;
+        }
+
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        public void setEndOffset(long endOffset) {
+            this.endOffset = endOffset;
+        }
+
+        public String getValidator() {
+            return validator;
+        }
+
+        public void setValidator(String validator) {
+            this.validator = validator;
         }
     }
 
@@ -8,11 +8,13 @@ import java.time.Instant;
 public class JobTracking {
 
     public enum Status {
-        PENDING, IN_PROGRESS, COMPLETED, FAILED
+        PENDING, IN_PROGRESS, COMPLETED, FAILED,
+        /** Parent of a sharded export; completed once every shard item is */
+        SHARDED
     }
 
     private String pk;           // msg#{messageId}
-    private String sk;           // JOB
+    private String sk;           // JOB, or SHARD#{index} for the shards of a sharded export
     private Status status;
     private Instant inProgressExpiry;
     private String workerId;
@@ -20,6 +22,14 @@ public class JobTracking {
     private String errorMessage;
     private Integer recordsProcessed;
     private String checkpointData;
+    private Integer entriesSkipped;  // Incremental exports: entries reused from the previous run
+    private Long bytesSkipped;
+    private Integer shardCount;      // Sharded exports: on the parent JOB item
+    private Long rangeStart;         // Shard items: archive bytes [rangeStart, rangeEnd)
+    private Long rangeEnd;
+    private String firstEntry;
+    private String lastEntry;
+    private Instant sentAt;          // Shard items: when the shard's child message was sent
     private Instant createdAt;
     private Instant updatedAt;
     private Long ttl;            // Unix timestamp for DynamoDB TTL
@@ -29,6 +39,8 @@ public class JobTracking {
 
     public JobTracking(String pk, String sk, Status status, Instant inProgressExpiry, String workerId,
                        String jobId, String errorMessage, Integer recordsProcessed, String checkpointData,
+                       Integer entriesSkipped, Long bytesSkipped, Integer shardCount, Long rangeStart,
+                       Long rangeEnd, String firstEntry, String lastEntry, Instant sentAt,
                        Instant createdAt, Instant updatedAt, Long ttl) {
         this.pk = pk;
         this.sk = sk;
@@ -39,6 +51,14 @@ public class JobTracking {
         this.errorMessage = errorMessage;
         this.recordsProcessed = recordsProcessed;
         this.checkpointData = checkpointData;
+        this.entriesSkipped = entriesSkipped;
+        this.bytesSkipped = bytesSkipped;
+        this.shardCount = shardCount;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.firstEntry = firstEntry;
+        this.lastEntry = lastEntry;
+        this.sentAt = sentAt;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
         this.ttl = ttl;
@@ -119,6 +139,70 @@ public class JobTracking {
         this.checkpointData = checkpointData;
     }
 
+    public Integer getEntriesSkipped() {
+        return entriesSkipped;
+    }
+
+    public void setEntriesSkipped(Integer entriesSkipped) {
+        this.entriesSkipped = entriesSkipped;
+    }
+
+    public Long getBytesSkipped() {
+        return bytesSkipped;
+    }
+
+    public void setBytesSkipped(Long bytesSkipped) {
+        this.bytesSkipped = bytesSkipped;
+    }
+
+    public Integer getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(Integer shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public Long getRangeStart() {
+        return rangeStart;
+    }
+
+    public void setRangeStart(Long rangeStart) {
+        this.rangeStart = rangeStart;
+    }
+
+    public Long getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public void setRangeEnd(Long rangeEnd) {
+        this.rangeEnd = rangeEnd;
+    }
+
+    public String getFirstEntry() {
+        return firstEntry;
+    }
+
+    public void setFirstEntry(String firstEntry) {
+        this.firstEntry = firstEntry;
+    }
+
+    public String getLastEntry() {
+        return lastEntry;
+    }
+
+    public void setLastEntry(String lastEntry) {
+        this.lastEntry = lastEntry;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Instant sentAt) {
+        this.sentAt = sentAt;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -148,6 +232,10 @@ public class JobTracking {
         return "msg#" + messageId;
     }
 
+    public static String shardSk(int index) {
+        return String.format("SHARD#%05d", index);
+    }
+
     public static JobTrackingBuilder builder() {
         return new JobTrackingBuilder();
     }
@@ -162,6 +250,14 @@ public class JobTracking {
         private String errorMessage;
         private Integer recordsProcessed;
         private String checkpointData;
+        private Integer entriesSkipped;
+        private Long bytesSkipped;
+        private Integer shardCount;
+        private Long rangeStart;
+        private Long rangeEnd;
+        private String firstEntry;
+        private String lastEntry;
+        private Instant sentAt;
         private Instant createdAt;
         private Instant updatedAt;
         private Long ttl;
@@ -211,6 +307,46 @@ public class JobTracking {
             return this;
         }
 
+        public JobTrackingBuilder entriesSkipped(Integer entriesSkipped) {
+            this.entriesSkipped = entriesSkipped;
+            return this;
+        }
+
+        public JobTrackingBuilder bytesSkipped(Long bytesSkipped) {
+            this.bytesSkipped = bytesSkipped;
+            return this;
+        }
+
+        public JobTrackingBuilder shardCount(Integer shardCount) {
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        public JobTrackingBuilder rangeStart(Long rangeStart) {
+            this.rangeStart = rangeStart;
+            return this;
+        }
+
+        public JobTrackingBuilder rangeEnd(Long rangeEnd) {
+            this.rangeEnd = rangeEnd;
+            return this;
+        }
+
+        public JobTrackingBuilder firstEntry(String firstEntry) {
+            this.firstEntry = firstEntry;
+            return this;
+        }
+
+        public JobTrackingBuilder lastEntry(String lastEntry) {
+            this.lastEntry = lastEntry;
+            return this;
+        }
+
+        public JobTrackingBuilder sentAt(Instant sentAt) {
+            this.sentAt = sentAt;
+            return this;
+        }
+
         public JobTrackingBuilder createdAt(Instant createdAt) {
             this.createdAt = createdAt;
             return this;
@@ -228,7 +364,8 @@ public class JobTracking {
 
         public JobTracking build() {
             return new JobTracking(pk, sk, status, inProgressExpiry, workerId, jobId,
-                    errorMessage, recordsProcessed, checkpointData, createdAt, updatedAt, ttl);
+                    errorMessage, recordsProcessed, checkpointData, entriesSkipped, bytesSkipped,
+                    shardCount, rangeStart, rangeEnd, firstEntry, lastEntry, sentAt, createdAt, updatedAt, ttl);
         }
     }
 }
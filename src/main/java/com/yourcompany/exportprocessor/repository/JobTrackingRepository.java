@@ -1,21 +1,27 @@
 package com.yourcompany.exportprocessor.repository;
 
 import com.yourcompany.exportprocessor.model.JobTracking;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.UpdateItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
 @Repository
-@RequiredArgsConstructor
 public class JobTrackingRepository {
 
     private static final Duration LOCK_DURATION = Duration.ofMinutes(30);
@@ -23,15 +29,27 @@ public class JobTrackingRepository {
 
     private final DynamoDbTable<JobTracking> jobTrackingTable;
 
+    private final MeterRegistry meterRegistry;
+
+    public JobTrackingRepository(DynamoDbTable<JobTracking> jobTrackingTable, MeterRegistry meterRegistry) {
+        this.jobTrackingTable = jobTrackingTable;
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * Attempts to claim a job using conditional write.
-     * Returns true if this worker successfully claimed the job.
+     * Each claim gets a fresh token, stored as the item's {@code workerId}; later updates only
+     * apply while the item still carries it, so a stale run cannot overwrite a newer claim of
+     * the same message, even one made by this process.
+     *
+     * @return Token of the new claim, to pass to the updates made under it; null if the job is already claimed
      */
-    public boolean claimJob(String messageId, String jobId) {
+    public String claimJob(String messageId, String jobId) {
         String pk = JobTracking.createPk(messageId);
         Instant now = Instant.now();
         Instant expiry = now.plus(LOCK_DURATION);
         Instant ttl = now.plus(TTL_DURATION);
+        String claimToken = UUID.randomUUID().toString();
 
         JobTracking job = JobTracking.builder()
                 .pk(pk)
@@ -39,7 +57,7 @@ public class JobTrackingRepository {
                 .status(JobTracking.Status.IN_PROGRESS)
                 .jobId(jobId)
                 .inProgressExpiry(expiry)
-                .workerId(UUID.randomUUID().toString())
+                .workerId(claimToken)
                 .createdAt(now)
                 .updatedAt(now)
                 .ttl(ttl.getEpochSecond())
@@ -48,70 +66,228 @@ public class JobTrackingRepository {
         // Condition: Item doesn't exist OR lock has expired
         Expression condition = Expression.builder()
                 .expression("attribute_not_exists(pk) OR inProgressExpiry < :now")
-                .putExpressionValue(":now",
-                    software.amazon.awssdk.services.dynamodb.model.AttributeValue.builder()
+                .putExpressionValue(":now", AttributeValue.builder()
                         .s(now.toString())
                         .build())
                 .build();
 
         try {
-            jobTrackingTable.putItem(PutItemEnhancedRequest.builder(JobTracking.class)
+            timer("claim").record(() -> jobTrackingTable.putItem(PutItemEnhancedRequest.builder(JobTracking.class)
                     .item(job)
                     .conditionExpression(condition)
-                    .build());
+                    .build()));
 
             log.debug("Successfully claimed job: messageId={}", messageId);
-            return true;
+            return claimToken;
 
         } catch (ConditionalCheckFailedException e) {
             log.debug("Job already claimed: messageId={}", messageId);
-            return false;
+            return null;
         }
     }
 
     /**
      * Updates job status to COMPLETED.
+     *
+     * @return false if the job has since been reclaimed
      */
-    public void markCompleted(String messageId) {
-        updateStatus(messageId, JobTracking.Status.COMPLETED, null);
+    public boolean markCompleted(String messageId, String claimToken) {
+        return update("complete", messageId, claimToken, JobTracking.builder()
+                .status(JobTracking.Status.COMPLETED));
     }
 
     /**
      * Updates job status to FAILED with error message.
+     *
+     * @return false if the job has since been reclaimed
      */
-    public void markFailed(String messageId, String errorMessage) {
-        updateStatus(messageId, JobTracking.Status.FAILED, errorMessage);
+    public boolean markFailed(String messageId, String claimToken, String errorMessage) {
+        return update("fail", messageId, claimToken, JobTracking.builder()
+                .status(JobTracking.Status.FAILED)
+                .errorMessage(errorMessage));
     }
 
     /**
-     * Updates checkpoint data for long-running jobs.
+     * Updates checkpoint data for long-running jobs and extends the lock.
+     *
+     * @return false if the job has since been reclaimed
      */
-    public void updateCheckpoint(String messageId, String checkpointData, int recordsProcessed) {
-        String pk = JobTracking.createPk(messageId);
+    public boolean updateCheckpoint(String messageId, String claimToken, String checkpointData, int recordsProcessed) {
+        return update("checkpoint", messageId, claimToken, JobTracking.builder()
+                .checkpointData(checkpointData)
+                .recordsProcessed(recordsProcessed)
+                .inProgressExpiry(Instant.now().plus(LOCK_DURATION)));
+    }
+
+    /**
+     * Records how much of an incremental export was reused from the previous run.
+     *
+     * @return false if the job has since been reclaimed
+     */
+    public boolean updateSkipped(String messageId, String claimToken, int entriesSkipped, long bytesSkipped) {
+        return update("skipped", messageId, claimToken, JobTracking.builder()
+                .entriesSkipped(entriesSkipped)
+                .bytesSkipped(bytesSkipped));
+    }
+
+    /**
+     * Hands a claimed job over to its shards: the parent stays SHARDED until every shard item is COMPLETED.
+     *
+     * @return false if the job has since been reclaimed
+     */
+    public boolean markSharded(String messageId, String claimToken, int shardCount) {
+        return update("sharded", messageId, claimToken, JobTracking.builder()
+                .status(JobTracking.Status.SHARDED)
+                .shardCount(shardCount));
+    }
 
-        JobTracking existing = jobTrackingTable.getItem(r -> r.key(k -> k.partitionValue(pk).sortValue("JOB")));
+    /**
+     * Writes a PENDING shard item under the parent job. An item left by an earlier
+     * attempt at fanning out the same export is kept as it is.
+     */
+    public void createShard(String parentMessageId, int index, long rangeStart, long rangeEnd,
+                            String firstEntry, String lastEntry) {
+        Instant now = Instant.now();
+        JobTracking shard = JobTracking.builder()
+                .pk(JobTracking.createPk(parentMessageId))
+                .sk(JobTracking.shardSk(index))
+                .status(JobTracking.Status.PENDING)
+                .rangeStart(rangeStart)
+                .rangeEnd(rangeEnd)
+                .firstEntry(firstEntry)
+                .lastEntry(lastEntry)
+                .createdAt(now)
+                .updatedAt(now)
+                .ttl(now.plus(TTL_DURATION).getEpochSecond())
+                .build();
 
-        if (existing != null) {
-            existing.setCheckpointData(checkpointData);
-            existing.setRecordsProcessed(recordsProcessed);
-            existing.setUpdatedAt(Instant.now());
-            existing.setInProgressExpiry(Instant.now().plus(LOCK_DURATION));
-            jobTrackingTable.putItem(existing);
+        try {
+            timer("shard-create").record(() -> jobTrackingTable.putItem(PutItemEnhancedRequest.builder(JobTracking.class)
+                    .item(shard)
+                    .conditionExpression(Expression.builder()
+                            .expression("attribute_not_exists(pk)")
+                            .build())
+                    .build()));
+        } catch (ConditionalCheckFailedException e) {
+            log.debug("Shard item already exists: parent={}, shard={}", parentMessageId, index);
         }
     }
 
-    private void updateStatus(String messageId, JobTracking.Status status, String errorMessage) {
-        String pk = JobTracking.createPk(messageId);
+    /** Sets the status of a shard item; any worker holding the shard's message may do so. */
+    public void updateShard(String parentMessageId, int index, JobTracking.Status status,
+                            Integer recordsProcessed, String errorMessage) {
+        JobTracking item = JobTracking.builder()
+                .pk(JobTracking.createPk(parentMessageId))
+                .sk(JobTracking.shardSk(index))
+                .status(status)
+                .recordsProcessed(recordsProcessed)
+                .errorMessage(errorMessage)
+                .updatedAt(Instant.now())
+                .build();
+
+        timer("shard-update").record(() -> jobTrackingTable.updateItem(UpdateItemEnhancedRequest.builder(JobTracking.class)
+                .item(item)
+                .ignoreNulls(true)
+                .build()));
+    }
+
+    /** Records that the shard's child message was sent, so a repeated fan-out skips it. */
+    public void markShardSent(String parentMessageId, int index) {
+        Instant now = Instant.now();
+        JobTracking item = JobTracking.builder()
+                .pk(JobTracking.createPk(parentMessageId))
+                .sk(JobTracking.shardSk(index))
+                .sentAt(now)
+                .updatedAt(now)
+                .build();
 
-        JobTracking existing = jobTrackingTable.getItem(r -> r.key(k -> k.partitionValue(pk).sortValue("JOB")));
+        timer("shard-sent").record(() -> jobTrackingTable.updateItem(UpdateItemEnhancedRequest.builder(JobTracking.class)
+                .item(item)
+                .ignoreNulls(true)
+                .build()));
+    }
 
-        if (existing != null) {
-            existing.setStatus(status);
-            existing.setUpdatedAt(Instant.now());
-            if (errorMessage != null) {
-                existing.setErrorMessage(errorMessage);
-            }
-            jobTrackingTable.putItem(existing);
+    /** Shard items of a sharded export, read consistently so just-written statuses are seen. */
+    public List<JobTracking> findShards(String parentMessageId) {
+        QueryConditional shards = QueryConditional.sortBeginsWith(Key.builder()
+                .partitionValue(JobTracking.createPk(parentMessageId))
+                .sortValue("SHARD#")
+                .build());
+
+        return jobTrackingTable.query(QueryEnhancedRequest.builder()
+                        .queryConditional(shards)
+                        .consistentRead(true)
+                        .build())
+                .items()
+                .stream()
+                .toList();
+    }
+
+    /**
+     * Completes a SHARDED parent job with the total of its shards.
+     *
+     * @return false if the parent is not SHARDED, e.g. another shard's worker completed it first
+     */
+    public boolean completeSharded(String parentMessageId, int recordsProcessed) {
+        Expression sharded = Expression.builder()
+                .expression("#status = :sharded")
+                .putExpressionName("#status", "status")
+                .putExpressionValue(":sharded", AttributeValue.builder()
+                        .s(JobTracking.Status.SHARDED.name())
+                        .build())
+                .build();
+
+        return update("complete", JobTracking.createPk(parentMessageId), "JOB", JobTracking.builder()
+                .status(JobTracking.Status.COMPLETED)
+                .recordsProcessed(recordsProcessed), sharded);
+    }
+
+    /**
+     * Writes only the non-null attributes of {@code changes} in a single UpdateItem,
+     * conditional on the claim identified by {@code claimToken} still being current.
+     */
+    private boolean update(String operation, String messageId, String claimToken,
+                           JobTracking.JobTrackingBuilder changes) {
+        Expression stillClaimed = Expression.builder()
+                .expression("workerId = :workerId")
+                .putExpressionValue(":workerId", AttributeValue.builder()
+                        .s(claimToken)
+                        .build())
+                .build();
+
+        if (!update(operation, JobTracking.createPk(messageId), "JOB", changes, stillClaimed)) {
+            log.warn("Job claim superseded, update skipped: messageId={}", messageId);
+            return false;
         }
+        return true;
+    }
+
+    private boolean update(String operation, String pk, String sk, JobTracking.JobTrackingBuilder changes,
+                           Expression condition) {
+        JobTracking item = changes
+                .pk(pk)
+                .sk(sk)
+                .updatedAt(Instant.now())
+                .build();
+
+        try {
+            timer(operation).record(() -> jobTrackingTable.updateItem(UpdateItemEnhancedRequest.builder(JobTracking.class)
+                    .item(item)
+                    .ignoreNulls(true)
+                    .conditionExpression(condition)
+                    .build()));
+            return true;
+
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /** Latency of tracking table writes, including rejected conditional writes. */
+    private Timer timer(String operation) {
+        return Timer.builder("export.tracking.write.latency")
+                .description("DynamoDB job tracking write latency")
+                .tag("operation", operation)
+                .register(meterRegistry);
     }
 }
@@ -0,0 +1,226 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decides how many export messages this task processes at once.
+ * The SQS listener is allowed up to the configured ceiling; each message must
+ * also take a slot here, and the number of slots moves between floor and ceiling
+ * on every tick:
+ * <ul>
+ *   <li>down by one when heap, buffer pool or local disk headroom runs low;</li>
+ *   <li>up by one when every slot is busy and the last step up paid off in upload throughput;</li>
+ *   <li>otherwise unchanged.</li>
+ * </ul>
+ * Lowering the limit never interrupts running jobs; it only delays new ones.
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyController {
+
+    /** Resource readings taken on one tick. */
+    record ResourceSample(double heapFreeRatio, double bufferFreeRatio, long diskFreeBytes,
+                          long uploadedBytes, long nanoTime) {
+    }
+
+    private final S3UploadService s3UploadService;
+    private final DirectBufferPool bufferPool;
+    private final int floor;
+    private final int ceiling;
+    private final double minHeapFreeRatio;
+    private final double minBufferFreeRatio;
+    private final long minDiskFreeBytes;
+    private final double minThroughputGain;
+    private final Path scratchDir;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private int limit;
+    private int inFlight;
+
+    private ResourceSample lastSample;
+    private double throughputBeforeIncrease = -1;
+    private volatile double currentThroughput;
+
+    public AdaptiveConcurrencyController(
+            S3UploadService s3UploadService,
+            DirectBufferPool bufferPool,
+            MeterRegistry meterRegistry,
+            @Value("${app.processing.concurrency.min:1}") int floor,
+            @Value("${app.processing.concurrency.max:4}") int ceiling,
+            @Value("${app.processing.concurrency.min-heap-free-percent:25}") int minHeapFreePercent,
+            @Value("${app.processing.concurrency.min-buffer-free-percent:25}") int minBufferFreePercent,
+            @Value("${app.processing.concurrency.min-disk-free-mb:2048}") long minDiskFreeMb,
+            @Value("${app.processing.concurrency.min-throughput-gain-percent:10}") int minThroughputGainPercent,
+            @Value("${java.io.tmpdir}") String scratchDir) {
+
+        this.s3UploadService = s3UploadService;
+        this.bufferPool = bufferPool;
+        this.floor = Math.max(1, floor);
+        this.ceiling = Math.max(this.floor, ceiling);
+        this.minHeapFreeRatio = minHeapFreePercent / 100.0;
+        this.minBufferFreeRatio = minBufferFreePercent / 100.0;
+        this.minDiskFreeBytes = minDiskFreeMb * 1024 * 1024;
+        this.minThroughputGain = minThroughputGainPercent / 100.0;
+        this.scratchDir = Path.of(scratchDir);
+        this.limit = this.floor;
+
+        Gauge.builder("export.concurrency.limit", this, AdaptiveConcurrencyController::getLimit)
+                .description("Export messages this task may process at once")
+                .register(meterRegistry);
+        Gauge.builder("export.concurrency.in.flight", this, AdaptiveConcurrencyController::getInFlight)
+                .description("Export messages currently being processed")
+                .register(meterRegistry);
+        Gauge.builder("export.upload.throughput", this, c -> c.currentThroughput)
+                .description("Bytes uploaded to S3 per second over the last adjustment interval")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        log.info("Adaptive concurrency: floor={}, ceiling={}", this.floor, this.ceiling);
+    }
+
+    /**
+     * Takes a processing slot, waiting up to {@code timeout} for one to free up.
+     *
+     * @return true if a slot was taken and must be given back with {@link #release()}
+     */
+    public boolean tryAcquire(Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (inFlight >= limit) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = slotFreed.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.processing.concurrency.adjust-interval-seconds:15}",
+            initialDelayString = "${app.processing.concurrency.adjust-interval-seconds:15}",
+            timeUnit = TimeUnit.SECONDS)
+    public void adjust() {
+        adjust(sample());
+    }
+
+    void adjust(ResourceSample sample) {
+        ResourceSample previous = lastSample;
+        lastSample = sample;
+        if (previous == null) {
+            return;
+        }
+
+        double seconds = (sample.nanoTime() - previous.nanoTime()) / 1e9;
+        double throughput = seconds > 0 ? (sample.uploadedBytes() - previous.uploadedBytes()) / seconds : 0;
+        currentThroughput = throughput;
+
+        lock.lock();
+        try {
+            String pressure = pressure(sample);
+            if (pressure != null) {
+                throughputBeforeIncrease = -1;
+                if (limit > floor) {
+                    limit--;
+                    log.info("Lowered concurrency to {}: {}", limit, pressure);
+                }
+            } else if (inFlight >= limit && limit < ceiling) {
+                // Only keep climbing while the previous step up bought more throughput
+                if (throughputBeforeIncrease < 0 || throughput >= throughputBeforeIncrease * (1 + minThroughputGain)) {
+                    throughputBeforeIncrease = throughput;
+                    limit++;
+                    slotFreed.signal();
+                    log.info("Raised concurrency to {}: throughput={} bytes/s", limit, Math.round(throughput));
+                } else {
+                    log.debug("Concurrency held at {}: throughput {} did not improve on {}",
+                            limit, Math.round(throughput), Math.round(throughputBeforeIncrease));
+                }
+            } else if (inFlight < limit) {
+                // Idle slots: forget the baseline so the next burst can climb again
+                throughputBeforeIncrease = -1;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String pressure(ResourceSample sample) {
+        if (sample.heapFreeRatio() < minHeapFreeRatio) {
+            return "heap free " + percent(sample.heapFreeRatio());
+        }
+        if (sample.bufferFreeRatio() < minBufferFreeRatio) {
+            return "buffer pool free " + percent(sample.bufferFreeRatio());
+        }
+        if (sample.diskFreeBytes() < minDiskFreeBytes) {
+            return "disk free " + sample.diskFreeBytes() / (1024 * 1024) + "MB";
+        }
+        return null;
+    }
+
+    private ResourceSample sample() {
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        double heapFree = (double) (runtime.maxMemory() - heapUsed) / runtime.maxMemory();
+        double bufferFree = (double) bufferPool.availableBytes() / bufferPool.maxBytes();
+
+        long diskFree;
+        try {
+            diskFree = Files.getFileStore(scratchDir).getUsableSpace();
+        } catch (IOException e) {
+            log.warn("Failed to read free space for {}: {}", scratchDir, e.getMessage());
+            diskFree = Long.MAX_VALUE;
+        }
+
+        return new ResourceSample(heapFree, bufferFree, diskFree,
+                s3UploadService.getUploadedBytes(), System.nanoTime());
+    }
+
+    private static String percent(double ratio) {
+        return Math.round(ratio * 100) + "%";
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.yourcompany.exportprocessor.service;
+
+import java.io.InputStream;
+import java.util.function.BiConsumer;
+
+/**
+ * Extracts a ZIP archive and uploads its entries to S3.
+ * Implementations close {@code zipStream} when they are done with it.
+ */
+public interface ArchiveExtractor {
+
+    /**
+     * @param zipStream          Input stream containing ZIP data
+     * @param bucket             Target S3 bucket
+     * @param prefix             S3 key prefix for uploaded files
+     * @param checkpointCallback Callback for progress checkpoints (last uploaded entry, uploaded count)
+     * @param manifest           Previous run's entries to reuse instead of uploading, and where this run's are recorded
+     * @param compression        How entries are compressed before upload
+     * @param inputDrained       Called once the archive has been read and only uploads remain
+     * @return Number of records processed, including reused entries
+     */
+    int extractAndUpload(
+            InputStream zipStream,
+            String bucket,
+            String prefix,
+            BiConsumer<String, Integer> checkpointCallback,
+            ExportManifest manifest,
+            OutputCompression compression,
+            Runnable inputDrained);
+
+    /** Extracts and uploads every entry as is, without an incremental manifest. */
+    default int extractAndUpload(
+            InputStream zipStream,
+            String bucket,
+            String prefix,
+            BiConsumer<String, Integer> checkpointCallback) {
+        return extractAndUpload(zipStream, bucket, prefix, checkpointCallback, ExportManifest.disabled(),
+                OutputCompression.NONE, () -> { });
+    }
+}
@@ -0,0 +1,183 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.config.CompressionProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses entries in parallel before upload, pigz style: the input is cut into
+ * fixed-size blocks, each block is compressed as an independent gzip member on a
+ * shared pool of CPU threads, and the members are uploaded in order as one multipart
+ * object. Concatenated gzip members form a standard gzip stream that any gzip reader
+ * decompresses in full. Output that stays below one part is sent with a single PutObject.
+ * <p>
+ * Independent members cost a little ratio against a single stream (no shared
+ * dictionary across blocks), in exchange for using every core on one entry.
+ */
+@Slf4j
+@Component
+public class BlockCompressor {
+
+    private final S3UploadService s3UploadService;
+    private final int blockSizeBytes;
+    private final int window;
+    private final ExecutorService compressors;
+    private final DistributionSummary compressionRatio;
+
+    public BlockCompressor(S3UploadService s3UploadService,
+                           CompressionProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.s3UploadService = s3UploadService;
+        this.blockSizeBytes = properties.blockSizeKb() * 1024;
+        int parallelism = properties.parallelism() > 0
+                ? properties.parallelism()
+                : Runtime.getRuntime().availableProcessors();
+        // Two blocks per thread keep every core busy while the caller reads and uploads
+        this.window = 2 * parallelism;
+        // CPU-bound work: platform threads, not virtual threads
+        this.compressors = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("compress-", 0).daemon(true).factory());
+
+        this.compressionRatio = DistributionSummary.builder("export.compression.ratio")
+                .description("Uncompressed size divided by compressed size of uploaded entries")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compresses the stream and uploads it as a multipart object, or with one PutObject
+     * if the compressed output is smaller than the minimum part size.
+     * Holds at most {@code 2 × parallelism} blocks in memory per call.
+     *
+     * @return Compressed size in bytes
+     */
+    public long compressAndUpload(String bucket, String key, InputStream in, OutputCompression compression) {
+        CompressedOutput output = new CompressedOutput(bucket, key);
+        Queue<Future<byte[]>> pending = new ArrayDeque<>();
+        long inputBytes = 0;
+        try {
+            byte[] block;
+            do {
+                // An empty entry still gets one (empty) member, so the object is valid gzip
+                block = in.readNBytes(blockSizeBytes);
+                inputBytes += block.length;
+                byte[] input = block;
+                pending.add(compressors.submit(() -> gzip(input, compression.level())));
+                if (pending.size() >= window) {
+                    writeNext(output, pending);
+                }
+            } while (block.length == blockSizeBytes);
+
+            while (!pending.isEmpty()) {
+                writeNext(output, pending);
+            }
+        } catch (Exception e) {
+            pending.forEach(f -> f.cancel(true));
+            output.close();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Failed to compress: s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("Compressed upload failed", e);
+        }
+
+        long compressedBytes = output.complete();
+        if (compressedBytes > 0) {
+            compressionRatio.record((double) inputBytes / compressedBytes);
+        }
+        log.debug("Uploaded compressed file: s3://{}/{} ({} -> {} bytes)", bucket, key, inputBytes, compressedBytes);
+        return compressedBytes;
+    }
+
+    private static void writeNext(CompressedOutput output, Queue<Future<byte[]>> pending)
+            throws IOException, InterruptedException, ExecutionException {
+        output.write(pending.remove().get());
+    }
+
+    /**
+     * Collects members until they reach the minimum part size, and only then opens the
+     * multipart upload; smaller output is uploaded with one PutObject on completion.
+     */
+    private final class CompressedOutput implements AutoCloseable {
+
+        private final String bucket;
+        private final String key;
+        private final List<ByteBuffer> head = new ArrayList<>();
+        private long headBytes;
+        private MultipartStreamUploader.PartWriter multipart;
+
+        private CompressedOutput(String bucket, String key) {
+            this.bucket = bucket;
+            this.key = key;
+        }
+
+        void write(byte[] member) throws IOException, InterruptedException {
+            if (multipart != null) {
+                multipart.write(new ByteArrayInputStream(member));
+                return;
+            }
+            head.add(ByteBuffer.wrap(member));
+            headBytes += member.length;
+            if (headBytes >= MultipartStreamUploader.MIN_PART_SIZE) {
+                multipart = s3UploadService.openMultipart(bucket, key);
+                for (ByteBuffer buffered : head) {
+                    multipart.write(new ByteArrayInputStream(buffered.array()));
+                }
+                head.clear();
+            }
+        }
+
+        /** @return Compressed size in bytes */
+        long complete() {
+            if (multipart == null) {
+                s3UploadService.uploadBuffers(bucket, key, head.toArray(ByteBuffer[]::new), headBytes, -1);
+                return headBytes;
+            }
+            long size = multipart.size();
+            s3UploadService.completeMultipart(multipart);
+            return size;
+        }
+
+        /** Aborts the multipart upload if one was opened. */
+        @Override
+        public void close() {
+            if (multipart != null) {
+                multipart.close();
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] block, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(block.length / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(block);
+        }
+        return out.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compressors.shutdownNow();
+    }
+}
@@ -0,0 +1,167 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.repository.JobTrackingRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for job checkpoints.
+ * Extraction threads only record the latest checkpoint per message; a background
+ * virtual thread writes whatever is pending on every flush interval, all jobs in
+ * parallel, so extraction never waits on the tracking table. Older checkpoints that
+ * were superseded before a flush are never written.
+ * <p>
+ * Writes for one claim are serialized, so a checkpoint can never overwrite a newer one.
+ * Checkpoints are kept per claim token, so a stale run and a newer claim of the same
+ * message never share pending state.
+ */
+@Slf4j
+@Component
+public class CheckpointWriter {
+
+    private record Checkpoint(String data, int recordsProcessed) {
+    }
+
+    /** Pending checkpoint and write state of one claim. */
+    private static final class Slot {
+        final String messageId;
+        final String claimToken;
+        final ReentrantLock writeLock = new ReentrantLock();
+        final AtomicReference<Checkpoint> pending = new AtomicReference<>();
+        volatile boolean ownershipLost;
+
+        Slot(String messageId, String claimToken) {
+            this.messageId = messageId;
+            this.claimToken = claimToken;
+        }
+    }
+
+    private final JobTrackingRepository jobTrackingRepository;
+    private final long flushIntervalMillis;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public CheckpointWriter(
+            JobTrackingRepository jobTrackingRepository,
+            @Value("${app.processing.checkpoint.flush-interval-ms:1000}") long flushIntervalMillis) {
+
+        this.jobTrackingRepository = jobTrackingRepository;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flusher = Thread.ofVirtual().name("checkpoint-flusher").start(this::run);
+    }
+
+    /**
+     * Records the latest checkpoint for a claimed message without blocking.
+     *
+     * @param claimToken Token returned by {@code claimJob}
+     * @return false once a write under this claim found the job reclaimed
+     */
+    public boolean submit(String messageId, String claimToken, String checkpointData, int recordsProcessed) {
+        Slot slot = slots.computeIfAbsent(claimToken, token -> new Slot(messageId, token));
+        slot.pending.set(new Checkpoint(checkpointData, recordsProcessed));
+        return !slot.ownershipLost;
+    }
+
+    /**
+     * Writes the claim's pending checkpoint on the calling thread and forgets the claim.
+     * Call when the job completes or fails.
+     *
+     * @return false if the job has been reclaimed
+     */
+    public boolean flush(String claimToken) {
+        Slot slot = slots.remove(claimToken);
+        if (slot == null) {
+            return true;
+        }
+        write(slot);
+        return !slot.ownershipLost;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(flushIntervalMillis);
+                flushPending();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Checkpoint flush failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Writes every pending checkpoint, one concurrent UpdateItem per claim. */
+    void flushPending() throws InterruptedException {
+        List<Future<?>> writes = new ArrayList<>();
+        slots.values().forEach(slot -> {
+            if (slot.pending.get() != null) {
+                writes.add(writers.submit(() -> write(slot)));
+            }
+        });
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    throw (InterruptedException) e;
+                }
+                log.warn("Checkpoint write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void write(Slot slot) {
+        slot.writeLock.lock();
+        try {
+            Checkpoint checkpoint = slot.pending.getAndSet(null);
+            if (checkpoint == null || slot.ownershipLost) {
+                return;
+            }
+            try {
+                if (!jobTrackingRepository.updateCheckpoint(slot.messageId, slot.claimToken,
+                        checkpoint.data(), checkpoint.recordsProcessed())) {
+                    slot.ownershipLost = true;
+                }
+            } catch (RuntimeException e) {
+                // Keep it for the next flush unless a newer checkpoint has arrived meanwhile
+                slot.pending.compareAndSet(null, checkpoint);
+                log.warn("Failed to write checkpoint, will retry: messageId={}: {}", slot.messageId, e.getMessage());
+            }
+        } finally {
+            slot.writeLock.unlock();
+        }
+    }
+
+    int pendingMessages() {
+        return slots.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+            flushPending();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writers.shutdown();
+    }
+}
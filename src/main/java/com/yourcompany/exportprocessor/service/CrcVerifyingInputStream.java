@@ -0,0 +1,111 @@
+package com.yourcompany.exportprocessor.service;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
+
+/**
+ * Computes the CRC-32 of one ZIP entry as it is read and checks it against the
+ * CRC recorded in the archive. {@code ZipArchiveInputStream} does not verify it.
+ * <p>
+ * The check runs at end of entry when the local header carries the CRC. Streamed
+ * archives put it in a data descriptor after the data, which is only parsed once
+ * the next entry is requested; callers then run {@link #verify()} at that point.
+ */
+final class CrcVerifyingInputStream extends FilterInputStream {
+
+    private final ZipArchiveEntry entry;
+    private final CRC32 crc = new CRC32();
+    private long bytesRead;
+    private boolean eof;
+    private boolean verified;
+
+    CrcVerifyingInputStream(InputStream in, ZipArchiveEntry entry) {
+        super(in);
+        this.entry = entry;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            crc.update(b);
+            bytesRead++;
+        } else {
+            endOfEntry();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            crc.update(b, off, n);
+            bytesRead += n;
+        } else if (n < 0) {
+            endOfEntry();
+        }
+        return n;
+    }
+
+    /** Skipped bytes still have to be read so they are part of the CRC. */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] discard = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(discard, 0, (int) Math.min(n - skipped, discard.length));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /** CRC-32 of the bytes read so far; the entry CRC once the entry has been read to the end. */
+    long crc() {
+        return crc.getValue();
+    }
+
+    /** Uncompressed bytes read so far. */
+    long bytesRead() {
+        return bytesRead;
+    }
+
+    /** True once the computed CRC has been compared with the archive's. */
+    boolean isVerified() {
+        return verified;
+    }
+
+    /**
+     * Compares the computed CRC with the entry's, if the archive has provided it by now.
+     *
+     * @throws ZipException if they differ
+     */
+    void verify() throws ZipException {
+        if (verified || !eof || entry.getCrc() == -1) {
+            return;
+        }
+        if (entry.getCrc() != crc.getValue()) {
+            throw new ZipException(String.format("Bad CRC-32 for entry %s: expected %08x, computed %08x",
+                    entry.getName(), entry.getCrc(), crc.getValue()));
+        }
+        verified = true;
+    }
+
+    private void endOfEntry() throws ZipException {
+        eof = true;
+        verify();
+    }
+}
@@ -0,0 +1,280 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide pool of direct {@link ByteBuffer} slabs with a hard memory budget.
+ * Used for entry staging and multipart part buffers so that buffer memory stays
+ * off-heap and bounded no matter how many jobs or uploads are in flight.
+ * <p>
+ * Slabs are handed out as {@link Lease}s. A lease for several slabs is reserved
+ * atomically, so producers never hold part of a lease while waiting for the rest;
+ * when the budget is exhausted the producer blocks until slabs are returned.
+ */
+@Slf4j
+@Component
+public class DirectBufferPool {
+
+    private final int slabSize;
+    private final int maxSlabs;
+    private final Semaphore budget;
+    private final ConcurrentLinkedQueue<ByteBuffer> freeSlabs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger allocatedSlabs = new AtomicInteger();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter waits;
+
+    public DirectBufferPool(
+            @Value("${app.processing.buffer-pool.budget-mb:256}") int budgetMb,
+            @Value("${app.processing.buffer-pool.slab-size-kb:1024}") int slabSizeKb,
+            MeterRegistry meterRegistry) {
+
+        this.slabSize = slabSizeKb * 1024;
+        this.maxSlabs = (int) Math.max(1, budgetMb * 1024L * 1024L / slabSize);
+        this.budget = new Semaphore(maxSlabs, true);
+
+        this.hits = Counter.builder("export.buffer.pool.acquisitions")
+                .description("Slabs handed out from the buffer pool")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("export.buffer.pool.acquisitions")
+                .description("Slabs handed out from the buffer pool")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.waits = Counter.builder("export.buffer.pool.waits")
+                .description("Lease requests that blocked on an exhausted budget")
+                .register(meterRegistry);
+
+        Gauge.builder("export.buffer.pool.allocated.bytes", allocatedSlabs, a -> (double) a.get() * slabSize)
+                .description("Direct memory allocated by the buffer pool")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("export.buffer.pool.available.bytes", this, DirectBufferPool::availableBytes)
+                .description("Buffer pool budget not currently leased")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        log.info("Direct buffer pool: budget={}MB, slabSize={}KB, maxSlabs={}", budgetMb, slabSizeKb, maxSlabs);
+    }
+
+    /**
+     * Leases enough slabs to hold {@code bytes}, blocking while the budget is exhausted.
+     *
+     * @throws IllegalArgumentException if the request alone exceeds the whole budget
+     */
+    public Lease acquire(long bytes) throws InterruptedException {
+        int slabs = slabsFor(bytes);
+        if (slabs > maxSlabs) {
+            throw new IllegalArgumentException("Buffer request of " + bytes + " bytes exceeds pool budget of "
+                    + maxBytes() + " bytes; raise app.processing.buffer-pool.budget-mb");
+        }
+
+        if (!budget.tryAcquire(slabs)) {
+            waits.increment();
+            budget.acquire(slabs);
+        }
+
+        ByteBuffer[] leased = new ByteBuffer[slabs];
+        for (int i = 0; i < slabs; i++) {
+            leased[i] = take();
+        }
+        return new Lease(leased);
+    }
+
+    private ByteBuffer take() {
+        ByteBuffer slab = freeSlabs.poll();
+        if (slab != null) {
+            hits.increment();
+            return slab;
+        }
+        misses.increment();
+        allocatedSlabs.incrementAndGet();
+        return ByteBuffer.allocateDirect(slabSize);
+    }
+
+    private void giveBack(ByteBuffer slab) {
+        slab.clear();
+        freeSlabs.offer(slab);
+        budget.release();
+    }
+
+    int slabsFor(long bytes) {
+        return (int) Math.max(1, (bytes + slabSize - 1) / slabSize);
+    }
+
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /** Budget not currently leased. */
+    public long availableBytes() {
+        return (long) budget.availablePermits() * slabSize;
+    }
+
+    /** Largest single lease the pool can grant. */
+    public long maxBytes() {
+        return (long) maxSlabs * slabSize;
+    }
+
+    /**
+     * A set of slabs filled in order. Closing the lease returns its slabs to the pool;
+     * it must not be closed while an upload may still read from it.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private ByteBuffer[] slabs;
+        private long size;
+        private boolean released;
+
+        private Lease(ByteBuffer[] slabs) {
+            this.slabs = slabs;
+        }
+
+        public long capacity() {
+            return (long) slabs.length * slabSize;
+        }
+
+        /** Bytes written so far. */
+        public long size() {
+            return size;
+        }
+
+        /**
+         * Reads from {@code in} until the lease is full or the stream ends.
+         *
+         * @param scratch Heap buffer used to move bytes out of the stream
+         * @return Bytes read by this call
+         */
+        public long fill(InputStream in, byte[] scratch) throws IOException {
+            long start = size;
+            while (size < capacity()) {
+                ByteBuffer slab = slabs[(int) (size / slabSize)];
+                int want = Math.min(scratch.length, slab.remaining());
+                int read = in.read(scratch, 0, want);
+                if (read < 0) {
+                    break;
+                }
+                slab.put(scratch, 0, read);
+                size += read;
+            }
+            return size - start;
+        }
+
+        /**
+         * Reads from {@code in} straight into the slabs until the lease is full or the channel ends.
+         *
+         * @return Bytes read by this call
+         */
+        public long fill(ReadableByteChannel in) throws IOException {
+            long start = size;
+            while (size < capacity()) {
+                int read = in.read(slabs[(int) (size / slabSize)]);
+                if (read < 0) {
+                    break;
+                }
+                size += read;
+            }
+            return size - start;
+        }
+
+        /** Appends {@code bytes}, which must fit in the remaining capacity. */
+        public void put(byte[] bytes) {
+            if (bytes.length > capacity() - size) {
+                throw new IllegalArgumentException("Lease has room for " + (capacity() - size)
+                        + " more bytes, not " + bytes.length);
+            }
+            int offset = 0;
+            while (offset < bytes.length) {
+                ByteBuffer slab = slabs[(int) (size / slabSize)];
+                int n = Math.min(bytes.length - offset, slab.remaining());
+                slab.put(bytes, offset, n);
+                offset += n;
+                size += n;
+            }
+        }
+
+        /** Read-only views over the written bytes, one per used slab. */
+        public ByteBuffer[] views() {
+            int used = (int) ((size + slabSize - 1) / slabSize);
+            ByteBuffer[] views = new ByteBuffer[used];
+            for (int i = 0; i < used; i++) {
+                views[i] = slabs[i].duplicate().flip().asReadOnlyBuffer();
+            }
+            return views;
+        }
+
+        /** Written bytes as a stream. */
+        public InputStream asInputStream() {
+            ByteBuffer[] views = views();
+            return new InputStream() {
+                private int index;
+
+                @Override
+                public int read() {
+                    byte[] single = new byte[1];
+                    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    while (index < views.length && !views[index].hasRemaining()) {
+                        index++;
+                    }
+                    if (index >= views.length) {
+                        return -1;
+                    }
+                    int n = Math.min(len, views[index].remaining());
+                    views[index].get(b, off, n);
+                    return n;
+                }
+            };
+        }
+
+        /** Writes the written bytes to a channel. */
+        public void writeTo(WritableByteChannel channel) throws IOException {
+            for (ByteBuffer view : views()) {
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+            }
+        }
+
+        /** Returns slabs beyond those holding written bytes to the pool early. */
+        public void trim() {
+            int used = (int) Math.max(1, (size + slabSize - 1) / slabSize);
+            if (used < slabs.length) {
+                ByteBuffer[] kept = new ByteBuffer[used];
+                System.arraycopy(slabs, 0, kept, 0, used);
+                for (int i = used; i < slabs.length; i++) {
+                    giveBack(slabs[i]);
+                }
+                slabs = kept;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                for (ByteBuffer slab : slabs) {
+                    giveBack(slab);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Streaming extraction engine built on {@link DirectZipReader}.
+ * Entries are inflated straight into leased pool slabs: small entries into a staging
+ * lease that is uploaded as is on a virtual thread, large ones into the part buffers
+ * of an inline multipart upload. No heap buffer sits between the inflater and the
+ * S3 request bodies, and the reader's inflater and buffers are reused for every entry.
+ * <p>
+ * Packing, record mode, incremental manifests and output compression are handled by
+ * the {@link ZipExtractionService}; exports that use any of them are passed to it.
+ */
+@Slf4j
+@Service
+public class DirectZipExtractionService implements ArchiveExtractor {
+
+    private final S3UploadService s3UploadService;
+    private final DirectBufferPool bufferPool;
+    private final ZipExtractionService zipExtractionService;
+    private final UploadPermitWaiters permitWaiters;
+    private final Timer inflateTimer;
+    private final DistributionSummary entrySizes;
+
+    @Value("${app.processing.max-concurrent-uploads:5}")
+    private int maxConcurrentUploads;
+
+    @Value("${app.processing.checkpoint-interval-seconds:300}")
+    private int checkpointIntervalSeconds;
+
+    @Value("${app.processing.multipart-threshold-mb:100}")
+    private long multipartThresholdMb;
+
+    @Value("${app.processing.staging-buffer-mb:8}")
+    private int stagingBufferMb;
+
+    @Value("${app.processing.direct.input-buffer-kb:256}")
+    private int inputBufferKb;
+
+    @Value("${app.processing.packing.enabled:false}")
+    private boolean packingEnabled;
+
+    @Value("${app.processing.records.enabled:false}")
+    private boolean recordsEnabled;
+
+    public DirectZipExtractionService(S3UploadService s3UploadService,
+                                      DirectBufferPool bufferPool,
+                                      ZipExtractionService zipExtractionService,
+                                      UploadPermitWaiters permitWaiters,
+                                      MeterRegistry meterRegistry) {
+        this.s3UploadService = s3UploadService;
+        this.bufferPool = bufferPool;
+        this.zipExtractionService = zipExtractionService;
+        this.permitWaiters = permitWaiters;
+
+        this.inflateTimer = Timer.builder("export.entry.inflate")
+                .description("Time to read and inflate one entry into staging")
+                .register(meterRegistry);
+        this.entrySizes = DistributionSummary.builder("export.entry.size")
+                .description("Uncompressed size of extracted entries")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Extracts ZIP entries and uploads them to S3, up to {@code max-concurrent-uploads} at once.
+     * Entries of known size above the multipart threshold, and entries that outgrow the
+     * staging lease, are uploaded inline as multipart uploads that continue from the
+     * staged bytes. Each entry's CRC-32 is checked as soon as its data ends, and staged
+     * entries send it to S3 as the object checksum.
+     */
+    @Override
+    public int extractAndUpload(
+            InputStream zipStream,
+            String bucket,
+            String prefix,
+            BiConsumer<String, Integer> checkpointCallback,
+            ExportManifest manifest,
+            OutputCompression compression,
+            Runnable inputDrained) {
+
+        if (packingEnabled || recordsEnabled || manifest.isEnabled() || compression.isEnabled()) {
+            log.debug("Export uses features of the streaming engine; extracting with it");
+            return zipExtractionService.extractAndUpload(zipStream, bucket, prefix, checkpointCallback,
+                    manifest, compression, inputDrained);
+        }
+
+        AtomicInteger recordCount = new AtomicInteger(0);
+        AtomicReference<String> lastUploaded = new AtomicReference<>();
+        AtomicReference<Throwable> uploadFailure = new AtomicReference<>();
+        Semaphore uploadSemaphore = new Semaphore(maxConcurrentUploads);
+        long stagingThreshold = stagingBufferMb * 1024L * 1024L;
+        long multipartThreshold = multipartThresholdMb * 1024 * 1024;
+        long lastCheckpoint = System.currentTimeMillis();
+
+        try (ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             DirectZipReader reader = new DirectZipReader(Channels.newChannel(zipStream), inputBufferKb * 1024)) {
+
+            while (reader.next()) {
+
+                if (uploadFailure.get() != null) {
+                    break;
+                }
+
+                if (reader.isDirectory()) {
+                    continue;
+                }
+
+                if (!reader.canReadEntryData()) {
+                    log.warn("Cannot read entry: {}", reader.getName());
+                    continue;
+                }
+
+                String entryName = reader.getName();
+                String s3Key = prefix + ZipExtractionService.sanitizeKey(entryName);
+                long entrySize = reader.getSize();
+
+                log.debug("Processing entry: name={}, size={}", entryName, entrySize);
+
+                permitWaiters.acquire(uploadSemaphore);
+
+                if (entrySize > multipartThreshold) {
+                    // Large entries are inflated straight into part buffers
+                    try {
+                        uploadInline(bucket, s3Key, reader, entrySize, null);
+                    } finally {
+                        uploadSemaphore.release();
+                    }
+                    entrySizes.record(entrySize);
+                    recordCount.incrementAndGet();
+                    lastUploaded.set(entryName);
+                } else {
+                    long inflateStart = System.nanoTime();
+                    DirectBufferPool.Lease lease;
+                    try {
+                        lease = bufferPool.acquire(entrySize >= 0 && entrySize <= stagingThreshold
+                                ? entrySize
+                                : stagingThreshold);
+                    } catch (InterruptedException e) {
+                        uploadSemaphore.release();
+                        throw e;
+                    }
+
+                    boolean staged;
+                    try {
+                        lease.fill(reader);
+                        staged = entrySize >= 0 ? lease.size() == entrySize : lease.size() < lease.capacity();
+                        if (staged) {
+                            // A lease filled to exactly the entry size has not yet seen the end of the entry
+                            reader.finishEntry();
+                        }
+                    } catch (Exception e) {
+                        lease.close();
+                        uploadSemaphore.release();
+                        throw e;
+                    }
+
+                    if (!staged) {
+                        // Outgrew staging: the staged bytes start a multipart upload of the rest
+                        try {
+                            uploadInline(bucket, s3Key, reader, entrySize, lease);
+                        } finally {
+                            uploadSemaphore.release();
+                        }
+                        entrySizes.record(reader.bytesRead());
+                        recordCount.incrementAndGet();
+                        lastUploaded.set(entryName);
+                    } else {
+                        lease.trim();
+                        long size = lease.size();
+                        long crc32 = reader.crc();
+                        inflateTimer.record(System.nanoTime() - inflateStart, TimeUnit.NANOSECONDS);
+                        entrySizes.record(size);
+                        uploadExecutor.execute(() -> {
+                            try (lease) {
+                                if (uploadFailure.get() == null) {
+                                    s3UploadService.uploadBuffers(bucket, s3Key, lease.views(), size, crc32);
+                                    recordCount.incrementAndGet();
+                                    lastUploaded.set(entryName);
+                                }
+                            } catch (Throwable t) {
+                                uploadFailure.compareAndSet(null, t);
+                            } finally {
+                                uploadSemaphore.release();
+                            }
+                        });
+                    }
+                }
+
+                // Periodic checkpoint
+                long now = System.currentTimeMillis();
+                if (now - lastCheckpoint > checkpointIntervalSeconds * 1000L && lastUploaded.get() != null) {
+                    checkpointCallback.accept(lastUploaded.get(), recordCount.get());
+                    lastCheckpoint = now;
+                }
+            }
+
+            // Free the download now; what is left only waits on S3
+            reader.close();
+            inputDrained.run();
+
+            // Wait for all in-flight uploads to drain
+            uploadSemaphore.acquire(maxConcurrentUploads);
+
+        } catch (Exception e) {
+            log.error("ZIP extraction failed at record {}", recordCount.get(), e);
+            throw new RuntimeException("ZIP extraction failed", e);
+        }
+
+        Throwable failure = uploadFailure.get();
+        if (failure != null) {
+            log.error("ZIP extraction failed at record {}", recordCount.get(), failure);
+            throw new RuntimeException("ZIP extraction failed", failure);
+        }
+
+        return recordCount.get();
+    }
+
+    /** Multipart upload of the rest of the entry, after the bytes already in {@code head} if any. */
+    private void uploadInline(String bucket, String key, DirectZipReader reader, long size,
+                              DirectBufferPool.Lease head) throws Exception {
+        MultipartStreamUploader.PartWriter writer = s3UploadService.openMultipart(bucket, key, size, head);
+        try {
+            writer.write(reader);
+        } catch (Exception e) {
+            writer.close();
+            throw e;
+        }
+        s3UploadService.completeMultipart(writer);
+    }
+}
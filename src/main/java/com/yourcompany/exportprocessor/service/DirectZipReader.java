@@ -0,0 +1,397 @@
+package com.yourcompany.exportprocessor.service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Streaming ZIP reader that works on direct buffers end to end.
+ * <p>
+ * It parses local file headers and data descriptors itself and drives one {@link Inflater}
+ * from a direct input buffer, so entry data is inflated straight into the buffers passed
+ * to {@link #read(ByteBuffer)}, such as upload part slabs, without passing through heap
+ * arrays. The inflater, CRC and buffers are reset rather than reallocated for each entry.
+ * <p>
+ * The current entry is read through this object as a channel, which reports end of stream
+ * at the end of the entry once its CRC-32 and size have been checked against the local
+ * header or data descriptor. Reading stops at the central directory, which is not parsed.
+ * Only STORED and DEFLATED entries can be read. Not thread-safe.
+ */
+final class DirectZipReader implements ReadableByteChannel {
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int SKIP_BUFFER_SIZE = 64 * 1024;
+
+    /** Holds a local header with the longest possible name and extra field. */
+    static final int MIN_BUFFER_SIZE = LOCAL_HEADER_LENGTH + 2 * 0xFFFF;
+
+    private final ReadableByteChannel source;
+    /** Archive bytes read from the source but not yet consumed, between position and limit. */
+    private final ByteBuffer in;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer discard;
+    private byte[] nameBytes = new byte[256];
+    private boolean sourceEnded;
+    private boolean open = true;
+
+    private boolean inEntry;
+    private boolean readable;
+    private String name;
+    private int method;
+    private boolean dataDescriptor;
+    private boolean zip64;
+    private long expectedCrc;
+    private long size;
+    private long compressedSize;
+    private long storedRemaining;
+    private long bytesRead;
+
+    /**
+     * @param source     The archive
+     * @param bufferSize Size of the direct input buffer; raised to {@link #MIN_BUFFER_SIZE} if smaller
+     */
+    DirectZipReader(ReadableByteChannel source, int bufferSize) {
+        this.source = source;
+        this.in = ByteBuffer.allocateDirect(Math.max(bufferSize, MIN_BUFFER_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+        in.limit(0);
+    }
+
+    /**
+     * Moves to the next entry, first reading the rest of the current one so it is verified.
+     * A local header cut off by the end of the stream ends the archive, as it does for
+     * {@code ZipArchiveInputStream}.
+     *
+     * @return false at the central directory or the end of the archive
+     */
+    boolean next() throws IOException {
+        if (inEntry) {
+            skipEntry();
+        }
+
+        if (!ensure(4)) {
+            if (in.hasRemaining()) {
+                throw new EOFException("Truncated ZIP record signature");
+            }
+            return false;
+        }
+        int signature = in.getInt(in.position());
+        if (signature == CENTRAL_HEADER_SIG) {
+            return false;
+        }
+        if (signature != LOCAL_HEADER_SIG) {
+            throw new ZipException(String.format("Unexpected record signature: 0x%08x", signature));
+        }
+        if (!ensure(LOCAL_HEADER_LENGTH)) {
+            return false;
+        }
+
+        int nameLength = in.getShort(in.position() + 26) & 0xFFFF;
+        int extraLength = in.getShort(in.position() + 28) & 0xFFFF;
+        if (!ensure(LOCAL_HEADER_LENGTH + nameLength + extraLength)) {
+            throw new EOFException("Truncated local file header");
+        }
+
+        int header = in.position();
+        int flags = in.getShort(header + 6) & 0xFFFF;
+        method = in.getShort(header + 8) & 0xFFFF;
+        long crc32 = in.getInt(header + 14) & ZIP64_MAGIC;
+        long compressed = in.getInt(header + 18) & ZIP64_MAGIC;
+        long uncompressed = in.getInt(header + 22) & ZIP64_MAGIC;
+
+        if (nameBytes.length < nameLength) {
+            nameBytes = new byte[nameLength];
+        }
+        in.get(header + LOCAL_HEADER_LENGTH, nameBytes, 0, nameLength);
+        name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+
+        // The zip64 field holds the 8-byte sizes, and makes the data descriptor's 8 bytes wide
+        zip64 = false;
+        int extra = header + LOCAL_HEADER_LENGTH + nameLength;
+        int extraEnd = extra + extraLength;
+        while (extra + 4 <= extraEnd) {
+            int id = in.getShort(extra) & 0xFFFF;
+            int length = in.getShort(extra + 2) & 0xFFFF;
+            if (id == ZIP64_EXTRA_ID) {
+                zip64 = true;
+                int field = extra + 4;
+                if (uncompressed == ZIP64_MAGIC && field + 8 <= extraEnd) {
+                    uncompressed = in.getLong(field);
+                    field += 8;
+                }
+                if (compressed == ZIP64_MAGIC && field + 8 <= extraEnd) {
+                    compressed = in.getLong(field);
+                }
+            }
+            extra += 4 + length;
+        }
+        in.position(extraEnd);
+
+        dataDescriptor = (flags & FLAG_DATA_DESCRIPTOR) != 0;
+        expectedCrc = dataDescriptor ? -1 : crc32;
+        size = dataDescriptor ? -1 : uncompressed;
+        compressedSize = dataDescriptor ? -1 : compressed;
+        readable = (flags & FLAG_ENCRYPTED) == 0
+                && (method == ZipEntry.DEFLATED || (method == ZipEntry.STORED && !dataDescriptor));
+
+        inflater.reset();
+        crc.reset();
+        storedRemaining = size;
+        bytesRead = 0;
+        inEntry = true;
+        return true;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isDirectory() {
+        return name.endsWith("/");
+    }
+
+    /** Uncompressed size from the local header, or -1 if it follows in a data descriptor. */
+    long getSize() {
+        return size;
+    }
+
+    /** CRC-32 from the local header, or from the data descriptor once the entry has been read. */
+    long getCrc() {
+        return expectedCrc;
+    }
+
+    /** False for encrypted entries and compression methods other than STORED and DEFLATED. */
+    boolean canReadEntryData() {
+        return readable;
+    }
+
+    /** CRC-32 of the entry bytes read so far. */
+    long crc() {
+        return crc.getValue();
+    }
+
+    /** Uncompressed bytes of the entry read so far. */
+    long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Reads entry data into {@code dst}.
+     *
+     * @return Bytes read, or -1 at the end of the entry
+     * @throws ZipException if the entry does not match its CRC-32 or size
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+        if (!inEntry) {
+            return -1;
+        }
+        if (!readable) {
+            throw new ZipException("Unsupported compression method " + method + " or encryption: " + name);
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        int start = dst.position();
+        if (method == ZipEntry.STORED) {
+            readStored(dst);
+        } else {
+            inflate(dst);
+        }
+
+        int read = dst.position() - start;
+        if (read == 0) {
+            endEntry();
+            return -1;
+        }
+
+        // Update the CRC from the bytes just written, without a view buffer
+        int limit = dst.limit();
+        dst.limit(dst.position()).position(start);
+        crc.update(dst);
+        dst.limit(limit);
+        bytesRead += read;
+        return read;
+    }
+
+    private void readStored(ByteBuffer dst) throws IOException {
+        if (storedRemaining == 0) {
+            return;
+        }
+        if (!in.hasRemaining() && !fill()) {
+            throw new EOFException("Truncated ZIP entry: " + name);
+        }
+        int n = (int) Math.min(storedRemaining, Math.min(in.remaining(), dst.remaining()));
+        int limit = in.limit();
+        in.limit(in.position() + n);
+        dst.put(in);
+        in.limit(limit);
+        storedRemaining -= n;
+    }
+
+    /** Inflates until some output is produced or the deflate stream ends. */
+    private void inflate(ByteBuffer dst) throws IOException {
+        while (!inflater.finished()) {
+            if (inflater.needsInput()) {
+                if (!in.hasRemaining() && !fill()) {
+                    throw new EOFException("Truncated ZIP entry: " + name);
+                }
+                // The inflater advances the input buffer's position as it consumes it
+                inflater.setInput(in);
+            }
+            try {
+                if (inflater.inflate(dst) > 0) {
+                    return;
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid deflate data in " + name + ": " + e.getMessage());
+            }
+            if (inflater.needsDictionary()) {
+                throw new ZipException("Deflate data needs a preset dictionary: " + name);
+            }
+        }
+    }
+
+    private void endEntry() throws IOException {
+        inEntry = false;
+        long compressed = method == ZipEntry.DEFLATED ? inflater.getBytesRead() : bytesRead;
+        if (dataDescriptor) {
+            readDataDescriptor();
+        }
+        if (expectedCrc != crc.getValue()) {
+            throw new ZipException(String.format("Bad CRC-32 for entry %s: expected %08x, computed %08x",
+                    name, expectedCrc, crc.getValue()));
+        }
+        if (size != bytesRead || compressedSize != compressed) {
+            throw new ZipException("Bad size for entry " + name + ": expected " + size + "/" + compressedSize
+                    + " bytes, read " + bytesRead + "/" + compressed);
+        }
+    }
+
+    /** Reads the CRC and sizes that follow the data, with or without the optional signature. */
+    private void readDataDescriptor() throws IOException {
+        int length = zip64 ? 20 : 12;
+        if (!ensure(4)) {
+            throw new EOFException("Truncated data descriptor: " + name);
+        }
+        if (in.getInt(in.position()) == DATA_DESCRIPTOR_SIG) {
+            in.position(in.position() + 4);
+        }
+        if (!ensure(length)) {
+            throw new EOFException("Truncated data descriptor: " + name);
+        }
+        int descriptor = in.position();
+        expectedCrc = in.getInt(descriptor) & ZIP64_MAGIC;
+        if (zip64) {
+            compressedSize = in.getLong(descriptor + 4);
+            size = in.getLong(descriptor + 12);
+        } else {
+            compressedSize = in.getInt(descriptor + 4) & ZIP64_MAGIC;
+            size = in.getInt(descriptor + 8) & ZIP64_MAGIC;
+        }
+        in.position(descriptor + length);
+    }
+
+    /** Reads the rest of the current entry, so it is still verified, or skips it if it cannot be read. */
+    private void skipEntry() throws IOException {
+        if (!readable) {
+            if (compressedSize < 0) {
+                throw new ZipException("Cannot skip unreadable entry with a data descriptor: " + name);
+            }
+            long remaining = compressedSize;
+            while (remaining > 0) {
+                if (!in.hasRemaining() && !fill()) {
+                    throw new EOFException("Truncated ZIP entry: " + name);
+                }
+                int n = (int) Math.min(remaining, in.remaining());
+                in.position(in.position() + n);
+                remaining -= n;
+            }
+            inEntry = false;
+            return;
+        }
+        if (discard == null) {
+            discard = ByteBuffer.allocateDirect(SKIP_BUFFER_SIZE);
+        }
+        while (read(discard.clear()) >= 0) {
+            // Discard
+        }
+    }
+
+    /**
+     * Reads the rest of the current entry, so its CRC-32 and size are checked now
+     * rather than when the next entry is read.
+     *
+     * @throws ZipException if the entry does not match its CRC-32 or size
+     */
+    void finishEntry() throws IOException {
+        if (inEntry) {
+            skipEntry();
+        }
+    }
+
+    /** Reads until at least {@code n} bytes are buffered; false if the source ends first. */
+    private boolean ensure(int n) throws IOException {
+        while (in.remaining() < n) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Moves unread bytes to the front and reads more after them; false at the end of the source. */
+    private boolean fill() throws IOException {
+        if (sourceEnded) {
+            return false;
+        }
+        in.compact();
+        int read;
+        try {
+            do {
+                read = source.read(in);
+            } while (read == 0);
+        } finally {
+            in.flip();
+        }
+        if (read < 0) {
+            sourceEnded = true;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (open) {
+            open = false;
+            inflater.end();
+            source.close();
+        }
+    }
+}
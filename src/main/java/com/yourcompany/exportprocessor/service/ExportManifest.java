@@ -0,0 +1,105 @@
+package com.yourcompany.exportprocessor.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-entry fingerprints (name, size, CRC-32) of an export, used to re-export
+ * only what changed. Holds the previous run's entries for lookups and collects
+ * the entries of the current run, which become the next run's manifest.
+ * Safe for use from concurrent upload threads.
+ */
+public final class ExportManifest {
+
+    /** One uploaded entry and the object that holds it. */
+    public record Entry(String name, long size, long crc32, String key) {
+    }
+
+    private static final ExportManifest DISABLED = new ExportManifest(Map.of(), false);
+
+    private final Map<String, Entry> previous;
+    private final boolean recording;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final LongAdder bytesSkipped = new LongAdder();
+    private final AtomicInteger entriesSkipped = new AtomicInteger();
+
+    private ExportManifest(Map<String, Entry> previous, boolean recording) {
+        this.previous = previous;
+        this.recording = recording;
+    }
+
+    /** A manifest that matches nothing and records nothing, for non-incremental exports. */
+    public static ExportManifest disabled() {
+        return DISABLED;
+    }
+
+    /** Starts a run on top of the previous run's entries, which may be empty. */
+    public static ExportManifest basedOn(Collection<Entry> previousEntries) {
+        return new ExportManifest(previousEntries.stream()
+                .collect(Collectors.toMap(Entry::name, Function.identity(), (a, b) -> b)), true);
+    }
+
+    /**
+     * Returns the previous run's entry if it has the same name, size and CRC-32 and its
+     * object can be reused for {@code key}, or null if the entry has to be uploaded.
+     * Unknown sizes or CRCs (negative) never match.
+     */
+    Entry reusable(String name, long size, long crc32, String key) {
+        if (size < 0 || crc32 < 0) {
+            return null;
+        }
+        Entry entry = previous.get(name);
+        if (entry == null || entry.size() != size || entry.crc32() != crc32) {
+            return null;
+        }
+        // A different file name means a different output codec, so the object content differs
+        if (!fileName(entry.key()).equals(fileName(key))) {
+            return null;
+        }
+        // Objects above the CopyObject limit are only reused where they already are
+        if (!entry.key().equals(key) && size > S3UploadService.MAX_SINGLE_UPLOAD_BYTES) {
+            return null;
+        }
+        return entry;
+    }
+
+    private static String fileName(String key) {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    /** Records an entry uploaded by this run. Entries with unknown size or CRC are left out. */
+    void record(String name, long size, long crc32, String key) {
+        if (recording && size >= 0 && crc32 >= 0) {
+            current.put(name, new Entry(name, size, crc32, key));
+        }
+    }
+
+    /** Records a previous entry satisfied without uploading, now held by {@code key}. */
+    void recordReused(Entry entry, String key) {
+        record(entry.name(), entry.size(), entry.crc32(), key);
+        bytesSkipped.add(entry.size());
+        entriesSkipped.incrementAndGet();
+    }
+
+    public boolean isEnabled() {
+        return recording;
+    }
+
+    /** Entries of the current run. */
+    public Collection<Entry> entries() {
+        return current.values();
+    }
+
+    public long bytesSkipped() {
+        return bytesSkipped.sum();
+    }
+
+    public int entriesSkipped() {
+        return entriesSkipped.get();
+    }
+}
@@ -0,0 +1,91 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Keeps the manifest of the last successful export per customer and export type
+ * as a JSON Lines object at {@code exports/{customerId}/_manifests/{exportType}.jsonl}:
+ * <pre>{"name":"data/a.json","size":312,"crc32":3735928559,"key":"exports/c/job-1/data/a.json"}</pre>
+ */
+@Slf4j
+@Component
+public class ExportManifestStore {
+
+    private final S3AsyncClient s3AsyncClient;
+    private final ObjectMapper objectMapper;
+
+    public ExportManifestStore(S3AsyncClient s3AsyncClient, ObjectMapper objectMapper) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.objectMapper = objectMapper;
+    }
+
+    static String manifestKey(String customerId, String exportType) {
+        return String.format("exports/%s/_manifests/%s.jsonl", customerId,
+                exportType != null ? exportType : "default");
+    }
+
+    /** Loads the previous manifest; a missing manifest starts from an empty one. */
+    public ExportManifest load(String bucket, String customerId, String exportType) {
+        String key = manifestKey(customerId, exportType);
+        List<ExportManifest.Entry> entries = new ArrayList<>();
+
+        try (ResponseInputStream<GetObjectResponse> in = s3AsyncClient.getObject(
+                req -> req.bucket(bucket).key(key),
+                AsyncResponseTransformer.toBlockingInputStream()).join();
+             MappingIterator<ExportManifest.Entry> lines =
+                     objectMapper.readerFor(ExportManifest.Entry.class).readValues(in)) {
+            while (lines.hasNext()) {
+                entries.add(lines.next());
+            }
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof NoSuchKeyException)) {
+                throw new RuntimeException("Failed to load export manifest: " + key, e.getCause());
+            }
+            log.debug("No previous export manifest: s3://{}/{}", bucket, key);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load export manifest: " + key, e);
+        }
+
+        log.debug("Loaded export manifest: s3://{}/{} ({} entries)", bucket, key, entries.size());
+        return ExportManifest.basedOn(entries);
+    }
+
+    /** Replaces the stored manifest with the entries of a completed run. */
+    public void save(String bucket, String customerId, String exportType, ExportManifest manifest) {
+        String key = manifestKey(customerId, exportType);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (ExportManifest.Entry entry : manifest.entries()) {
+                out.write(objectMapper.writeValueAsBytes(entry));
+                out.write('\n');
+            }
+            s3AsyncClient.putObject(req -> req.bucket(bucket).key(key).contentType("application/x-ndjson"),
+                    AsyncRequestBody.fromBytes(out.toByteArray())).join();
+            log.debug("Saved export manifest: s3://{}/{} ({} entries)", bucket, key, manifest.entries().size());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to save export manifest: " + key, e);
+        }
+    }
+
+    /** Drops the stored manifest, so the next run uploads every entry. */
+    public void delete(String bucket, String customerId, String exportType) {
+        String key = manifestKey(customerId, exportType);
+        s3AsyncClient.deleteObject(req -> req.bucket(bucket).key(key)).join();
+        log.info("Deleted export manifest: s3://{}/{}", bucket, key);
+    }
+}
@@ -1,12 +1,16 @@
 package com.yourcompany.exportprocessor.service;
 
+import com.yourcompany.exportprocessor.client.DownloadProgress;
 import com.yourcompany.exportprocessor.client.ExportApiClient;
+import com.yourcompany.exportprocessor.client.SegmentedDownloadInputStream;
+import com.yourcompany.exportprocessor.config.CompressionProperties;
 import com.yourcompany.exportprocessor.model.ExportRequest;
 import com.yourcompany.exportprocessor.repository.JobTrackingRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 
 import java.io.InputStream;
 
@@ -17,8 +21,14 @@ public class ExportService {
 
     private final ExportApiClient exportApiClient;
     private final ZipExtractionService zipExtractionService;
+    private final SeekableZipExtractionService seekableZipExtractionService;
+    private final DirectZipExtractionService directZipExtractionService;
     private final S3UploadService s3UploadService;
+    private final CheckpointWriter checkpointWriter;
+    private final HeartbeatService heartbeatService;
+    private final ExportManifestStore manifestStore;
     private final JobTrackingRepository jobTrackingRepository;
+    private final CompressionProperties compressionProperties;
 
     @Value("${app.s3.output-bucket}")
     private String outputBucket;
@@ -26,40 +36,147 @@ public class ExportService {
     @Value("${app.processing.checkpoint-interval-seconds:300}")
     private int checkpointIntervalSeconds;
 
+    /** streaming, direct, seekable, or auto (seekable when the download is already a local file). */
+    @Value("${app.processing.extraction-engine:streaming}")
+    private String extractionEngine;
+
+    /** Reuse entries unchanged since the customer's previous export of the same type. */
+    @Value("${app.processing.incremental.enabled:false}")
+    private boolean incrementalEnabled;
+
     public ExportService(ExportApiClient exportApiClient,
                          ZipExtractionService zipExtractionService,
+                         SeekableZipExtractionService seekableZipExtractionService,
+                         DirectZipExtractionService directZipExtractionService,
                          S3UploadService s3UploadService,
-                         JobTrackingRepository jobTrackingRepository) {
+                         CheckpointWriter checkpointWriter,
+                         HeartbeatService heartbeatService,
+                         ExportManifestStore manifestStore,
+                         JobTrackingRepository jobTrackingRepository,
+                         CompressionProperties compressionProperties) {
         this.exportApiClient = exportApiClient;
         this.zipExtractionService = zipExtractionService;
+        this.seekableZipExtractionService = seekableZipExtractionService;
+        this.directZipExtractionService = directZipExtractionService;
         this.s3UploadService = s3UploadService;
+        this.checkpointWriter = checkpointWriter;
+        this.heartbeatService = heartbeatService;
+        this.manifestStore = manifestStore;
         this.jobTrackingRepository = jobTrackingRepository;
+        this.compressionProperties = compressionProperties;
+    }
+
+    public int processExport(ExportRequest request, String messageId, String claimToken) {
+        return processExport(request, messageId, claimToken, () -> { });
     }
 
-    public void processExport(ExportRequest request, String messageId) {
+    /**
+     * Processes the whole export, or only its shard's byte range for child messages of a sharded export.
+     *
+     * @param claimToken   Token returned by {@code claimJob}; tracking updates only apply while it is current
+     * @param downloadDone Called once the export has been downloaded and read, while the last
+     *                     uploads may still be running; lets the caller start on the next export
+     * @return Number of records processed
+     */
+    public int processExport(ExportRequest request, String messageId, String claimToken, Runnable downloadDone) {
         log.info("Starting export processing: exportId={}", request.getExportId());
+        ExportRequest.Shard shard = request.getShard();
 
         // 1. Download export data from Export API
         log.debug("Downloading export data from API");
-        InputStream exportStream = exportApiClient.downloadExport(request.getExportId());
+        InputStream exportStream;
+        if (shard != null) {
+            log.info("Processing shard {}/{} of parent {}: bytes {}-{}", shard.getIndex() + 1, shard.getCount(),
+                    shard.getParentMessageId(), shard.getStartOffset(), shard.getEndOffset());
+            exportStream = exportApiClient.downloadRange(request.getExportId(),
+                    shard.getStartOffset(), shard.getEndOffset(), shard.getValidator());
+        } else {
+            exportStream = exportApiClient.downloadExport(request.getExportId());
+        }
+        if (exportStream instanceof DownloadProgress progress) {
+            heartbeatService.trackProgress(messageId, progress);
+        }
+        if (shard != null) {
+            exportStream = ShardCoordinator.shardStream(exportStream);
+        }
 
         // 2. Process ZIP stream and upload to S3
         log.debug("Processing ZIP stream");
+        String customerId = request.getMetadata().getCustomerId();
+        String exportType = request.getMetadata().getExportType();
         String outputPrefix = String.format("exports/%s/%s/",
-                request.getMetadata().getCustomerId(),
+                customerId,
                 request.getJobId());
 
-        int recordsProcessed = zipExtractionService.extractAndUpload(
-                exportStream,
-                outputBucket,
-                outputPrefix,
-                (checkpoint, count) -> {
-                    // Periodic checkpoint callback
-                    jobTrackingRepository.updateCheckpoint(messageId, checkpoint, count);
-                    log.debug("Checkpoint saved: records={}", count);
-                }
-        );
+        // Shards hold part of the archive; the manifest covers whole exports only
+        ExportManifest manifest = incrementalEnabled && shard == null
+                ? manifestStore.load(outputBucket, customerId, exportType)
+                : ExportManifest.disabled();
+
+        OutputCompression compression = compressionProperties.forExportType(exportType);
+
+        // A shard has no central directory, so only the streaming engine can read it
+        ArchiveExtractor extractor = shard != null ? zipExtractionService : selectExtractor(exportStream);
+
+        int recordsProcessed;
+        try {
+            recordsProcessed = extractor.extractAndUpload(
+                    exportStream,
+                    outputBucket,
+                    outputPrefix,
+                    (checkpoint, count) -> {
+                        // Periodic checkpoint callback, written behind so extraction never waits on DynamoDB
+                        if (!checkpointWriter.submit(messageId, claimToken, checkpoint, count)) {
+                            // Another worker reclaimed the job; stop rather than race it
+                            throw new IllegalStateException("Job ownership lost: messageId=" + messageId);
+                        }
+                        log.debug("Checkpoint queued: records={}", count);
+                    },
+                    manifest,
+                    compression,
+                    downloadDone
+            );
+        } catch (RuntimeException e) {
+            if (manifest.isEnabled() && causedBy(e, NoSuchKeyException.class)) {
+                // An object of the previous run is gone; the retry uploads everything
+                manifestStore.delete(outputBucket, customerId, exportType);
+            }
+            throw e;
+        }
+
+        // 3. Keep this run's entries for the next incremental export
+        if (manifest.isEnabled()) {
+            manifestStore.save(outputBucket, customerId, exportType, manifest);
+            jobTrackingRepository.updateSkipped(messageId, claimToken, manifest.entriesSkipped(), manifest.bytesSkipped());
+            log.info("Reused unchanged entries: entriesSkipped={}, bytesSkipped={}",
+                    manifest.entriesSkipped(), manifest.bytesSkipped());
+        }
 
         log.info("Export processing completed: recordsProcessed={}", recordsProcessed);
+        return recordsProcessed;
+    }
+
+    private static boolean causedBy(Throwable t, Class<? extends Throwable> type) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ArchiveExtractor selectExtractor(InputStream exportStream) {
+        boolean localFile = exportStream instanceof SegmentedDownloadInputStream;
+
+        ArchiveExtractor extractor = switch (extractionEngine) {
+            case "seekable" -> seekableZipExtractionService;
+            case "direct" -> directZipExtractionService;
+            case "auto" -> localFile ? seekableZipExtractionService : zipExtractionService;
+            default -> zipExtractionService;
+        };
+
+        log.debug("Selected extraction engine: {} (localFile={})",
+                extractor.getClass().getSimpleName(), localFile);
+        return extractor;
     }
 }
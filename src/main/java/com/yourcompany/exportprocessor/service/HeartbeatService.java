@@ -1,100 +1,279 @@
 package com.yourcompany.exportprocessor.service;
 
+import com.yourcompany.exportprocessor.client.DownloadProgress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
 import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Keeps in-flight SQS messages invisible while their jobs run.
+ * Every registered message is tracked in one registry; a single tick renews all
+ * messages whose visibility is about to lapse with {@code ChangeMessageVisibilityBatch}
+ * (10 entries per call, batches sent in parallel), so the number of API calls
+ * grows with batches rather than with messages.
+ * <p>
+ * The visibility granted to each message follows its job's remaining-time estimate
+ * when download progress is known, between the base timeout and a configured maximum:
+ * long jobs are renewed less often, nearly finished ones get short extensions so a
+ * crash hands them back quickly.
+ */
 @Slf4j
 @Service
 public class HeartbeatService {
 
+    static final int MAX_BATCH_SIZE = 10;
+
+    /** Margin kept between a renewal and the moment a message would become visible. */
+    private static final long SAFETY_MARGIN_SECONDS = 60;
+
+    /** Receipt handle errors after which renewing again cannot succeed. */
+    private static final Set<String> TERMINAL_ERRORS = Set.of(
+            "ReceiptHandleIsInvalid", "MessageNotInflight", "AWS.SimpleQueueService.MessageNotInflight");
+
     private final SqsClient sqsClient;
     private final String queueUrl;
     private final int heartbeatIntervalSeconds;
     private final int visibilityTimeoutSeconds;
+    private final int maxVisibilitySeconds;
+    private final int tickSeconds;
     private final ScheduledExecutorService scheduler;
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Heartbeat> registry = new ConcurrentHashMap<>();
+
+    private final Timer renewalLatency;
+    private final Timer renewalLag;
+    private final Counter renewed;
+    private final Counter failed;
 
     public HeartbeatService(
             SqsClient sqsClient,
+            MeterRegistry meterRegistry,
             @Value("${app.sqs.export-queue}") String queueName,
             @Value("${app.processing.heartbeat-interval-seconds:120}") int heartbeatIntervalSeconds,
-            @Value("${spring.cloud.aws.region.static:us-east-1}") String region) {
+            @Value("${app.processing.heartbeat.tick-seconds:10}") int tickSeconds,
+            @Value("${app.processing.heartbeat.max-visibility-seconds:900}") int maxVisibilitySeconds) {
 
         this.sqsClient = sqsClient;
         this.heartbeatIntervalSeconds = heartbeatIntervalSeconds;
         this.visibilityTimeoutSeconds = heartbeatIntervalSeconds + 60; // Buffer
+        this.maxVisibilitySeconds = Math.max(visibilityTimeoutSeconds, maxVisibilitySeconds);
+        this.tickSeconds = Math.max(1, tickSeconds);
 
         // Get queue URL
         this.queueUrl = sqsClient.getQueueUrl(r -> r.queueName(queueName)).queueUrl();
 
+        this.renewalLatency = Timer.builder("export.heartbeat.renewal.latency")
+                .description("Time for a message's visibility renewal to be acknowledged")
+                .register(meterRegistry);
+        this.renewalLag = Timer.builder("export.heartbeat.lag")
+                .description("Delay between a message's renewal falling due and the renewal being acknowledged")
+                .register(meterRegistry);
+        this.renewed = Counter.builder("export.heartbeat.renewals")
+                .description("Message visibility renewals")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failed = Counter.builder("export.heartbeat.renewals")
+                .description("Message visibility renewals")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        Gauge.builder("export.heartbeat.messages", registry, Map::size)
+                .description("Messages with an active heartbeat")
+                .register(meterRegistry);
+
         // Use platform thread for scheduling (not virtual threads)
         this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "heartbeat-scheduler");
             t.setDaemon(true);
             return t;
         });
+        this.scheduler.scheduleWithFixedDelay(this::tick, this.tickSeconds, this.tickSeconds, TimeUnit.SECONDS);
     }
 
     /**
-     * Starts a heartbeat that extends message visibility timeout periodically.
+     * Registers a message for visibility renewal until the returned heartbeat is cancelled.
+     * The first renewal happens roughly {@code heartbeat-interval-seconds} after registration.
      *
+     * @param messageId     SQS message id
      * @param receiptHandle SQS message receipt handle
-     * @return ScheduledFuture that can be cancelled when processing completes
      */
-    public ScheduledFuture<?> startHeartbeat(String receiptHandle) {
-        return scheduler.scheduleAtFixedRate(
-                () -> extendVisibility(receiptHandle),
-                heartbeatIntervalSeconds,
-                heartbeatIntervalSeconds,
-                TimeUnit.SECONDS
-        );
+    public Heartbeat startHeartbeat(String messageId, String receiptHandle) {
+        Heartbeat heartbeat = new Heartbeat(messageId, receiptHandle,
+                System.currentTimeMillis() + (heartbeatIntervalSeconds + SAFETY_MARGIN_SECONDS) * 1000);
+        registry.put(messageId, heartbeat);
+        return heartbeat;
+    }
+
+    /**
+     * Lets the message's visibility follow the download's remaining-time estimate.
+     * Ignored if the message has no active heartbeat.
+     */
+    public void trackProgress(String messageId, DownloadProgress progress) {
+        Heartbeat heartbeat = registry.get(messageId);
+        if (heartbeat != null) {
+            heartbeat.progress = progress;
+        }
     }
 
-    private void extendVisibility(String receiptHandle) {
+    /** Renews every message whose visibility lapses before the next tick plus the safety margin. */
+    void tick() {
         try {
-            sqsClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
-                    .queueUrl(queueUrl)
-                    .receiptHandle(receiptHandle)
-                    .visibilityTimeout(visibilityTimeoutSeconds)
-                    .build());
+            long now = System.currentTimeMillis();
+            long horizon = now + (tickSeconds + SAFETY_MARGIN_SECONDS) * 1000;
 
-            log.debug("Extended message visibility by {} seconds", visibilityTimeoutSeconds);
+            List<Heartbeat> due = registry.values().stream()
+                    .filter(h -> h.visibleUntil <= horizon)
+                    .toList();
+            if (due.isEmpty()) {
+                return;
+            }
+
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            for (int i = 0; i < due.size(); i += MAX_BATCH_SIZE) {
+                List<Heartbeat> batch = due.subList(i, Math.min(i + MAX_BATCH_SIZE, due.size()));
+                batches.add(CompletableFuture.runAsync(() -> renew(batch, now), batchExecutor));
+            }
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
 
         } catch (Exception e) {
-            log.warn("Failed to extend message visibility: {}", e.getMessage());
+            // Keep the scheduled tick alive
+            log.warn("Heartbeat tick failed: {}", e.getMessage());
         }
     }
 
+    private void renew(List<Heartbeat> batch, long now) {
+        List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        Map<String, Heartbeat> byEntryId = new HashMap<>();
+        Map<String, Integer> granted = new HashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            Heartbeat heartbeat = batch.get(i);
+            String entryId = String.valueOf(i);
+            int visibility = visibilityFor(heartbeat, now);
+            byEntryId.put(entryId, heartbeat);
+            granted.put(entryId, visibility);
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(entryId)
+                    .receiptHandle(heartbeat.receiptHandle)
+                    .visibilityTimeout(visibility)
+                    .build());
+        }
+
+        long start = System.nanoTime();
+        ChangeMessageVisibilityBatchResponse response;
+        try {
+            response = sqsClient.changeMessageVisibilityBatch(r -> r.queueUrl(queueUrl).entries(entries));
+        } catch (Exception e) {
+            for (Heartbeat heartbeat : batch) {
+                failed.increment();
+                log.warn("Failed to extend message visibility: messageId={}: {}",
+                        heartbeat.messageId, e.getMessage());
+            }
+            return;
+        }
+        long latencyNanos = System.nanoTime() - start;
+
+        response.successful().forEach(result -> {
+            Heartbeat heartbeat = byEntryId.get(result.id());
+            int visibility = granted.get(result.id());
+            long dueAt = heartbeat.visibleUntil - (tickSeconds + SAFETY_MARGIN_SECONDS) * 1000;
+            renewalLag.record(Math.max(0, System.currentTimeMillis() - dueAt), TimeUnit.MILLISECONDS);
+            heartbeat.visibleUntil = now + visibility * 1000L;
+            renewalLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+            renewed.increment();
+            log.debug("Extended message visibility: messageId={}, seconds={}, latencyMs={}",
+                    heartbeat.messageId, visibility, latencyNanos / 1_000_000);
+        });
+
+        for (BatchResultErrorEntry error : response.failed()) {
+            Heartbeat heartbeat = byEntryId.get(error.id());
+            failed.increment();
+            log.warn("Failed to extend message visibility: messageId={}, code={}: {}",
+                    heartbeat.messageId, error.code(), error.message());
+            if (TERMINAL_ERRORS.contains(error.code())) {
+                registry.remove(heartbeat.messageId, heartbeat);
+            }
+        }
+    }
+
+    /**
+     * Seconds of visibility to grant: the remaining-time estimate plus margin, never less
+     * than the base timeout nor more than the configured maximum.
+     */
+    int visibilityFor(Heartbeat heartbeat, long now) {
+        DownloadProgress progress = heartbeat.progress;
+        if (progress == null) {
+            return visibilityTimeoutSeconds;
+        }
+
+        long done = progress.bytesTransferred();
+        long total = progress.totalBytes();
+        long elapsedMillis = now - heartbeat.startedAt;
+        if (done <= 0 || total <= 0 || elapsedMillis <= 0) {
+            return visibilityTimeoutSeconds;
+        }
+
+        double remainingSeconds = (double) Math.max(0, total - done) / done * elapsedMillis / 1000.0;
+        long seconds = Math.round(remainingSeconds) + SAFETY_MARGIN_SECONDS;
+        return (int) Math.max(visibilityTimeoutSeconds, Math.min(maxVisibilitySeconds, seconds));
+    }
+
     /**
      * Releases message back to queue immediately (visibility = 0).
      * Use when gracefully shutting down without completing the job.
      */
     public void releaseMessage(String receiptHandle) {
+        releaseMessage(receiptHandle, 0);
+    }
+
+    /**
+     * Releases message back to queue, visible again after {@code visibilitySeconds}.
+     * Use when another task is better placed to process it.
+     */
+    public void releaseMessage(String receiptHandle, int visibilitySeconds) {
         try {
             sqsClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
                     .queueUrl(queueUrl)
                     .receiptHandle(receiptHandle)
-                    .visibilityTimeout(0)
+                    .visibilityTimeout(visibilitySeconds)
                     .build());
 
-            log.info("Released message back to queue");
+            log.info("Released message back to queue: visibleIn={}s", visibilitySeconds);
 
         } catch (Exception e) {
             log.warn("Failed to release message: {}", e.getMessage());
         }
     }
 
+    int activeHeartbeats() {
+        return registry.size();
+    }
+
     @PreDestroy
     public void shutdown() {
         scheduler.shutdown();
+        batchExecutor.shutdown();
         try {
             if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
                 scheduler.shutdownNow();
@@ -104,4 +283,24 @@ public class HeartbeatService {
             Thread.currentThread().interrupt();
         }
     }
+
+    /** Registration of one in-flight message. Cancel it when processing ends. */
+    public final class Heartbeat {
+
+        private final String messageId;
+        private final String receiptHandle;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile long visibleUntil;
+        private volatile DownloadProgress progress;
+
+        private Heartbeat(String messageId, String receiptHandle, long visibleUntil) {
+            this.messageId = messageId;
+            this.receiptHandle = receiptHandle;
+            this.visibleUntil = visibleUntil;
+        }
+
+        public void cancel() {
+            registry.remove(messageId, this);
+        }
+    }
 }
@@ -0,0 +1,465 @@
+package com.yourcompany.exportprocessor.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads a stream of unknown (or very large) length as an S3 multipart upload.
+ * Parts are cut from the stream as bytes arrive into buffers leased from the
+ * {@link DirectBufferPool} and uploaded concurrently, so memory use is bounded by
+ * {@code (max-concurrent-parts + 1) * partSize} and by the pool budget.
+ */
+@Slf4j
+@Service
+public class MultipartStreamUploader {
+
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    static final int MAX_PARTS = 10_000;
+
+    /** Parts per size tier when the total length is unknown; sizes double each tier. */
+    static final int PARTS_PER_TIER = 1_000;
+
+    private static final int SCRATCH_BUFFER_SIZE = 64 * 1024;
+
+    private final S3AsyncClient s3AsyncClient;
+    private final DirectBufferPool bufferPool;
+    private final long basePartSize;
+    private final int maxConcurrentParts;
+
+    public MultipartStreamUploader(
+            S3AsyncClient s3AsyncClient,
+            DirectBufferPool bufferPool,
+            @Value("${app.processing.multipart.part-size-mb:8}") int partSizeMb,
+            @Value("${app.processing.multipart.max-concurrent-parts:4}") int maxConcurrentParts) {
+
+        this.s3AsyncClient = s3AsyncClient;
+        this.bufferPool = bufferPool;
+        this.basePartSize = Math.max(MIN_PART_SIZE, partSizeMb * 1024L * 1024L);
+        this.maxConcurrentParts = maxConcurrentParts;
+    }
+
+    /**
+     * Uploads the stream until EOF.
+     * Streams that fit in a single part are sent with one PutObject instead.
+     *
+     * @param expectedLength Total length if known (used to pick a part size), or -1
+     * @return Number of bytes uploaded
+     */
+    public long upload(String bucket, String key, InputStream inputStream, long expectedLength) {
+        byte[] scratch = new byte[SCRATCH_BUFFER_SIZE];
+        DirectBufferPool.Lease first = null;
+        try {
+            long firstPartSize = partSize(1, expectedLength);
+            first = bufferPool.acquire(firstPartSize);
+            first.fill(inputStream, scratch);
+
+            if (first.size() < firstPartSize) {
+                try (DirectBufferPool.Lease single = first) {
+                    s3AsyncClient.putObject(PutObjectRequest.builder()
+                                    .bucket(bucket)
+                                    .key(key)
+                                    .contentLength(single.size())
+                                    .build(),
+                            AsyncRequestBody.fromRemainingByteBuffersUnsafe(single.views())
+                    ).join();
+
+                    log.debug("Uploaded file: s3://{}/{} ({}bytes)", bucket, key, single.size());
+                    return single.size();
+                }
+            }
+
+            return uploadParts(bucket, key, inputStream, expectedLength, first, scratch);
+
+        } catch (IOException | InterruptedException e) {
+            if (first != null) {
+                first.close();
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Failed to read stream for: s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("S3 multipart upload failed", e);
+        }
+    }
+
+    private long uploadParts(String bucket, String key, InputStream inputStream, long expectedLength,
+                             DirectBufferPool.Lease first, byte[] scratch) {
+
+        PartWriter writer;
+        try {
+            writer = new PartWriter(bucket, key, expectedLength, first, scratch);
+        } catch (RuntimeException e) {
+            first.close();
+            throw e;
+        }
+
+        try (writer) {
+            writer.write(inputStream);
+            return writer.complete();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Failed multipart upload: s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("S3 multipart upload failed", e);
+        }
+    }
+
+    /**
+     * Uploads {@code length} bytes of a file, starting at {@code position}, as a multipart upload
+     * whose parts are slices of the file that the SDK reads from disk itself. No pool buffers
+     * are used, and up to {@code max-concurrent-parts} parts are in flight.
+     *
+     * @return Number of bytes uploaded
+     */
+    public long uploadFileRange(String bucket, String key, Path file, long position, long length) {
+        long partSize = filePartSize(length);
+        String uploadId = s3AsyncClient.createMultipartUpload(r -> r.bucket(bucket).key(key))
+                .join()
+                .uploadId();
+        Semaphore inFlight = new Semaphore(maxConcurrentParts);
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            int partNumber = 1;
+            for (long offset = 0; offset < length && failure.get() == null; offset += partSize) {
+                inFlight.acquire();
+                int number = partNumber++;
+                long start = position + offset;
+                long slice = Math.min(partSize, length - offset);
+                parts.add(s3AsyncClient.uploadPart(r -> r
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .uploadId(uploadId)
+                                        .partNumber(number)
+                                        .contentLength(slice),
+                                AsyncRequestBody.fromFile(c -> c.path(file).position(start).numBytesToRead(slice)))
+                        .thenApply(response -> CompletedPart.builder()
+                                .partNumber(number)
+                                .eTag(response.eTag())
+                                .build())
+                        .whenComplete((completedPart, error) -> {
+                            if (error != null) {
+                                failure.compareAndSet(null, error);
+                            }
+                            inFlight.release();
+                        }));
+            }
+
+            inFlight.acquire(maxConcurrentParts);
+            if (failure.get() != null) {
+                throw new RuntimeException("Part upload failed", failure.get());
+            }
+
+            List<CompletedPart> completedParts = parts.stream()
+                    .map(CompletableFuture::join)
+                    .sorted(Comparator.comparing(CompletedPart::partNumber))
+                    .toList();
+            s3AsyncClient.completeMultipartUpload(r -> r
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(u -> u.parts(completedParts))
+            ).join();
+
+            log.debug("Uploaded file range: s3://{}/{} ({}bytes, {} parts)", bucket, key, length, completedParts.size());
+            return length;
+
+        } catch (Exception e) {
+            abort(bucket, key, uploadId);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Failed multipart upload: s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("S3 multipart upload failed", e);
+        }
+    }
+
+    /**
+     * Starts a multipart upload that the caller appends to with {@link PartWriter#write}.
+     * Used to build one object from several sources without holding it in memory.
+     *
+     * @param expectedLength Total length if known (used to pick a part size), or -1
+     */
+    public PartWriter open(String bucket, String key, long expectedLength) {
+        return new PartWriter(bucket, key, expectedLength, null, new byte[SCRATCH_BUFFER_SIZE]);
+    }
+
+    /**
+     * Starts a multipart upload whose first bytes are already in {@code head}.
+     * The writer takes over the lease and uploads it as the first part, so the caller does not
+     * hold it while more part buffers are leased. A head below the 5 MB part minimum is copied
+     * to the heap and its lease released; the copy starts the first part buffer.
+     *
+     * @param expectedLength Total length if known (used to pick a part size), or -1
+     */
+    public PartWriter open(String bucket, String key, long expectedLength, DirectBufferPool.Lease head) {
+        try {
+            return new PartWriter(bucket, key, expectedLength, head, new byte[SCRATCH_BUFFER_SIZE]);
+        } catch (RuntimeException e) {
+            head.close();
+            throw e;
+        }
+    }
+
+    /**
+     * An open multipart upload. Bytes are cut into parts as they are written and each
+     * full part is uploaded in the background, up to {@code max-concurrent-parts} at once.
+     * The object appears only on {@link #complete()}; closing an incomplete writer aborts it.
+     * Not thread-safe.
+     */
+    public final class PartWriter implements AutoCloseable {
+
+        private final String bucket;
+        private final String key;
+        private final long expectedLength;
+        private final String uploadId;
+        private final byte[] scratch;
+        private final Semaphore inFlight = new Semaphore(maxConcurrentParts);
+        private final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private DirectBufferPool.Lease buffer;
+        private byte[] carry;
+        private int partNumber = 1;
+        private long totalBytes;
+        private boolean completed;
+
+        private PartWriter(String bucket, String key, long expectedLength,
+                           DirectBufferPool.Lease first, byte[] scratch) {
+            this.bucket = bucket;
+            this.key = key;
+            this.expectedLength = expectedLength;
+            this.scratch = scratch;
+            this.uploadId = s3AsyncClient.createMultipartUpload(r -> r.bucket(bucket).key(key))
+                    .join()
+                    .uploadId();
+            this.totalBytes = first != null ? first.size() : 0;
+            if (first != null && first.size() < MIN_PART_SIZE) {
+                // Too small to be a part of its own
+                try (first) {
+                    this.carry = copyOf(first);
+                }
+            } else {
+                this.buffer = first;
+            }
+        }
+
+        /**
+         * Appends the rest of the stream to the object.
+         * Blocks while the part buffer pool or the in-flight part limit is exhausted.
+         *
+         * @return Bytes appended by this call
+         */
+        public long write(InputStream in) throws IOException, InterruptedException {
+            long written = 0;
+            while (true) {
+                nextBuffer();
+                written += buffer.fill(in, scratch);
+                if (buffer.size() < buffer.capacity()) {
+                    break;
+                }
+                sendPart();
+            }
+            totalBytes += written;
+            return written;
+        }
+
+        /**
+         * Appends the rest of the channel to the object, reading straight into part buffers.
+         * Blocks while the part buffer pool or the in-flight part limit is exhausted.
+         *
+         * @return Bytes appended by this call
+         */
+        public long write(ReadableByteChannel in) throws IOException, InterruptedException {
+            long written = 0;
+            while (true) {
+                nextBuffer();
+                written += buffer.fill(in);
+                if (buffer.size() < buffer.capacity()) {
+                    break;
+                }
+                sendPart();
+            }
+            totalBytes += written;
+            return written;
+        }
+
+        /** Bytes appended so far. */
+        public long size() {
+            return totalBytes;
+        }
+
+        /**
+         * Uploads the last part, waits for all parts and completes the upload.
+         *
+         * @return Size of the object
+         */
+        public long complete() throws InterruptedException {
+            if (carry != null) {
+                nextBuffer();
+            }
+            if (buffer != null && (buffer.size() > 0 || parts.isEmpty())) {
+                sendPart();
+            }
+
+            inFlight.acquire(maxConcurrentParts);
+            if (failure.get() != null) {
+                throw new RuntimeException("Part upload failed", failure.get());
+            }
+
+            List<CompletedPart> completedParts = parts.stream()
+                    .map(CompletableFuture::join)
+                    .sorted(Comparator.comparing(CompletedPart::partNumber))
+                    .toList();
+
+            s3AsyncClient.completeMultipartUpload(r -> r
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(u -> u.parts(completedParts))
+            ).join();
+            completed = true;
+
+            log.debug("Uploaded multipart file: s3://{}/{} ({}bytes, {} parts)",
+                    bucket, key, totalBytes, completedParts.size());
+            return totalBytes;
+        }
+
+        /** Leases the buffer for the next part if none is being filled, starting it with any carried head. */
+        private void nextBuffer() throws InterruptedException {
+            if (buffer == null) {
+                buffer = bufferPool.acquire(partSize(partNumber, expectedLength));
+                if (carry != null) {
+                    buffer.put(carry);
+                    carry = null;
+                }
+            }
+        }
+
+        private void sendPart() throws InterruptedException {
+            if (partNumber > MAX_PARTS) {
+                throw new IllegalStateException("Stream exceeds " + MAX_PARTS + " parts of at most "
+                        + partSize(partNumber, expectedLength) + " bytes: s3://" + bucket + "/" + key
+                        + "; raise app.processing.buffer-pool.budget-mb for larger objects");
+            }
+
+            inFlight.acquire();
+            if (failure.get() != null) {
+                inFlight.release();
+                throw new RuntimeException("Part upload failed", failure.get());
+            }
+
+            DirectBufferPool.Lease part = buffer;
+            buffer = null;
+            parts.add(uploadPart(bucket, key, uploadId, partNumber++, part)
+                    .whenComplete((completedPart, error) -> {
+                        part.close();
+                        if (error != null) {
+                            failure.compareAndSet(null, error);
+                        }
+                        inFlight.release();
+                    }));
+        }
+
+        /** Releases the current part buffer and aborts the upload unless it was completed. */
+        @Override
+        public void close() {
+            if (buffer != null) {
+                buffer.close();
+                buffer = null;
+            }
+            if (!completed) {
+                abort(bucket, key, uploadId);
+            }
+        }
+    }
+
+    private CompletableFuture<CompletedPart> uploadPart(String bucket, String key, String uploadId,
+                                                        int partNumber, DirectBufferPool.Lease part) {
+        return s3AsyncClient.uploadPart(r -> r
+                                .bucket(bucket)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .contentLength(part.size()),
+                        AsyncRequestBody.fromRemainingByteBuffersUnsafe(part.views()))
+                .thenApply(response -> CompletedPart.builder()
+                        .partNumber(partNumber)
+                        .eTag(response.eTag())
+                        .build());
+    }
+
+    private void abort(String bucket, String key, String uploadId) {
+        try {
+            s3AsyncClient.abortMultipartUpload(r -> r.bucket(bucket).key(key).uploadId(uploadId)).join();
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload: s3://{}/{} uploadId={}: {}",
+                    bucket, key, uploadId, e.getMessage());
+        }
+    }
+
+    /**
+     * Part size for the given 1-based part number.
+     * With a known length the size is fixed so the whole object fits in {@link #MAX_PARTS};
+     * otherwise it doubles every {@link #PARTS_PER_TIER} parts, up to what the buffer pool
+     * can lease at once.
+     *
+     * @throws IllegalArgumentException if a known length needs parts larger than the pool can lease
+     */
+    long partSize(int partNumber, long expectedLength) {
+        long limit = Math.min(MAX_PART_SIZE, bufferPool.maxBytes());
+        if (expectedLength > 0) {
+            long size = Math.max(basePartSize, ceilDiv(expectedLength, MAX_PARTS));
+            if (size > limit) {
+                throw new IllegalArgumentException("Object of " + expectedLength + " bytes needs parts of "
+                        + size + " bytes, more than the " + limit + " bytes the buffer pool can lease;"
+                        + " raise app.processing.buffer-pool.budget-mb");
+            }
+            return size;
+        }
+        int tier = Math.min((partNumber - 1) / PARTS_PER_TIER, 20);
+        return Math.min(basePartSize << tier, limit);
+    }
+
+    /**
+     * Part size for a file range. Parts are read from disk rather than leased, so only
+     * {@link #MAX_PART_SIZE} and {@link #MAX_PARTS} bound it, not the buffer pool.
+     */
+    long filePartSize(long length) {
+        return Math.min(MAX_PART_SIZE, Math.max(basePartSize, ceilDiv(length, MAX_PARTS)));
+    }
+
+    private static byte[] copyOf(DirectBufferPool.Lease lease) {
+        byte[] bytes = new byte[(int) lease.size()];
+        int offset = 0;
+        for (ByteBuffer view : lease.views()) {
+            int length = view.remaining();
+            view.get(bytes, offset, length);
+            offset += length;
+        }
+        return bytes;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,35 @@
+package com.yourcompany.exportprocessor.service;
+
+/**
+ * How entries of one export are compressed before upload.
+ * Compressed objects get the codec's file extension appended to their key.
+ */
+public record OutputCompression(String codec, int level) {
+
+    public static final OutputCompression NONE = new OutputCompression("none", 0);
+
+    /**
+     * @throws IllegalArgumentException for codecs other than none and gzip, or levels outside 1-9
+     */
+    public static OutputCompression of(String codec, int level) {
+        return switch (codec) {
+            case "none" -> NONE;
+            case "gzip" -> {
+                if (level < 1 || level > 9) {
+                    throw new IllegalArgumentException("gzip level must be between 1 and 9: " + level);
+                }
+                yield new OutputCompression(codec, level);
+            }
+            default -> throw new IllegalArgumentException("Unsupported output codec: " + codec);
+        };
+    }
+
+    public boolean isEnabled() {
+        return !"none".equals(codec);
+    }
+
+    /** Appended to object keys. */
+    public String suffix() {
+        return isEnabled() ? ".gz" : "";
+    }
+}
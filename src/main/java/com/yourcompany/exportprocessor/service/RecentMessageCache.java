@@ -0,0 +1,201 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Bounded, time-expiring set of message ids this task has recently claimed, completed,
+ * or seen claimed by another worker. Redeliveries of these messages can be
+ * acknowledged without the conditional put in {@code claimJob}.
+ * <p>
+ * Entries live for at most the TTL, which must stay below the job lock duration so
+ * a cached "claimed elsewhere" never outlives the lock that made the claim fail.
+ * An optional Bloom filter answers most misses without taking the cache lock; it is
+ * made of two generations that rotate every TTL, since entries cannot be removed from it.
+ */
+@Slf4j
+@Component
+public class RecentMessageCache {
+
+    private static final int BLOOM_HASHES = 4;
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Long> expiries = new LinkedHashMap<>();
+
+    private final boolean bloomEnabled;
+    private final int bloomBits;
+    private volatile AtomicLongArray currentBloom;
+    private volatile AtomicLongArray previousBloom;
+    private volatile long bloomRotatedAt = System.currentTimeMillis();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public RecentMessageCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.processing.dedup-cache.max-size:10000}") int maxSize,
+            @Value("${app.processing.dedup-cache.ttl-minutes:10}") long ttlMinutes,
+            @Value("${app.processing.dedup-cache.bloom-filter:false}") boolean bloomEnabled) {
+
+        this.maxSize = maxSize;
+        this.ttlMillis = Duration.ofMinutes(ttlMinutes).toMillis();
+        this.bloomEnabled = bloomEnabled;
+        this.bloomBits = Math.max(64, maxSize * BLOOM_BITS_PER_ENTRY);
+        this.currentBloom = newBloom();
+        this.previousBloom = newBloom();
+
+        this.hits = Counter.builder("export.dedup.cache.lookups")
+                .description("Duplicate checks against the local message cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("export.dedup.cache.lookups")
+                .description("Duplicate checks against the local message cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("export.dedup.cache.size", this, RecentMessageCache::size)
+                .description("Message ids held in the local duplicate cache")
+                .register(meterRegistry);
+    }
+
+    /** True if the message was recently claimed or completed and its redelivery can be acknowledged. */
+    public boolean isKnown(String messageId) {
+        if (bloomEnabled && !mightContain(messageId)) {
+            misses.increment();
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Long expiry = expiries.get(messageId);
+            if (expiry != null && expiry > now) {
+                hits.increment();
+                return true;
+            }
+            if (expiry != null) {
+                expiries.remove(messageId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.increment();
+        return false;
+    }
+
+    /** Remembers a message as claimed or completed. */
+    public void remember(String messageId) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            expiries.remove(messageId);
+            expiries.put(messageId, now + ttlMillis);
+            evict(now);
+        } finally {
+            lock.unlock();
+        }
+        if (bloomEnabled) {
+            addToBloom(messageId, now);
+        }
+    }
+
+    /** Forgets a message so its redelivery is processed again, e.g. after a failure. */
+    public void forget(String messageId) {
+        lock.lock();
+        try {
+            expiries.remove(messageId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return expiries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Drops expired entries from the head, then the oldest entries beyond the size bound. */
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Long>> it = expiries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getValue() > now && expiries.size() <= maxSize) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    private AtomicLongArray newBloom() {
+        return new AtomicLongArray((bloomBits + 63) / 64);
+    }
+
+    private boolean mightContain(String messageId) {
+        int[] positions = bloomPositions(messageId);
+        return contains(currentBloom, positions) || contains(previousBloom, positions);
+    }
+
+    private void addToBloom(String messageId, long now) {
+        if (now - bloomRotatedAt > ttlMillis) {
+            lock.lock();
+            try {
+                if (now - bloomRotatedAt > ttlMillis) {
+                    previousBloom = currentBloom;
+                    currentBloom = newBloom();
+                    bloomRotatedAt = now;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        AtomicLongArray bloom = currentBloom;
+        for (int position : bloomPositions(messageId)) {
+            int word = position >>> 6;
+            long bit = 1L << (position & 63);
+            bloom.getAndUpdate(word, w -> w | bit);
+        }
+    }
+
+    private static boolean contains(AtomicLongArray bloom, int[] positions) {
+        for (int position : positions) {
+            if ((bloom.get(position >>> 6) & (1L << (position & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Double hashing over two independent 32-bit hashes of the id. */
+    private int[] bloomPositions(String messageId) {
+        int h1 = messageId.hashCode();
+        CRC32C crc = new CRC32C();
+        crc.update(messageId.getBytes(StandardCharsets.UTF_8));
+        int h2 = (int) crc.getValue();
+
+        int[] positions = new int[BLOOM_HASHES];
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            positions[i] = Math.floorMod(h1 + i * h2, bloomBits);
+        }
+        return positions;
+    }
+}
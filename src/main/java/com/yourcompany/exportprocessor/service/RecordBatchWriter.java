@@ -0,0 +1,285 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.yourcompany.exportprocessor.model.ExportRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Parses the JSON entries of one archive into records, runs them through the
+ * {@link RecordStage} chain and writes the survivors as JSON Lines batch objects
+ * at {@code {prefix}_records/part-00000.jsonl}, each about {@code batchSizeBytes}.
+ * <p>
+ * Entries may hold one object, an array of objects or one object per line.
+ * {@code id}, {@code type} and {@code timestamp} map to the {@link ExportRecord}
+ * fields and every other field goes into its data map; nested objects and arrays
+ * are kept as token buffers rather than trees. One record instance and map are
+ * reused for the whole archive, so parsing allocates little beyond the values.
+ */
+@Slf4j
+final class RecordBatchWriter implements AutoCloseable {
+
+    static final String RECORDS_DIR = "_records/";
+
+    private static final JsonFactory JSON = new MappingJsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    private static final int FLUSH_BYTES = 1024 * 1024;
+
+    private final S3UploadService s3UploadService;
+    private final String bucket;
+    private final String prefix;
+    private final long batchSizeBytes;
+    private final List<RecordStage> stages;
+    private final Executor completer;
+    private final ObjIntConsumer<String> onBatchUploaded;
+
+    private final ExportRecord record = new ExportRecord(null, null, new LinkedHashMap<>(), null);
+    private final List<CompletableFuture<Void>> completions = new ArrayList<>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final JsonGenerator out;
+
+    private MultipartStreamUploader.PartWriter batch;
+    private int batchNumber;
+    private int batchRecords;
+    private String lastEntry;
+
+    /**
+     * @param completer       Runs batch completions so the reader can keep filling the next batch
+     * @param onBatchUploaded Called with the last entry name and record count of each completed batch
+     */
+    RecordBatchWriter(S3UploadService s3UploadService, String bucket, String prefix, long batchSizeBytes,
+                      List<RecordStage> stages, Executor completer,
+                      ObjIntConsumer<String> onBatchUploaded) throws IOException {
+        this.s3UploadService = s3UploadService;
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.batchSizeBytes = batchSizeBytes;
+        this.stages = stages;
+        this.completer = completer;
+        this.onBatchUploaded = onBatchUploaded;
+        this.out = JSON.createGenerator(buffer);
+        out.setRootValueSeparator(null);  // Lines are terminated explicitly
+    }
+
+    static boolean isRecordEntry(String entryName) {
+        return entryName.endsWith(".json") || entryName.endsWith(".jsonl") || entryName.endsWith(".ndjson");
+    }
+
+    /**
+     * Reads every record of one entry into the current batch.
+     *
+     * @return Number of records read, including dropped ones
+     */
+    int add(String entryName, InputStream content) throws IOException, InterruptedException {
+        int count = 0;
+        try (JsonParser parser = JSON.createParser(content)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    read(parser);
+                    if (applyStages()) {
+                        write();
+                    }
+                    count++;
+                    batchRecords++;
+                    lastEntry = entryName;
+                    if (buffer.size() >= FLUSH_BYTES) {
+                        flush();
+                        if (batch.size() >= batchSizeBytes) {
+                            completeBatch();
+                        }
+                    }
+                } else if (!isRootArray(parser, token)) {
+                    throw new JsonParseException(parser, "Expected a JSON object per record in " + entryName);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Completes the last batch and waits for every batch.
+     *
+     * @return Number of batch objects written
+     */
+    int finish() throws IOException, InterruptedException {
+        if (batchRecords > 0) {
+            completeBatch();
+        }
+        for (CompletableFuture<Void> completion : completions) {
+            try {
+                completion.get();
+            } catch (ExecutionException e) {
+                throw new IOException("Record batch upload failed", e.getCause());
+            }
+        }
+
+        log.debug("Wrote {} record batches under s3://{}/{}{}", batchNumber, bucket, prefix, RECORDS_DIR);
+        return batchNumber;
+    }
+
+    private static boolean isRootArray(JsonParser parser, JsonToken token) {
+        return (token == JsonToken.START_ARRAY && parser.getParsingContext().getParent().inRoot())
+                || (token == JsonToken.END_ARRAY && parser.getParsingContext().inRoot());
+    }
+
+    private void read(JsonParser parser) throws IOException {
+        record.setId(null);
+        record.setType(null);
+        record.setTimestamp(null);
+        Map<String, Object> data = record.getData();
+        data.clear();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> record.setId(readText(parser, value, field));
+                case "type" -> record.setType(readText(parser, value, field));
+                case "timestamp" -> record.setTimestamp(readInstant(parser, value));
+                default -> data.put(field, readValue(parser, value));
+            }
+        }
+    }
+
+    /** A scalar as text; an object or array would otherwise be left half read. */
+    private static String readText(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value.isStructStart()) {
+            throw new JsonParseException(parser, "Expected a string, number or boolean for " + field);
+        }
+        return parser.getValueAsString();
+    }
+
+    private static Instant readInstant(JsonParser parser, JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_NUMBER_INT -> Instant.ofEpochMilli(parser.getLongValue());
+            case VALUE_STRING -> Instant.parse(parser.getText());
+            case VALUE_NULL -> null;
+            default -> throw new JsonParseException(parser, "Expected an ISO-8601 or epoch millis timestamp");
+        };
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken value) throws IOException {
+        return switch (value) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> parser.getNumberValue();
+            // Written back digit for digit; a Double would round long fractions
+            case VALUE_NUMBER_FLOAT -> parser.getDecimalValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NULL -> null;
+            default -> {
+                TokenBuffer nested = new TokenBuffer(parser);
+                nested.copyCurrentStructure(parser);
+                yield nested;
+            }
+        };
+    }
+
+    private boolean applyStages() {
+        for (RecordStage stage : stages) {
+            if (!stage.apply(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write() throws IOException {
+        out.writeStartObject();
+        if (record.getId() != null) {
+            out.writeStringField("id", record.getId());
+        }
+        if (record.getType() != null) {
+            out.writeStringField("type", record.getType());
+        }
+        if (record.getTimestamp() != null) {
+            out.writeStringField("timestamp", record.getTimestamp().toString());
+        }
+        for (Map.Entry<String, Object> field : record.getData().entrySet()) {
+            out.writeFieldName(field.getKey());
+            writeValue(field.getValue());
+        }
+        out.writeEndObject();
+        out.writeRaw('\n');
+    }
+
+    private void writeValue(Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeNull();
+            case String s -> out.writeString(s);
+            case Integer i -> out.writeNumber(i);
+            case Long l -> out.writeNumber(l);
+            case Double d -> out.writeNumber(d);
+            case BigInteger b -> out.writeNumber(b);
+            case BigDecimal b -> out.writeNumber(b);
+            case Boolean b -> out.writeBoolean(b);
+            case TokenBuffer nested -> nested.serialize(out);
+            // Values put by stages
+            default -> out.writeObject(value);
+        }
+    }
+
+    /** Moves buffered lines into the current batch, opening one if needed. */
+    private void flush() throws IOException, InterruptedException {
+        out.flush();
+        if (buffer.size() == 0) {
+            return;
+        }
+        if (batch == null) {
+            batch = s3UploadService.openMultipart(bucket,
+                    prefix + RECORDS_DIR + String.format("part-%05d.jsonl", batchNumber++));
+        }
+        batch.write(new ByteArrayInputStream(buffer.toByteArray()));
+        buffer.reset();
+    }
+
+    private void completeBatch() throws IOException, InterruptedException {
+        flush();
+        MultipartStreamUploader.PartWriter full = batch;
+        String last = lastEntry;
+        int records = batchRecords;
+        batch = null;
+        batchRecords = 0;
+
+        if (full == null) {
+            // Every record since the last batch was dropped
+            onBatchUploaded.accept(last, records);
+            return;
+        }
+        completions.add(CompletableFuture.runAsync(() -> {
+            s3UploadService.completeMultipart(full);
+            onBatchUploaded.accept(last, records);
+        }, completer));
+    }
+
+    /** Aborts a batch upload still open, e.g. after a failure. */
+    @Override
+    public void close() {
+        if (batch != null) {
+            batch.close();
+            batch = null;
+        }
+    }
+}
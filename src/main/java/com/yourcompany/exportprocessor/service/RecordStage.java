@@ -0,0 +1,19 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.model.ExportRecord;
+
+/**
+ * One step of the record pipeline, applied to every record of JSON entries when
+ * {@code app.processing.records.enabled} is set. Stages are Spring beans run in
+ * {@link org.springframework.core.annotation.Order} order on the archive reader thread.
+ * <p>
+ * The same {@link ExportRecord} instance is reused for every record of an archive:
+ * stages may modify it in place but must not keep references to it or its data map.
+ */
+public interface RecordStage {
+
+    /**
+     * @return false to drop the record from the output
+     */
+    boolean apply(ExportRecord record);
+}
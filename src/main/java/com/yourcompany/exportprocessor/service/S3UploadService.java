@@ -1,6 +1,8 @@
 package com.yourcompany.exportprocessor.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -8,20 +10,30 @@ import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.FileUpload;
 import software.amazon.awssdk.transfer.s3.model.Upload;
+import software.amazon.awssdk.transfer.s3.model.UploadFileRequest;
 import software.amazon.awssdk.transfer.s3.model.UploadRequest;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Base64;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class S3UploadService {
 
+    /** PutObject limit; larger objects must be uploaded in parts. */
+    static final long MAX_SINGLE_UPLOAD_BYTES = 5L * 1024 * 1024 * 1024;
+
     private final S3AsyncClient s3AsyncClient;
     private final S3TransferManager s3TransferManager;
+    private final MultipartStreamUploader multipartStreamUploader;
 
     @Value("${app.processing.multipart-threshold-mb:100}")
     private long multipartThresholdMb;
@@ -29,33 +41,214 @@ public class S3UploadService {
     // Virtual thread executor for I/O operations
     private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
+    private final LongAdder uploadedBytes = new LongAdder();
+    private final AtomicInteger inFlightUploads = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+
+    public S3UploadService(S3AsyncClient s3AsyncClient,
+                           S3TransferManager s3TransferManager,
+                           MultipartStreamUploader multipartStreamUploader,
+                           MeterRegistry meterRegistry) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.s3TransferManager = s3TransferManager;
+        this.multipartStreamUploader = multipartStreamUploader;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("export.uploads.in.flight", inFlightUploads, AtomicInteger::get)
+                .description("S3 uploads currently in progress")
+                .register(meterRegistry);
+    }
+
     /**
      * Uploads a stream to S3.
      * Uses multipart upload for large files automatically.
+     * A negative {@code contentLength} means the length is unknown; such streams,
+     * and streams above the PutObject limit, are uploaded as chunked multipart.
+     * A known {@code crc32} is sent as the object checksum on single-request uploads;
+     * multipart uploads cannot carry a whole-object CRC-32 with this SDK version.
      */
-    public void uploadStream(String bucket, String key, InputStream inputStream, long contentLength) {
+    public void uploadStream(String bucket, String key, InputStream inputStream, long contentLength, long crc32) {
 
-        if (contentLength > multipartThresholdMb * 1024 * 1024) {
+        if (contentLength < 0 || contentLength > MAX_SINGLE_UPLOAD_BYTES) {
+            timed("multipart", () ->
+                    uploadedBytes.add(multipartStreamUploader.upload(bucket, key, inputStream, contentLength)));
+        } else if (contentLength > multipartThresholdMb * 1024 * 1024) {
             // Use Transfer Manager for large files
-            uploadWithTransferManager(bucket, key, inputStream, contentLength);
+            timed("transfer_manager", () -> uploadWithTransferManager(bucket, key, inputStream, contentLength));
         } else {
             // Direct upload for small files
-            uploadDirect(bucket, key, inputStream, contentLength);
+            timed("direct", () -> uploadDirect(bucket, key, inputStream, contentLength, crc32));
         }
     }
 
-    private void uploadDirect(String bucket, String key, InputStream inputStream, long contentLength) {
+    /**
+     * Uploads the contents of the given buffers, in order.
+     * The buffers must not be modified or released until this call returns.
+     * A non-negative {@code crc32} is sent as the object checksum for S3 to verify.
+     */
+    public void uploadBuffers(String bucket, String key, ByteBuffer[] buffers, long contentLength, long crc32) {
+        timed("direct", () -> putBuffers(bucket, key, buffers, contentLength, crc32));
+    }
+
+    private void putBuffers(String bucket, String key, ByteBuffer[] buffers, long contentLength, long crc32) {
         try {
             PutObjectRequest putRequest = PutObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
                     .contentLength(contentLength)
+                    .checksumCRC32(crc32Checksum(crc32))
+                    .build();
+
+            s3AsyncClient.putObject(putRequest,
+                    AsyncRequestBody.fromRemainingByteBuffersUnsafe(buffers)
+            ).join();
+
+            uploadedBytes.add(contentLength);
+            log.debug("Uploaded file: s3://{}/{} ({}bytes)", bucket, key, contentLength);
+
+        } catch (Exception e) {
+            log.error("Failed to upload: s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("S3 upload failed", e);
+        }
+    }
+
+    /**
+     * Uploads a local file.
+     * Uses multipart upload via Transfer Manager above the threshold.
+     * A non-negative {@code crc32} is sent as the object checksum below the threshold.
+     */
+    public void uploadFile(String bucket, String key, Path file, long contentLength, long crc32) {
+        String method = contentLength > multipartThresholdMb * 1024 * 1024 ? "transfer_manager" : "direct";
+        timed(method, () -> putFile(bucket, key, file, contentLength, crc32));
+    }
+
+    /**
+     * Uploads {@code length} bytes of a local file starting at {@code position}, such as a
+     * STORED entry inside an archive. The SDK reads the range from disk; the bytes are never
+     * copied through the caller. Above the threshold, each part is a slice of the range.
+     * A non-negative {@code crc32} is sent as the object checksum below the threshold.
+     */
+    public void uploadFileRange(String bucket, String key, Path file, long position, long length, long crc32) {
+        if (length > multipartThresholdMb * 1024 * 1024) {
+            timed("multipart", () ->
+                    uploadedBytes.add(multipartStreamUploader.uploadFileRange(bucket, key, file, position, length)));
+        } else {
+            timed("direct", () -> putFileRange(bucket, key, file, position, length, crc32));
+        }
+    }
+
+    private void putFileRange(String bucket, String key, Path file, long position, long length, long crc32) {
+        try {
+            s3AsyncClient.putObject(PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .contentLength(length)
+                            .checksumCRC32(crc32Checksum(crc32))
+                            .build(),
+                    AsyncRequestBody.fromFile(c -> c.path(file).position(position).numBytesToRead(length))
+            ).join();
+
+            uploadedBytes.add(length);
+            log.debug("Uploaded file range: s3://{}/{} ({}bytes)", bucket, key, length);
+
+        } catch (Exception e) {
+            log.error("Failed to upload file range: s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("S3 file upload failed", e);
+        }
+    }
+
+    /**
+     * Copies an existing object within the bucket on the server side, without
+     * transferring its bytes. Limited to objects of up to 5 GB.
+     */
+    public void copyObject(String bucket, String sourceKey, String key) {
+        timed("copy", () -> {
+            try {
+                s3AsyncClient.copyObject(req -> req
+                        .sourceBucket(bucket)
+                        .sourceKey(sourceKey)
+                        .destinationBucket(bucket)
+                        .destinationKey(key)).join();
+                log.debug("Copied s3://{}/{} to {}", bucket, sourceKey, key);
+            } catch (Exception e) {
+                log.error("Failed to copy: s3://{}/{} to {}", bucket, sourceKey, key, e);
+                throw new RuntimeException("S3 copy failed", e);
+            }
+        });
+    }
+
+    /**
+     * Opens a multipart upload that is written incrementally, for objects assembled
+     * from several sources. Finish it with {@link #completeMultipart}.
+     */
+    public MultipartStreamUploader.PartWriter openMultipart(String bucket, String key) {
+        return multipartStreamUploader.open(bucket, key, -1);
+    }
+
+    /**
+     * Opens a multipart upload that continues from bytes already staged in {@code head};
+     * the writer takes over the lease. Finish it with {@link #completeMultipart}.
+     *
+     * @param expectedLength Total length if known, or -1
+     */
+    public MultipartStreamUploader.PartWriter openMultipart(String bucket, String key, long expectedLength,
+                                                            DirectBufferPool.Lease head) {
+        return head != null
+                ? multipartStreamUploader.open(bucket, key, expectedLength, head)
+                : multipartStreamUploader.open(bucket, key, expectedLength);
+    }
+
+    /** Completes an upload opened with {@link #openMultipart}, aborting it on failure. */
+    public void completeMultipart(MultipartStreamUploader.PartWriter writer) {
+        try (writer) {
+            uploadedBytes.add(writer.complete());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("S3 multipart upload interrupted", e);
+        }
+    }
+
+    private void putFile(String bucket, String key, Path file, long contentLength, long crc32) {
+        try {
+            if (contentLength > multipartThresholdMb * 1024 * 1024) {
+                FileUpload upload = s3TransferManager.uploadFile(UploadFileRequest.builder()
+                        .putObjectRequest(req -> req.bucket(bucket).key(key))
+                        .source(file)
+                        .build());
+
+                upload.completionFuture().join();
+            } else {
+                s3AsyncClient.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentLength(contentLength)
+                        .checksumCRC32(crc32Checksum(crc32))
+                        .build(), AsyncRequestBody.fromFile(file)).join();
+            }
+
+            uploadedBytes.add(contentLength);
+            log.debug("Uploaded file: s3://{}/{} ({}bytes)", bucket, key, contentLength);
+
+        } catch (Exception e) {
+            log.error("Failed to upload file: s3://{}/{}", bucket, key, e);
+            throw new RuntimeException("S3 file upload failed", e);
+        }
+    }
+
+    private void uploadDirect(String bucket, String key, InputStream inputStream, long contentLength, long crc32) {
+        try {
+            PutObjectRequest putRequest = PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentLength(contentLength)
+                    .checksumCRC32(crc32Checksum(crc32))
                     .build();
 
             s3AsyncClient.putObject(putRequest, AsyncRequestBody.fromInputStream(
                     inputStream, contentLength, ioExecutor
             )).join();
 
+            uploadedBytes.add(contentLength);
             log.debug("Uploaded file: s3://{}/{} ({}bytes)", bucket, key, contentLength);
 
         } catch (Exception e) {
@@ -74,6 +267,7 @@ public class S3UploadService {
 
             upload.completionFuture().join();
 
+            uploadedBytes.add(contentLength);
             log.debug("Uploaded large file: s3://{}/{} ({}bytes)", bucket, key, contentLength);
 
         } catch (Exception e) {
@@ -81,4 +275,38 @@ public class S3UploadService {
             throw new RuntimeException("S3 multipart upload failed", e);
         }
     }
+
+    /**
+     * Formats a CRC-32 as S3 expects it in {@code x-amz-checksum-crc32}: the four
+     * big-endian bytes, base64 encoded. Returns null for an unknown (negative) CRC.
+     */
+    static String crc32Checksum(long crc32) {
+        if (crc32 < 0) {
+            return null;
+        }
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) crc32).array());
+    }
+
+    /** Runs one upload, tracking it as in flight and recording its latency by upload method. */
+    private void timed(String method, Runnable upload) {
+        inFlightUploads.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            upload.run();
+            outcome = "success";
+        } finally {
+            inFlightUploads.decrementAndGet();
+            sample.stop(Timer.builder("export.s3.upload.latency")
+                    .description("Time to upload one object to S3")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /** Total bytes uploaded by this instance, for throughput sampling. */
+    public long getUploadedBytes() {
+        return uploadedBytes.sum();
+    }
 }
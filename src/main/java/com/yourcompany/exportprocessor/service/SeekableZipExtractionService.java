@@ -0,0 +1,245 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.client.SegmentedDownloadInputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Extraction engine for archives that are available as a local file.
+ * Reads the central directory once, then inflates and uploads entries in
+ * parallel, each worker reading its entry through positional reads on a shared
+ * {@link FileChannel}. Entry sizes come from the central directory, so no
+ * staging is needed and every upload knows its length up front.
+ * <p>
+ * A {@link SegmentedDownloadInputStream} is used in place once its download
+ * completes; any other stream is first spooled to a temp file.
+ * <p>
+ * STORED entries, typically media that was already compressed, are uploaded as slices
+ * of the archive file that the SDK reads from disk, without an entry stream.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeekableZipExtractionService implements ArchiveExtractor {
+
+    /** Largest slice of a STORED entry mapped at once to check its CRC. */
+    private static final long MAP_CHUNK_BYTES = 64L * 1024 * 1024;
+
+    private final S3UploadService s3UploadService;
+
+    @Autowired(required = false)
+    private BlockCompressor blockCompressor;
+
+    @Value("${app.processing.seekable.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.processing.seekable.stored-passthrough:true}")
+    private boolean storedPassthrough;
+
+    @Value("${app.processing.checkpoint-interval-seconds:300}")
+    private int checkpointIntervalSeconds;
+
+    @Override
+    public int extractAndUpload(
+            InputStream zipStream,
+            String bucket,
+            String prefix,
+            BiConsumer<String, Integer> checkpointCallback,
+            ExportManifest manifest,
+            OutputCompression compression,
+            Runnable inputDrained) {
+
+        AtomicInteger recordCount = new AtomicInteger(0);
+        AtomicReference<String> lastUploaded = new AtomicReference<>();
+        AtomicReference<Throwable> uploadFailure = new AtomicReference<>();
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        Semaphore workerSemaphore = new Semaphore(workers);
+        long lastCheckpoint = System.currentTimeMillis();
+        Path spooled = null;
+
+        try (zipStream) {
+            Path archive;
+            if (zipStream instanceof SegmentedDownloadInputStream segmented) {
+                archive = segmented.awaitFile();
+            } else {
+                spooled = spool(zipStream);
+                archive = spooled;
+            }
+
+            Path source = archive;
+            try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ);
+                 ZipFile zipFile = ZipFile.builder().setSeekableByteChannel(channel).get();
+                 ExecutorService workerExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+                List<ZipArchiveEntry> entries = Collections.list(zipFile.getEntriesInPhysicalOrder());
+                log.info("Read central directory: entries={}, workers={}", entries.size(), workers);
+
+                for (ZipArchiveEntry entry : entries) {
+
+                    if (uploadFailure.get() != null) {
+                        break;
+                    }
+
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+
+                    if (!zipFile.canReadEntryData(entry)) {
+                        log.warn("Cannot read entry: {}", entry.getName());
+                        continue;
+                    }
+
+                    String entryName = entry.getName();
+                    String s3Key = prefix + ZipExtractionService.sanitizeKey(entryName) + compression.suffix();
+
+                    // The central directory has every entry's size and CRC, so unchanged entries are never read
+                    ExportManifest.Entry unchanged = manifest.reusable(entryName, entry.getSize(), entry.getCrc(), s3Key);
+
+                    workerSemaphore.acquire();
+
+                    boolean passthrough = unchanged == null && isPassthrough(entry, compression);
+
+                    workerExecutor.execute(() -> {
+                        try {
+                            if (uploadFailure.get() == null) {
+                                log.debug("Processing entry: name={}, size={}", entryName, entry.getSize());
+                                if (unchanged != null) {
+                                    if (!unchanged.key().equals(s3Key)) {
+                                        s3UploadService.copyObject(bucket, unchanged.key(), s3Key);
+                                    }
+                                    manifest.recordReused(unchanged, s3Key);
+                                } else if (passthrough) {
+                                    uploadStored(bucket, s3Key, source, channel, entry);
+                                    manifest.record(entryName, entry.getSize(), entry.getCrc(), s3Key);
+                                } else {
+                                    upload(bucket, s3Key, zipFile, entry, compression);
+                                    manifest.record(entryName, entry.getSize(), entry.getCrc(), s3Key);
+                                }
+                                recordCount.incrementAndGet();
+                                lastUploaded.set(entryName);
+                            }
+                        } catch (Throwable t) {
+                            uploadFailure.compareAndSet(null, t);
+                        } finally {
+                            workerSemaphore.release();
+                        }
+                    });
+
+                    // Periodic checkpoint
+                    long now = System.currentTimeMillis();
+                    if (now - lastCheckpoint > checkpointIntervalSeconds * 1000L && lastUploaded.get() != null) {
+                        checkpointCallback.accept(lastUploaded.get(), recordCount.get());
+                        lastCheckpoint = now;
+                    }
+                }
+
+                // Every entry has a worker; the download finished before the first one
+                inputDrained.run();
+
+                // Wait for all workers to finish
+                workerSemaphore.acquire(workers);
+            }
+
+        } catch (Exception e) {
+            log.error("ZIP extraction failed at record {}", recordCount.get(), e);
+            throw new RuntimeException("ZIP extraction failed", e);
+        } finally {
+            deleteQuietly(spooled);
+        }
+
+        Throwable failure = uploadFailure.get();
+        if (failure != null) {
+            log.error("ZIP extraction failed at record {}", recordCount.get(), failure);
+            throw new RuntimeException("ZIP extraction failed", failure);
+        }
+
+        return recordCount.get();
+    }
+
+    /** STORED entries are uploaded straight from the archive file, unless they are to be compressed. */
+    private boolean isPassthrough(ZipArchiveEntry entry, OutputCompression compression) {
+        return storedPassthrough && entry.getMethod() == ZipEntry.STORED && entry.getSize() > 0
+                && entry.getDataOffset() >= 0 && !compression.isEnabled();
+    }
+
+    private void upload(String bucket, String key, ZipFile zipFile, ZipArchiveEntry entry,
+                        OutputCompression compression) throws IOException {
+        try (InputStream in = new CrcVerifyingInputStream(zipFile.getInputStream(entry), entry)) {
+            if (compression.isEnabled()) {
+                blockCompressor.compressAndUpload(bucket, key, in, compression);
+            } else {
+                // The central directory already has the CRC, so S3 can check it too
+                s3UploadService.uploadStream(bucket, key, in, entry.getSize(), entry.getCrc());
+            }
+        }
+    }
+
+    /**
+     * Uploads a STORED entry as a slice of the archive file. Its CRC-32 is checked through a
+     * memory map of the slice, so the entry bytes never pass through the heap.
+     */
+    private void uploadStored(String bucket, String key, Path archive, FileChannel channel,
+                              ZipArchiveEntry entry) throws IOException {
+        long crc = crc32(channel, entry.getDataOffset(), entry.getSize());
+        if (crc != entry.getCrc()) {
+            throw new ZipException(String.format("Bad CRC-32 for entry %s: expected %08x, computed %08x",
+                    entry.getName(), entry.getCrc(), crc));
+        }
+        s3UploadService.uploadFileRange(bucket, key, archive, entry.getDataOffset(), entry.getSize(), crc);
+    }
+
+    static long crc32(FileChannel channel, long position, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long offset = 0; offset < length; offset += MAP_CHUNK_BYTES) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position + offset,
+                    Math.min(MAP_CHUNK_BYTES, length - offset)));
+        }
+        return crc.getValue();
+    }
+
+    private Path spool(InputStream zipStream) throws IOException {
+        Path file = Files.createTempFile("export-archive-", ".zip");
+        try {
+            long size = Files.copy(zipStream, file, StandardCopyOption.REPLACE_EXISTING);
+            log.debug("Spooled archive to disk: file={}, size={}", file, size);
+            return file;
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete spooled archive {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yourcompany.exportprocessor.client.ExportApiClient;
+import com.yourcompany.exportprocessor.client.ExportProbe;
+import com.yourcompany.exportprocessor.model.ExportRequest;
+import com.yourcompany.exportprocessor.model.JobTracking;
+import com.yourcompany.exportprocessor.repository.JobTrackingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Splits one huge export across workers. The worker that receives the export reads
+ * the archive's central directory with ranged GETs of its tail, cuts the entries
+ * (in archive order) into shards of about {@code shard-size-mb} of archive bytes,
+ * writes one PENDING item per shard under the job in the tracking table, and sends
+ * one child message per shard to the export queue. Each shard item records when its
+ * message was sent, so fanning out again after a failed send only sends the rest.
+ * <p>
+ * Any worker processes a child message by downloading only its shard's byte range,
+ * which starts at a local file header and so streams like a small archive of its own.
+ * The parent job is SHARDED until the worker of the last shard finds every shard
+ * item COMPLETED and completes it.
+ * <p>
+ * Archive shards are unrelated to the packed shard objects of {@link ShardPacker}.
+ */
+@Slf4j
+@Service
+public class ShardCoordinator {
+
+    /** One shard of the archive: bytes {@code [start, end)} holding entries {@code first..last}. */
+    record ShardPlan(int index, long start, long end, String firstEntry, String lastEntry, int entries) {
+    }
+
+    /**
+     * A cut-off local header: its signature alone. Appended to a shard's range so the
+     * data descriptor look-ahead of its last entry finds a header, and the reader then
+     * ends on the truncated header as it would at the end of a stream.
+     */
+    private static final byte[] SHARD_END = {'P', 'K', 3, 4, 0, 0, 0, 0};
+
+    private final ExportApiClient exportApiClient;
+    private final JobTrackingRepository jobTrackingRepository;
+    private final SqsClient sqsClient;
+    private final ObjectMapper objectMapper;
+    private final String queueName;
+    private final boolean enabled;
+    private final long minExportBytes;
+    private final long shardBytes;
+    private final int directoryBlockBytes;
+    private final String unsupportedMode;
+    private volatile String queueUrl;
+
+    public ShardCoordinator(
+            ExportApiClient exportApiClient,
+            JobTrackingRepository jobTrackingRepository,
+            SqsClient sqsClient,
+            ObjectMapper objectMapper,
+            @Value("${app.sqs.export-queue}") String queueName,
+            @Value("${app.processing.sharding.enabled:false}") boolean enabled,
+            @Value("${app.processing.sharding.min-export-size-mb:8192}") long minExportSizeMb,
+            @Value("${app.processing.sharding.shard-size-mb:4096}") long shardSizeMb,
+            @Value("${app.processing.sharding.directory-block-kb:1024}") int directoryBlockKb,
+            @Value("${app.processing.packing.enabled:false}") boolean packingEnabled,
+            @Value("${app.processing.records.enabled:false}") boolean recordsEnabled,
+            @Value("${app.processing.incremental.enabled:false}") boolean incrementalEnabled) {
+
+        this.exportApiClient = exportApiClient;
+        this.jobTrackingRepository = jobTrackingRepository;
+        this.sqsClient = sqsClient;
+        this.objectMapper = objectMapper;
+        this.queueName = queueName;
+        this.enabled = enabled;
+        this.minExportBytes = minExportSizeMb * 1024 * 1024;
+        this.shardBytes = shardSizeMb * 1024 * 1024;
+        this.directoryBlockBytes = directoryBlockKb * 1024;
+
+        // These write per-export objects (_packed/, _records/, manifests) that shards would overwrite
+        this.unsupportedMode = packingEnabled ? "packing" : recordsEnabled ? "records" : incrementalEnabled ? "incremental" : null;
+        if (enabled && unsupportedMode != null) {
+            log.warn("Export sharding is disabled while {} mode is enabled", unsupportedMode);
+        }
+    }
+
+    /**
+     * Fans the export out to shard messages if it is large enough, ranges are supported,
+     * and its archive has more than one shard's worth of entries.
+     *
+     * @return true if the export was sharded, or was reclaimed by another worker before its
+     *         shard messages were sent; the caller then only acknowledges the message
+     * @param claimToken Token returned by {@code claimJob} for this message
+     */
+    public boolean fanOut(ExportRequest request, String messageId, String claimToken) {
+        if (!enabled || unsupportedMode != null || request.getShard() != null) {
+            return false;
+        }
+
+        String exportId = request.getExportId();
+        ExportProbe probe;
+        try {
+            probe = exportApiClient.probeExport(exportId);
+        } catch (RuntimeException e) {
+            log.warn("Export probe failed, processing unsharded: exportId={}: {}", exportId, e.getMessage());
+            return false;
+        }
+        if (!probe.acceptsRanges() || probe.validator() == null || probe.contentLength() < minExportBytes) {
+            return false;
+        }
+
+        List<ShardPlan> shards;
+        try (SeekableByteChannel channel = exportApiClient.openRanged(exportId, probe, directoryBlockBytes);
+             // Offsets come from the central directory alone; local headers are never fetched
+             ZipFile zip = ZipFile.builder()
+                     .setSeekableByteChannel(channel)
+                     .setIgnoreLocalFileHeader(true)
+                     .get()) {
+            shards = plan(zip.getEntriesInPhysicalOrder().asIterator(), probe.contentLength(), shardBytes);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Reading central directory failed, processing unsharded: exportId={}: {}",
+                    exportId, e.getMessage());
+            return false;
+        }
+        if (shards.size() < 2) {
+            return false;
+        }
+
+        for (ShardPlan shard : shards) {
+            jobTrackingRepository.createShard(messageId, shard.index(), shard.start(), shard.end(),
+                    shard.firstEntry(), shard.lastEntry());
+        }
+        // Only the worker that owns the job sends shard messages; a new owner fans out again
+        if (!jobTrackingRepository.markSharded(messageId, claimToken, shards.size())) {
+            log.warn("Lost claim before sending shard messages, leaving export to the new owner: exportId={}",
+                    exportId);
+            return true;
+        }
+        // A repeated fan-out, after a send failed part way, skips shards whose message already went out
+        Set<String> sent = jobTrackingRepository.findShards(messageId).stream()
+                .filter(item -> item.getSentAt() != null)
+                .map(JobTracking::getSk)
+                .collect(Collectors.toSet());
+        for (ShardPlan shard : shards) {
+            if (sent.contains(JobTracking.shardSk(shard.index()))) {
+                continue;
+            }
+            send(request, new ExportRequest.Shard(messageId, shard.index(), shards.size(),
+                    shard.start(), shard.end(), probe.validator()));
+            jobTrackingRepository.markShardSent(messageId, shard.index());
+        }
+
+        log.info("Sharded export: exportId={}, size={}, shards={}, alreadySent={}",
+                exportId, probe.contentLength(), shards.size(), sent.size());
+        return true;
+    }
+
+    /**
+     * Cuts entries, in archive order, into shards that each end where the next begins.
+     * A shard is closed once the next entry starts {@code shardBytes} or more after it;
+     * the last one runs to the end of the archive, where the reader stops at the central directory.
+     */
+    static List<ShardPlan> plan(Iterator<ZipArchiveEntry> physicalOrder, long archiveSize, long shardBytes) {
+        List<ShardPlan> shards = new ArrayList<>();
+        long start = -1;
+        String first = null;
+        String last = null;
+        int entries = 0;
+
+        while (physicalOrder.hasNext()) {
+            ZipArchiveEntry entry = physicalOrder.next();
+            long offset = entry.getLocalHeaderOffset();
+            if (start >= 0 && offset - start >= shardBytes) {
+                shards.add(new ShardPlan(shards.size(), start, offset, first, last, entries));
+                start = -1;
+            }
+            if (start < 0) {
+                start = offset;
+                first = entry.getName();
+                entries = 0;
+            }
+            last = entry.getName();
+            entries++;
+        }
+        if (start >= 0) {
+            shards.add(new ShardPlan(shards.size(), start, archiveSize, first, last, entries));
+        }
+        return shards;
+    }
+
+    /** The shard's byte range, readable by a streaming ZIP reader up to its last entry. */
+    static InputStream shardStream(InputStream range) {
+        return new SequenceInputStream(range, new ByteArrayInputStream(SHARD_END));
+    }
+
+    /**
+     * Marks the shard COMPLETED, and completes the parent job if it was the last one outstanding.
+     */
+    public void completeShard(ExportRequest.Shard shard, int recordsProcessed) {
+        String parent = shard.getParentMessageId();
+        jobTrackingRepository.updateShard(parent, shard.getIndex(), JobTracking.Status.COMPLETED,
+                recordsProcessed, null);
+
+        List<JobTracking> items = jobTrackingRepository.findShards(parent);
+        long completed = items.stream().filter(i -> i.getStatus() == JobTracking.Status.COMPLETED).count();
+        if (completed < shard.getCount()) {
+            log.info("Shard completed: parent={}, shards completed {}/{}", parent, completed, shard.getCount());
+            return;
+        }
+
+        int total = items.stream()
+                .mapToInt(i -> i.getRecordsProcessed() != null ? i.getRecordsProcessed() : 0)
+                .sum();
+        if (jobTrackingRepository.completeSharded(parent, total)) {
+            log.info("Sharded export completed: parent={}, shards={}, recordsProcessed={}",
+                    parent, shard.getCount(), total);
+        }
+    }
+
+    /** Marks the shard FAILED; the parent stays SHARDED while SQS retries the shard's message. */
+    public void failShard(ExportRequest.Shard shard, String errorMessage) {
+        jobTrackingRepository.updateShard(shard.getParentMessageId(), shard.getIndex(),
+                JobTracking.Status.FAILED, null, errorMessage);
+    }
+
+    private void send(ExportRequest parent, ExportRequest.Shard shard) {
+        ExportRequest child = ExportRequest.builder()
+                .jobId(parent.getJobId())
+                .exportId(parent.getExportId())
+                .callbackUrl(parent.getCallbackUrl())
+                .metadata(parent.getMetadata())
+                .shard(shard)
+                .build();
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(child);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize shard message", e);
+        }
+        sqsClient.sendMessage(r -> r.queueUrl(queueUrl()).messageBody(body));
+    }
+
+    private String queueUrl() {
+        if (queueUrl == null) {
+            queueUrl = sqsClient.getQueueUrl(r -> r.queueName(queueName)).queueUrl();
+        }
+        return queueUrl;
+    }
+}
@@ -0,0 +1,161 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Packs small entries of one archive into a few large shard objects instead of one
+ * object per entry. Entries are appended back to back to a multipart upload, which is
+ * completed in the background once the shard reaches its target size.
+ * <p>
+ * A JSON Lines index at {@code {prefix}_packed/index.jsonl} maps every packed entry to
+ * its shard key, byte offset and length, so single entries can be read with a ranged GET, along with
+ * the entry's CRC-32 from the archive to check the bytes read back:
+ * <pre>{"name":"data/a.json","key":"exports/c/j/_packed/shard-00000.bin","offset":1024,"length":312,"crc32":3735928559}</pre>
+ */
+@Slf4j
+final class ShardPacker implements AutoCloseable {
+
+    static final String PACKED_DIR = "_packed/";
+    static final String INDEX_NAME = "index.jsonl";
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int INDEX_FLUSH_BYTES = 1024 * 1024;
+
+    private final S3UploadService s3UploadService;
+    private final String bucket;
+    private final String prefix;
+    private final long shardSizeBytes;
+    private final Executor completer;
+    private final ObjIntConsumer<String> onShardUploaded;
+
+    private final List<CompletableFuture<Void>> completions = new ArrayList<>();
+    private final ByteArrayOutputStream indexBuffer = new ByteArrayOutputStream();
+    private final JsonGenerator index;
+    private MultipartStreamUploader.PartWriter indexWriter;
+
+    private MultipartStreamUploader.PartWriter shard;
+    private String shardKey;
+    private int shardNumber;
+    private int shardEntries;
+    private String lastEntry;
+
+    /**
+     * @param completer       Runs shard completions so the reader can keep filling the next shard
+     * @param onShardUploaded Called with the last entry name and entry count of each completed shard
+     */
+    ShardPacker(S3UploadService s3UploadService, String bucket, String prefix, long shardSizeBytes,
+                Executor completer, ObjIntConsumer<String> onShardUploaded) throws IOException {
+        this.s3UploadService = s3UploadService;
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.shardSizeBytes = shardSizeBytes;
+        this.completer = completer;
+        this.onShardUploaded = onShardUploaded;
+        this.index = JSON.createGenerator(indexBuffer);
+        index.setRootValueSeparator(null);  // Lines are terminated explicitly
+    }
+
+    /** Appends one entry to the current shard, starting a new shard when it is full. */
+    void add(String entryName, InputStream content, long crc32) throws IOException, InterruptedException {
+        if (shard == null) {
+            shardKey = prefix + PACKED_DIR + String.format("shard-%05d.bin", shardNumber++);
+            shard = s3UploadService.openMultipart(bucket, shardKey);
+        }
+
+        long offset = shard.size();
+        long length = shard.write(content);
+        shardEntries++;
+        lastEntry = entryName;
+
+        index.writeStartObject();
+        index.writeStringField("name", entryName);
+        index.writeStringField("key", shardKey);
+        index.writeNumberField("offset", offset);
+        index.writeNumberField("length", length);
+        index.writeNumberField("crc32", crc32);
+        index.writeEndObject();
+        index.writeRaw('\n');
+        index.flush();
+        if (indexBuffer.size() >= INDEX_FLUSH_BYTES) {
+            flushIndex();
+        }
+
+        if (shard.size() >= shardSizeBytes) {
+            completeShard();
+        }
+    }
+
+    /**
+     * Completes the last shard, waits for every shard and uploads the index.
+     *
+     * @return Number of shards written
+     */
+    int finish() throws IOException, InterruptedException {
+        if (shard != null) {
+            completeShard();
+        }
+        for (CompletableFuture<Void> completion : completions) {
+            try {
+                completion.get();
+            } catch (ExecutionException e) {
+                throw new IOException("Shard upload failed", e.getCause());
+            }
+        }
+
+        if (indexWriter != null || indexBuffer.size() > 0) {
+            flushIndex();
+            s3UploadService.completeMultipart(indexWriter);
+            indexWriter = null;
+        }
+
+        log.debug("Packed entries into {} shards under s3://{}/{}{}", shardNumber, bucket, prefix, PACKED_DIR);
+        return shardNumber;
+    }
+
+    private void completeShard() {
+        MultipartStreamUploader.PartWriter full = shard;
+        String last = lastEntry;
+        int entries = shardEntries;
+        shard = null;
+        shardEntries = 0;
+
+        completions.add(CompletableFuture.runAsync(() -> {
+            s3UploadService.completeMultipart(full);
+            onShardUploaded.accept(last, entries);
+        }, completer));
+    }
+
+    private void flushIndex() throws IOException, InterruptedException {
+        if (indexWriter == null) {
+            indexWriter = s3UploadService.openMultipart(bucket, prefix + PACKED_DIR + INDEX_NAME);
+        }
+        indexWriter.write(new ByteArrayInputStream(indexBuffer.toByteArray()));
+        indexBuffer.reset();
+    }
+
+    /** Aborts any shard or index upload still open, e.g. after a failure. */
+    @Override
+    public void close() {
+        if (shard != null) {
+            shard.close();
+            shard = null;
+        }
+        if (indexWriter != null) {
+            indexWriter.close();
+            indexWriter = null;
+        }
+    }
+}
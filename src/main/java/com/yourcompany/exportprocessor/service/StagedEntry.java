@@ -0,0 +1,193 @@
+package com.yourcompany.exportprocessor.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fully-read ZIP entry waiting to be uploaded.
+ * Bytes are kept in pooled direct buffers up to a cap and spilled to a temp file
+ * beyond it, so the reader can move on to the next entry while this one uploads.
+ * When spilling is not allowed, an entry that outgrows the cap is returned
+ * as an overflowed head that the caller must stream together with the rest.
+ */
+@Slf4j
+final class StagedEntry implements AutoCloseable {
+
+    private DirectBufferPool.Lease lease;
+    private final Path file;
+    private final long size;
+    private final int overflowByte;
+
+    private StagedEntry(DirectBufferPool.Lease lease, Path file, long size, int overflowByte) {
+        this.lease = lease;
+        this.file = file;
+        this.size = size;
+        this.overflowByte = overflowByte;
+    }
+
+    /**
+     * Reads the current entry from the stream until EOF.
+     * Blocks while the buffer pool budget is exhausted.
+     *
+     * @param in                   Stream positioned at the entry data
+     * @param expectedSize         Size reported by the entry header, or -1 if unknown
+     * @param memoryThresholdBytes Entries larger than this are spilled to disk
+     * @param allowSpill           When false, stop at the threshold and return an overflowed head instead
+     * @param scratch              Heap buffer used to move bytes out of the stream
+     */
+    static StagedEntry stage(InputStream in, long expectedSize, int memoryThresholdBytes, boolean allowSpill,
+                             DirectBufferPool pool, byte[] scratch) throws IOException, InterruptedException {
+
+        long reserve = expectedSize >= 0 && expectedSize <= memoryThresholdBytes
+                ? expectedSize
+                : memoryThresholdBytes;
+
+        DirectBufferPool.Lease lease = pool.acquire(reserve);
+        try {
+            lease.fill(in, scratch);
+
+            if (lease.size() == lease.capacity()) {
+                int next = in.read();
+                if (next >= 0) {
+                    if (!allowSpill) {
+                        return new StagedEntry(lease, null, lease.size() + 1, next);
+                    }
+                    try (lease) {
+                        return spill(in, lease, next, scratch);
+                    }
+                }
+            }
+
+            lease.trim();
+            return new StagedEntry(lease, null, lease.size(), -1);
+
+        } catch (IOException | RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    private static StagedEntry spill(InputStream in, DirectBufferPool.Lease head, int nextByte,
+                                     byte[] scratch) throws IOException {
+        Path file = Files.createTempFile("export-entry-", ".tmp");
+        long size = head.size() + 1;
+
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            head.writeTo(out);
+            out.write(ByteBuffer.wrap(new byte[]{(byte) nextByte}));
+            int read;
+            while ((read = in.read(scratch)) >= 0) {
+                ByteBuffer chunk = ByteBuffer.wrap(scratch, 0, read);
+                while (chunk.hasRemaining()) {
+                    out.write(chunk);
+                }
+                size += read;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        log.debug("Spilled entry to disk: file={}, size={}", file, size);
+        return new StagedEntry(null, file, size, -1);
+    }
+
+    /**
+     * True when the entry did not fit and only its first {@link #size()} bytes were read;
+     * the remainder is still in the source stream.
+     */
+    boolean isOverflowed() {
+        return overflowByte >= 0;
+    }
+
+    /**
+     * Head bytes followed by the unread remainder of the entry.
+     * The head's buffers go back to the pool as soon as they have been read.
+     * Reaching or closing the end does not close {@code in}, which usually reads from the archive.
+     */
+    InputStream withRemainder(InputStream in) {
+        DirectBufferPool.Lease buffers = lease;
+        InputStream head = new FilterInputStream(buffers.asInputStream()) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n < 0) {
+                    buffers.close();
+                }
+                return n;
+            }
+        };
+        return new SequenceInputStream(head, remainder(in));
+    }
+
+    /**
+     * Hands the head's buffers to the caller, e.g. as the first multipart part, so they need not
+     * be held while more buffers are leased. Closing this entry afterwards leaves them alone.
+     */
+    DirectBufferPool.Lease takeHead() {
+        DirectBufferPool.Lease head = lease;
+        lease = null;
+        return head;
+    }
+
+    /**
+     * The bytes after the head: the byte read past the cap, then the rest of {@code in}.
+     * Reaching or closing the end does not close {@code in}.
+     */
+    InputStream remainder(InputStream in) {
+        InputStream rest = new FilterInputStream(in) {
+            @Override
+            public void close() {
+                // SequenceInputStream closes each stream it reaches the end of
+            }
+        };
+        return new SequenceInputStream(new ByteArrayInputStream(new byte[]{(byte) overflowByte}), rest);
+    }
+
+    boolean isInMemory() {
+        return lease != null;
+    }
+
+    /** Buffers holding the entry when in memory. */
+    ByteBuffer[] buffers() {
+        return lease.views();
+    }
+
+    /** The staged bytes as a stream, from memory or the spill file. */
+    InputStream inputStream() throws IOException {
+        return lease != null ? lease.asInputStream() : Files.newInputStream(file);
+    }
+
+    /** Spill file when not in memory. */
+    Path file() {
+        return file;
+    }
+
+    long size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        if (lease != null) {
+            lease.close();
+        }
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete staging file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
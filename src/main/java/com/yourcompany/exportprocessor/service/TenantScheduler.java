@@ -0,0 +1,318 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.config.TenantProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which customer's export takes the next processing slot of
+ * {@link AdaptiveConcurrencyController}, so one customer's burst cannot hold
+ * every slot while others wait.
+ * <p>
+ * Weighted fair queuing over slot time: each customer is charged the time its exports
+ * hold a slot, running ones included, divided by its weight. A free slot goes to the
+ * waiting customer with the lowest charge, and to the longest-waiting export of that
+ * customer. A customer that was idle starts level with the least-charged active one
+ * rather than with credit saved up while idle. Customers at
+ * {@code max-concurrent-per-customer} are not admitted until one of their exports ends, and
+ * hold at most {@code max-waiting-per-customer} messages waiting beyond their free capped
+ * slots, so one customer's burst cannot fill every message the listener holds either.
+ * <p>
+ * An export whose archive has been read can {@link Permit#drain() hand back} its slot while
+ * its last uploads finish, so the next export starts downloading instead of leaving the
+ * link idle. At most {@code pipelining.max-draining-jobs} exports drain at once.
+ */
+@Slf4j
+@Component
+public class TenantScheduler {
+
+    static final String UNKNOWN_CUSTOMER = "unknown";
+
+    /** Waiters re-check at least this often, to pick up slots added by a raised limit. */
+    private static final long RECHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AdaptiveConcurrencyController concurrencyController;
+    private final TenantProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final int maxDrainingJobs;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private long tickets;
+    private int waiting;
+    private int draining;
+
+    /** Scheduling state of one customer with waiting or running exports. */
+    private static final class Tenant {
+
+        private final String customerId;
+        private final int weight;
+        private final Deque<Long> waiters = new ArrayDeque<>();
+        private int inFlight;
+        private long chargedNanos;
+        private long runningSinceSum;
+
+        private Tenant(String customerId, int weight) {
+            this.customerId = customerId;
+            this.weight = weight;
+        }
+
+        /** Slot time used so far, running exports included, per unit of weight. */
+        private double cost(long now) {
+            return (chargedNanos + inFlight * now - runningSinceSum) / (double) weight;
+        }
+    }
+
+    /** A processing slot held by one export. Release it when processing ends. */
+    public final class Permit {
+
+        private final Tenant tenant;
+        private final long since;
+        private boolean draining;
+        private boolean released;
+
+        private Permit(Tenant tenant, long since) {
+            this.tenant = tenant;
+            this.since = since;
+        }
+
+        /**
+         * Gives the processing slot back while the export only waits on its uploads.
+         * The export still counts towards its customer's share and cap until released.
+         * Does nothing if {@code max-draining-jobs} exports are already draining.
+         */
+        public void drain() {
+            lock.lock();
+            try {
+                if (released || draining || TenantScheduler.this.draining >= maxDrainingJobs) {
+                    return;
+                }
+                draining = true;
+                TenantScheduler.this.draining++;
+                concurrencyController.release();
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void release() {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                long now = clock.getAsLong();
+                tenant.inFlight--;
+                tenant.runningSinceSum -= since;
+                tenant.chargedNanos += now - since;
+                removeIfIdle(tenant);
+                if (draining) {
+                    TenantScheduler.this.draining--;
+                } else {
+                    concurrencyController.release();
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Autowired
+    public TenantScheduler(AdaptiveConcurrencyController concurrencyController,
+                           TenantProperties properties,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.processing.pipelining.max-draining-jobs:1}") int maxDrainingJobs) {
+        this(concurrencyController, properties, meterRegistry, maxDrainingJobs, System::nanoTime);
+    }
+
+    TenantScheduler(AdaptiveConcurrencyController concurrencyController,
+                    TenantProperties properties,
+                    MeterRegistry meterRegistry,
+                    int maxDrainingJobs,
+                    LongSupplier clock) {
+        this.concurrencyController = concurrencyController;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.maxDrainingJobs = maxDrainingJobs;
+        this.clock = clock;
+
+        Gauge.builder("export.tenant.waiting", this, TenantScheduler::getWaiting)
+                .description("Export messages held by this task waiting for a processing slot")
+                .register(meterRegistry);
+        Gauge.builder("export.jobs.draining", this, TenantScheduler::getDraining)
+                .description("Exports that handed back their slot while their last uploads finish")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Waits for this customer's turn at a processing slot, however long that takes.
+     * Customers at {@code max-concurrent-per-customer} wait until one of their exports ends.
+     *
+     * @param queuedSince When the message was first queued, for the queue wait metric
+     * @return The slot, or null if the customer already holds its {@code max-waiting-per-customer}
+     *         waiting messages
+     */
+    public Permit acquire(String customerId, long queuedSince) throws InterruptedException {
+        return acquire(customerId, queuedSince, Long.MAX_VALUE);
+    }
+
+    /**
+     * Waits up to {@code timeout} for this customer's turn at a processing slot.
+     *
+     * @param queuedSince When the message was first queued, for the queue wait metric
+     * @return The slot, or null if none was granted in time or the customer already holds
+     *         its {@code max-waiting-per-customer} waiting messages
+     */
+    public Permit tryAcquire(String customerId, long queuedSince, Duration timeout) throws InterruptedException {
+        return acquire(customerId, queuedSince, timeout.toNanos());
+    }
+
+    private Permit acquire(String customerId, long queuedSince, long timeoutNanos) throws InterruptedException {
+        long start = clock.getAsLong();
+        lock.lock();
+        try {
+            Tenant tenant = tenants.computeIfAbsent(key(customerId), this::newTenant);
+            if (overWaitingLimit(tenant)) {
+                turnedAway(tenant.customerId).increment();
+                return null;
+            }
+            long ticket = ++tickets;
+            tenant.waiters.addLast(ticket);
+            waiting++;
+            try {
+                while (true) {
+                    long now = clock.getAsLong();
+                    if (next(now) == tenant && tenant.waiters.peekFirst() == ticket
+                            && concurrencyController.tryAcquire(Duration.ZERO)) {
+                        tenant.waiters.removeFirst();
+                        waiting--;
+                        tenant.inFlight++;
+                        tenant.runningSinceSum += now;
+                        // The customer's next export may now be eligible for another free slot
+                        changed.signalAll();
+                        queueWait(tenant.customerId).record(
+                                Duration.ofMillis(Math.max(0, System.currentTimeMillis() - queuedSince)));
+                        return new Permit(tenant, now);
+                    }
+                    long remaining = timeoutNanos - (now - start);
+                    if (remaining <= 0) {
+                        giveUp(tenant, ticket);
+                        return null;
+                    }
+                    changed.awaitNanos(Math.min(remaining, RECHECK_NANOS));
+                }
+            } catch (InterruptedException e) {
+                giveUp(tenant, ticket);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The customer whose longest-waiting export goes next; ties go to the earliest arrival. */
+    private Tenant next(long now) {
+        int cap = properties.maxConcurrentPerCustomer();
+        Tenant best = null;
+        double bestCost = 0;
+        for (Tenant tenant : tenants.values()) {
+            if (tenant.waiters.isEmpty() || (cap > 0 && tenant.inFlight >= cap)) {
+                continue;
+            }
+            double cost = tenant.cost(now);
+            if (best == null || cost < bestCost
+                    || (cost == bestCost && tenant.waiters.peekFirst() < best.waiters.peekFirst())) {
+                best = tenant;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /** Whether a capped customer already holds every waiting message it may. */
+    private boolean overWaitingLimit(Tenant tenant) {
+        int cap = properties.maxConcurrentPerCustomer();
+        return cap > 0 && tenant.inFlight + tenant.waiters.size() >= cap + properties.maxWaitingPerCustomer();
+    }
+
+    private Tenant newTenant(String customerId) {
+        Tenant tenant = new Tenant(customerId, properties.weightOf(customerId));
+        // Start level with the least-charged active customer, not with saved-up credit
+        long now = clock.getAsLong();
+        tenants.values().stream()
+                .mapToDouble(t -> t.cost(now))
+                .min()
+                .ifPresent(cost -> tenant.chargedNanos = (long) (cost * tenant.weight));
+        return tenant;
+    }
+
+    private void giveUp(Tenant tenant, long ticket) {
+        tenant.waiters.remove(ticket);
+        waiting--;
+        removeIfIdle(tenant);
+        changed.signalAll();
+    }
+
+    private void removeIfIdle(Tenant tenant) {
+        if (tenant.inFlight == 0 && tenant.waiters.isEmpty()) {
+            tenants.remove(tenant.customerId);
+        }
+    }
+
+    private Timer queueWait(String customerId) {
+        return Timer.builder("export.tenant.queue.wait")
+                .description("Time from a message being queued to its export taking a processing slot")
+                .tag("customer", customerId)
+                .register(meterRegistry);
+    }
+
+    private Counter turnedAway(String customerId) {
+        return Counter.builder("export.tenant.turned.away")
+                .description("Messages handed back because their customer held its max-waiting-per-customer")
+                .tag("customer", customerId)
+                .register(meterRegistry);
+    }
+
+    private static String key(String customerId) {
+        return customerId != null ? customerId : UNKNOWN_CUSTOMER;
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getDraining() {
+        lock.lock();
+        try {
+            return draining;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
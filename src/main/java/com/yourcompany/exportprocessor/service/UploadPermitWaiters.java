@@ -0,0 +1,37 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts archive readers of every extraction engine that wait for an upload slot,
+ * so {@code export.upload.permit.waiters} shows when uploads are the bottleneck.
+ */
+@Component
+public class UploadPermitWaiters {
+
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    public UploadPermitWaiters(MeterRegistry meterRegistry) {
+        Gauge.builder("export.upload.permit.waiters", waiters, AtomicInteger::get)
+                .description("Archive readers waiting for an upload slot")
+                .register(meterRegistry);
+    }
+
+    /** Takes a permit, counting the caller as a waiter while none is free. */
+    void acquire(Semaphore uploadSemaphore) throws InterruptedException {
+        if (uploadSemaphore.tryAcquire()) {
+            return;
+        }
+        waiters.incrementAndGet();
+        try {
+            uploadSemaphore.acquire();
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+}
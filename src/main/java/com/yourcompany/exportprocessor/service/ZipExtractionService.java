@@ -1,24 +1,38 @@
 package com.yourcompany.exportprocessor.service;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class ZipExtractionService {
+public class ZipExtractionService implements ArchiveExtractor {
+
+    private static final int SCRATCH_BUFFER_SIZE = 64 * 1024;
 
     private final S3UploadService s3UploadService;
+    private final DirectBufferPool bufferPool;
+    private final Timer inflateTimer;
+    private final DistributionSummary entrySizes;
+    private final UploadPermitWaiters permitWaiters;
 
     @Value("${app.processing.max-concurrent-uploads:5}")
     private int maxConcurrentUploads;
@@ -26,30 +40,110 @@ public class ZipExtractionService {
     @Value("${app.processing.checkpoint-interval-seconds:300}")
     private int checkpointIntervalSeconds;
 
+    @Value("${app.processing.multipart-threshold-mb:100}")
+    private long multipartThresholdMb;
+
+    @Value("${app.processing.staging-buffer-mb:8}")
+    private int stagingBufferMb;
+
+    @Value("${app.processing.packing.enabled:false}")
+    private boolean packingEnabled;
+
+    @Value("${app.processing.packing.max-entry-kb:64}")
+    private int packingMaxEntryKb;
+
+    @Value("${app.processing.packing.shard-size-mb:64}")
+    private int packingShardSizeMb;
+
+    @Value("${app.processing.records.enabled:false}")
+    private boolean recordsEnabled;
+
+    @Value("${app.processing.records.batch-size-mb:64}")
+    private int recordBatchSizeMb;
+
+    @Autowired(required = false)
+    private List<RecordStage> recordStages = List.of();
+
+    @Autowired(required = false)
+    private BlockCompressor blockCompressor;
+
+    public ZipExtractionService(S3UploadService s3UploadService,
+                                DirectBufferPool bufferPool,
+                                UploadPermitWaiters permitWaiters,
+                                MeterRegistry meterRegistry) {
+        this.s3UploadService = s3UploadService;
+        this.bufferPool = bufferPool;
+        this.permitWaiters = permitWaiters;
+
+        this.inflateTimer = Timer.builder("export.entry.inflate")
+                .description("Time to read and inflate one entry into staging")
+                .register(meterRegistry);
+        this.entrySizes = DistributionSummary.builder("export.entry.size")
+                .description("Uncompressed size of extracted entries")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     /**
-     * Extracts ZIP entries and uploads to S3 in a streaming fashion.
-     *
-     * @param zipStream        Input stream containing ZIP data
-     * @param bucket           Target S3 bucket
-     * @param prefix           S3 key prefix for uploaded files
-     * @param checkpointCallback Callback for progress checkpoints
-     * @return Number of records processed
+     * Extracts ZIP entries and uploads to S3 in a pipelined fashion.
+     * The calling thread reads each entry into pooled staging buffers and hands it
+     * to a virtual-thread uploader, so up to {@code max-concurrent-uploads}
+     * uploads are in flight while the next entries are being decoded.
+     * Entries above the multipart threshold, and entries of unknown size that
+     * outgrow the staging buffer, are streamed inline as multipart uploads.
+     * With packing enabled, entries up to {@code packing.max-entry-kb} are appended
+     * to shard objects instead (see {@link ShardPacker}).
+     * Each entry's CRC-32 is checked against the archive while it is read and sent
+     * to S3 as the object checksum, so S3 verifies the bytes it stores.
+     * Entries whose name, size and CRC-32 match the previous run's manifest are copied
+     * from the previous object instead; if the local header already has the size and
+     * CRC, the entry data is skipped without being inflated.
+     * In record mode, JSON entries are parsed and re-batched by a {@link RecordBatchWriter}
+     * on this thread, and the count includes each of their records instead of the entry.
+     * With output compression, entries that are not packed or parsed as records are
+     * compressed by the {@link BlockCompressor} on their upload thread.
+     * The archive stream is closed as soon as its last entry has been read, before the
+     * remaining uploads drain.
      */
+    @Override
     public int extractAndUpload(
             InputStream zipStream,
             String bucket,
             String prefix,
-            BiConsumer<String, Integer> checkpointCallback) {
+            BiConsumer<String, Integer> checkpointCallback,
+            ExportManifest manifest,
+            OutputCompression compression,
+            Runnable inputDrained) {
 
         AtomicInteger recordCount = new AtomicInteger(0);
+        AtomicReference<String> lastUploaded = new AtomicReference<>();
+        AtomicReference<Throwable> uploadFailure = new AtomicReference<>();
         Semaphore uploadSemaphore = new Semaphore(maxConcurrentUploads);
+        int stagingThreshold = stagingBufferMb * 1024 * 1024;
+        byte[] scratch = new byte[SCRATCH_BUFFER_SIZE];
         long lastCheckpoint = System.currentTimeMillis();
+        long packingMaxEntryBytes = packingEnabled ? packingMaxEntryKb * 1024L : -1;
+        ShardPacker packer = null;
+        RecordBatchWriter records = null;
+        CrcVerifyingInputStream unverified = null;
 
-        try (ZipArchiveInputStream zis = new ZipArchiveInputStream(
-                new BufferedInputStream(zipStream))) {
+        try (ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             ZipArchiveInputStream zis = new ZipArchiveInputStream(
+                     new BufferedInputStream(zipStream))) {
 
             ZipArchiveEntry entry;
-            while ((entry = zis.getNextZipEntry()) != null) {
+            while ((entry = zis.getNextEntry()) != null) {
+
+                // The previous entry's data descriptor has been read by now
+                if (unverified != null) {
+                    unverified.verify();
+                    unverified = null;
+                }
+
+                if (uploadFailure.get() != null) {
+                    break;
+                }
 
                 if (entry.isDirectory()) {
                     continue;
@@ -60,40 +154,246 @@ public class ZipExtractionService {
                     continue;
                 }
 
-                String s3Key = prefix + sanitizeKey(entry.getName());
-                long entrySize = entry.getSize();
+                String entryName = entry.getName();
+                String s3Key = prefix + sanitizeKey(entryName) + compression.suffix();
 
-                log.debug("Processing entry: name={}, size={}", entry.getName(), entrySize);
+                log.debug("Processing entry: name={}, size={}", entryName, entry.getSize());
 
-                // Acquire semaphore for bounded concurrency
-                uploadSemaphore.acquire();
+                // Acquire semaphore for bounded concurrency (and bounded staging memory)
+                permitWaiters.acquire(uploadSemaphore);
 
-                try {
-                    // Upload to S3 (streaming)
-                    s3UploadService.uploadStream(bucket, s3Key, zis, entrySize);
+                CrcVerifyingInputStream entryIn = new CrcVerifyingInputStream(zis, entry);
+                long entrySize = entry.getSize();
+                ExportManifest.Entry unchanged = manifest.reusable(entryName, entrySize, entry.getCrc(), s3Key);
+                if (unchanged != null) {
+                    // Same as in the previous run: the data is skipped when the next entry is read
+                    submit(uploadExecutor, uploadSemaphore, uploadFailure, () -> {
+                        if (uploadFailure.get() == null) {
+                            reuse(bucket, s3Key, unchanged, manifest);
+                            recordCount.incrementAndGet();
+                            lastUploaded.set(entryName);
+                        }
+                    });
+                } else if (recordsEnabled && RecordBatchWriter.isRecordEntry(entryName)) {
+                    if (records == null) {
+                        records = new RecordBatchWriter(s3UploadService, bucket, prefix,
+                                recordBatchSizeMb * 1024L * 1024L, recordStages, uploadExecutor,
+                                (last, count) -> {
+                                    recordCount.addAndGet(count);
+                                    lastUploaded.set(last);
+                                });
+                    }
+                    long inflateStart = System.nanoTime();
+                    try {
+                        records.add(entryName, entryIn);
+                    } finally {
+                        uploadSemaphore.release();
+                    }
+                    inflateTimer.record(System.nanoTime() - inflateStart, TimeUnit.NANOSECONDS);
+                    entrySizes.record(entryIn.bytesRead());
+                } else if (entrySize > multipartThresholdMb * 1024 * 1024) {
+                    // Large entries stream straight from the archive; parts upload concurrently
+                    uploadInline(bucket, s3Key, entryIn, entrySize, compression, uploadSemaphore);
+                    manifest.record(entryName, entryIn.bytesRead(), entryIn.crc(), s3Key);
+                    entrySizes.record(entrySize);
                     recordCount.incrementAndGet();
+                    lastUploaded.set(entryName);
+                } else {
+                    StagedEntry staged;
+                    long inflateStart = System.nanoTime();
+                    try {
+                        // Unknown sizes are not spilled: if they outgrow memory they may be huge
+                        staged = StagedEntry.stage(entryIn, entrySize, stagingThreshold, entrySize >= 0,
+                                bufferPool, scratch);
+                    } catch (Exception e) {
+                        uploadSemaphore.release();
+                        throw e;
+                    }
+
+                    // Entries without a CRC in the local header can only be matched once read
+                    ExportManifest.Entry unchangedData = staged.isOverflowed()
+                            ? null
+                            : manifest.reusable(entryName, staged.size(), entryIn.crc(), s3Key);
+
+                    if (staged.isOverflowed()) {
+                        try (staged) {
+                            uploadOverflowed(bucket, s3Key, staged, entryIn, compression, uploadSemaphore);
+                        }
+                        manifest.record(entryName, entryIn.bytesRead(), entryIn.crc(), s3Key);
+                        recordCount.incrementAndGet();
+                        lastUploaded.set(entryName);
+                    } else if (unchangedData != null) {
+                        staged.close();
+                        inflateTimer.record(System.nanoTime() - inflateStart, TimeUnit.NANOSECONDS);
+                        submit(uploadExecutor, uploadSemaphore, uploadFailure, () -> {
+                            if (uploadFailure.get() == null) {
+                                reuse(bucket, s3Key, unchangedData, manifest);
+                                recordCount.incrementAndGet();
+                                lastUploaded.set(entryName);
+                            }
+                        });
+                    } else if (staged.size() <= packingMaxEntryBytes) {
+                        inflateTimer.record(System.nanoTime() - inflateStart, TimeUnit.NANOSECONDS);
+                        entrySizes.record(staged.size());
+                        if (packer == null) {
+                            packer = new ShardPacker(s3UploadService, bucket, prefix,
+                                    packingShardSizeMb * 1024L * 1024L, uploadExecutor,
+                                    (last, count) -> {
+                                        recordCount.addAndGet(count);
+                                        lastUploaded.set(last);
+                                    });
+                        }
+                        try (staged) {
+                            packer.add(entryName, staged.inputStream(), entryIn.crc());
+                        } finally {
+                            uploadSemaphore.release();
+                        }
+                    } else {
+                        inflateTimer.record(System.nanoTime() - inflateStart, TimeUnit.NANOSECONDS);
+                        entrySizes.record(staged.size());
+                        submit(uploadExecutor, uploadSemaphore, uploadFailure, () -> {
+                            try (staged) {
+                                if (uploadFailure.get() == null) {
+                                    upload(bucket, s3Key, staged, entryIn.crc(), compression);
+                                    manifest.record(entryName, staged.size(), entryIn.crc(), s3Key);
+                                    recordCount.incrementAndGet();
+                                    lastUploaded.set(entryName);
+                                }
+                            }
+                        });
+                    }
+                }
 
-                } finally {
-                    uploadSemaphore.release();
+                if (!entryIn.isVerified()) {
+                    unverified = entryIn;
                 }
 
                 // Periodic checkpoint
                 long now = System.currentTimeMillis();
-                if (now - lastCheckpoint > checkpointIntervalSeconds * 1000L) {
-                    checkpointCallback.accept(entry.getName(), recordCount.get());
+                if (now - lastCheckpoint > checkpointIntervalSeconds * 1000L && lastUploaded.get() != null) {
+                    checkpointCallback.accept(lastUploaded.get(), recordCount.get());
                     lastCheckpoint = now;
                 }
             }
 
+            if (unverified != null) {
+                unverified.verify();
+            }
+
+            // Free the download now; what is left only waits on S3
+            zis.close();
+            inputDrained.run();
+
+            // Wait for all in-flight uploads to drain
+            uploadSemaphore.acquire(maxConcurrentUploads);
+
+            if (packer != null && uploadFailure.get() == null) {
+                packer.finish();
+            }
+            if (records != null && uploadFailure.get() == null) {
+                records.finish();
+            }
+
         } catch (Exception e) {
             log.error("ZIP extraction failed at record {}", recordCount.get(), e);
             throw new RuntimeException("ZIP extraction failed", e);
+        } finally {
+            if (packer != null) {
+                packer.close();
+            }
+            if (records != null) {
+                records.close();
+            }
+        }
+
+        Throwable failure = uploadFailure.get();
+        if (failure != null) {
+            log.error("ZIP extraction failed at record {}", recordCount.get(), failure);
+            throw new RuntimeException("ZIP extraction failed", failure);
         }
 
         return recordCount.get();
     }
 
-    private String sanitizeKey(String entryName) {
+    /**
+     * Runs an upload on a virtual thread and releases its permit when done.
+     * The first failure is kept; tasks check it and skip their upload once set.
+     */
+    private static void submit(ExecutorService executor, Semaphore uploadSemaphore,
+                               AtomicReference<Throwable> uploadFailure, Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                uploadFailure.compareAndSet(null, t);
+            } finally {
+                uploadSemaphore.release();
+            }
+        });
+    }
+
+    /** Satisfies an unchanged entry from the previous run's object. */
+    private void reuse(String bucket, String key, ExportManifest.Entry previous, ExportManifest manifest) {
+        if (!previous.key().equals(key)) {
+            s3UploadService.copyObject(bucket, previous.key(), key);
+        }
+        manifest.recordReused(previous, key);
+    }
+
+    private void uploadInline(String bucket, String key, InputStream in, long size,
+                              OutputCompression compression, Semaphore uploadSemaphore) {
+        try {
+            if (compression.isEnabled()) {
+                blockCompressor.compressAndUpload(bucket, key, in, compression);
+            } else {
+                // The CRC is only known at the end of the stream; it is checked locally instead
+                s3UploadService.uploadStream(bucket, key, in, size, -1);
+            }
+        } finally {
+            uploadSemaphore.release();
+        }
+    }
+
+    /**
+     * Uploads an entry that outgrew staging. Uncompressed, its staged head becomes the start of the
+     * first multipart part, so the head is not held while the writer leases more part buffers.
+     */
+    private void uploadOverflowed(String bucket, String key, StagedEntry staged, InputStream entryIn,
+                                  OutputCompression compression, Semaphore uploadSemaphore) throws Exception {
+        if (compression.isEnabled()) {
+            uploadInline(bucket, key, staged.withRemainder(entryIn), -1, compression, uploadSemaphore);
+            return;
+        }
+        try {
+            MultipartStreamUploader.PartWriter writer =
+                    s3UploadService.openMultipart(bucket, key, -1, staged.takeHead());
+            try {
+                writer.write(staged.remainder(entryIn));
+            } catch (Exception e) {
+                writer.close();
+                throw e;
+            }
+            s3UploadService.completeMultipart(writer);
+        } finally {
+            uploadSemaphore.release();
+        }
+    }
+
+    private void upload(String bucket, String key, StagedEntry staged, long crc32, OutputCompression compression) {
+        if (compression.isEnabled()) {
+            try (InputStream in = staged.inputStream()) {
+                blockCompressor.compressAndUpload(bucket, key, in, compression);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read staged entry: " + key, e);
+            }
+        } else if (staged.isInMemory()) {
+            s3UploadService.uploadBuffers(bucket, key, staged.buffers(), staged.size(), crc32);
+        } else {
+            s3UploadService.uploadFile(bucket, key, staged.file(), staged.size(), crc32);
+        }
+    }
+
+    static String sanitizeKey(String entryName) {
         // Remove leading slashes and sanitize path
         return entryName
                 .replaceFirst("^/+", "")
@@ -0,0 +1,161 @@
+package com.yourcompany.exportprocessor.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResumableInputStreamTest {
+
+    private static final byte[] BODY = "0123456789abcdefghij".getBytes();
+
+    @Test
+    void read_shouldResumeFromOffsetAfterConnectionDrop() throws IOException {
+        // Given - first connection dies after 8 bytes
+        HttpResponse<InputStream> initial = response(200, failingAfter(8),
+                Map.of("ETag", "\"v1\"", "Accept-Ranges", "bytes", "Content-Length", "20"));
+
+        long[] requestedOffset = new long[1];
+        ResumableInputStream.RangeRequester requester = (offset, ifRange) -> {
+            requestedOffset[0] = offset;
+            assertThat(ifRange).isEqualTo("\"v1\"");
+            return response(206, new ByteArrayInputStream(BODY, (int) offset, BODY.length - (int) offset),
+                    Map.of("ETag", "\"v1\"", "Content-Range", "bytes " + offset + "-19/20"));
+        };
+
+        // When
+        byte[] read;
+        try (ResumableInputStream in = new ResumableInputStream("export-1", initial, requester, 3)) {
+            read = in.readAllBytes();
+            assertThat(in.getTotalResumes()).isEqualTo(1);
+        }
+
+        // Then
+        assertThat(requestedOffset[0]).isEqualTo(8);
+        assertThat(read).isEqualTo(BODY);
+    }
+
+    @Test
+    void read_shouldResumeFromStartWhenConnectionDropsBeforeFirstByte() throws IOException {
+        // Given - first connection dies before any byte arrives
+        HttpResponse<InputStream> initial = response(200, failingAfter(0),
+                Map.of("ETag", "\"v1\"", "Accept-Ranges", "bytes", "Content-Length", "20"));
+
+        long[] requestedOffset = {-1};
+        ResumableInputStream.RangeRequester requester = (offset, ifRange) -> {
+            requestedOffset[0] = offset;
+            assertThat(ifRange).isEqualTo("\"v1\"");
+            return response(206, new ByteArrayInputStream(BODY),
+                    Map.of("ETag", "\"v1\"", "Content-Range", "bytes 0-19/20"));
+        };
+
+        // When
+        byte[] read;
+        try (ResumableInputStream in = new ResumableInputStream("export-1", initial, requester, 3)) {
+            read = in.readAllBytes();
+        }
+
+        // Then - a ranged request from byte 0, answered with 206
+        assertThat(requestedOffset[0]).isZero();
+        assertThat(read).isEqualTo(BODY);
+    }
+
+    @Test
+    void read_shouldResumeWithinRequestedRange() throws IOException {
+        // Given - bytes [5, 15) requested; the first connection dies after 4 of them
+        HttpResponse<InputStream> initial = response(206,
+                new SequenceInputStream(new ByteArrayInputStream(BODY, 5, 4), failingAfter(0)),
+                Map.of("Content-Range", "bytes 5-14/20", "Content-Length", "10"));
+
+        long[] requestedOffset = new long[1];
+        ResumableInputStream.RangeRequester requester = (offset, ifRange) -> {
+            requestedOffset[0] = offset;
+            assertThat(ifRange).isEqualTo("\"v1\"");
+            return response(206, new ByteArrayInputStream(BODY, (int) offset, 15 - (int) offset),
+                    Map.of("Content-Range", "bytes " + offset + "-14/20"));
+        };
+
+        // When
+        byte[] read;
+        try (ResumableInputStream in = new ResumableInputStream("export-1", initial, 5, 15, "\"v1\"", requester, 3)) {
+            read = in.readAllBytes();
+            assertThat(in.getTotalResumes()).isEqualTo(1);
+        }
+
+        // Then
+        assertThat(requestedOffset[0]).isEqualTo(9);
+        assertThat(read).isEqualTo(Arrays.copyOfRange(BODY, 5, 15));
+    }
+
+    @Test
+    void read_shouldFailWhenExportChangedBetweenConnections() {
+        // Given - If-Range mismatch makes the server send the full new body with 200
+        HttpResponse<InputStream> initial = response(200, failingAfter(8),
+                Map.of("ETag", "\"v1\"", "Accept-Ranges", "bytes"));
+        ResumableInputStream.RangeRequester requester = (offset, ifRange) ->
+                response(200, new ByteArrayInputStream(BODY), Map.of("ETag", "\"v2\""));
+
+        // When / Then
+        ResumableInputStream in = new ResumableInputStream("export-1", initial, requester, 3);
+        assertThatThrownBy(in::readAllBytes)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("status=200");
+    }
+
+    @Test
+    void read_shouldNotResumeWithoutRangeSupport() {
+        // Given
+        HttpResponse<InputStream> initial = response(200, failingAfter(8), Map.of());
+        ResumableInputStream.RangeRequester requester = (offset, ifRange) -> {
+            throw new AssertionError("should not reconnect");
+        };
+
+        // When / Then
+        ResumableInputStream in = new ResumableInputStream("export-1", initial, requester, 3);
+        assertThatThrownBy(in::readAllBytes).hasMessage("connection reset");
+    }
+
+    @Test
+    void rangeStart_shouldParseContentRange() {
+        assertThat(ResumableInputStream.rangeStart("bytes 100-199/200")).isEqualTo(100);
+        assertThat(ResumableInputStream.rangeStart("bytes */200")).isEqualTo(-1);
+    }
+
+    private static InputStream failingAfter(int bytes) {
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position >= bytes) {
+                    throw new IOException("connection reset");
+                }
+                return BODY[position++];
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<InputStream> response(int status, InputStream body, Map<String, String> headers) {
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body);
+        Map<String, List<String>> multi = new HashMap<>();
+        headers.forEach((k, v) -> multi.put(k, List.of(v)));
+        when(response.headers()).thenReturn(HttpHeaders.of(multi, (k, v) -> true));
+        return response;
+    }
+}
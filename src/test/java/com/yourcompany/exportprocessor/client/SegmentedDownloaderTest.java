@@ -0,0 +1,112 @@
+package com.yourcompany.exportprocessor.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SegmentedDownloaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final byte[] content = randomBytes(1_000_003);
+
+    @Test
+    void start_shouldExposeSequentialViewOverParallelSegments() throws IOException {
+        // Given
+        SegmentedDownloader downloader = new SegmentedDownloader(4, 64 * 1024, 2, tempDir);
+
+        // When
+        byte[] read;
+        Path file;
+        try (SegmentedDownloadInputStream in = downloader.start("e-1", content.length, "\"v1\"", this::serve)) {
+            read = in.readAllBytes();
+            file = in.awaitFile();
+            assertThat(Files.readAllBytes(file)).isEqualTo(content);
+        }
+
+        // Then
+        assertThat(read).isEqualTo(content);
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void start_shouldResumeSegmentAfterConnectionDrop() throws IOException {
+        // Given - the first request for the second segment dies halfway
+        AtomicBoolean dropped = new AtomicBoolean();
+        SegmentedDownloader downloader = new SegmentedDownloader(2, 64 * 1024, 2, tempDir);
+
+        // When
+        byte[] read;
+        try (SegmentedDownloadInputStream in = downloader.start("e-1", content.length, "\"v1\"",
+                (start, end, ifRange) -> start == 64 * 1024 && dropped.compareAndSet(false, true)
+                        ? response(truncated(start, 1000))
+                        : serve(start, end, ifRange))) {
+            read = in.readAllBytes();
+        }
+
+        // Then
+        assertThat(dropped).isTrue();
+        assertThat(read).isEqualTo(content);
+    }
+
+    @Test
+    void read_shouldFailWhenSegmentCannotBeFetched() throws IOException {
+        // Given
+        SegmentedDownloader downloader = new SegmentedDownloader(2, 64 * 1024, 1, tempDir);
+
+        // When / Then
+        try (SegmentedDownloadInputStream in = downloader.start("e-1", content.length, "\"v1\"",
+                (start, end, ifRange) -> {
+                    throw new RuntimeException("Export API returned status: 500");
+                })) {
+            assertThatThrownBy(in::readAllBytes)
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Segmented download failed");
+        }
+    }
+
+    private HttpResponse<InputStream> serve(long start, long end, String ifRange) {
+        return response(new ByteArrayInputStream(content, (int) start, (int) (end - start + 1)));
+    }
+
+    private InputStream truncated(long start, int length) {
+        InputStream head = new ByteArrayInputStream(content, (int) start, length);
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                int b = head.read();
+                if (b < 0) {
+                    throw new IOException("connection reset");
+                }
+                return b;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<InputStream> response(InputStream body) {
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.body()).thenReturn(body);
+        return response;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,33 @@
+package com.yourcompany.exportprocessor.config;
+
+import com.yourcompany.exportprocessor.service.OutputCompression;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressionPropertiesTest {
+
+    @Test
+    void forExportType_shouldFillPartialOverridesFromDefaults() {
+        // Given - one override without a level, one without a codec
+        CompressionProperties properties = new CompressionProperties("gzip", 6, 1024, 0, Map.of(
+                "AUDIT_LOG", new CompressionProperties.ExportTypeCompression("gzip", null),
+                "FULL", new CompressionProperties.ExportTypeCompression(null, 9)));
+
+        // When / Then
+        assertThat(properties.forExportType("AUDIT_LOG")).isEqualTo(OutputCompression.of("gzip", 6));
+        assertThat(properties.forExportType("FULL")).isEqualTo(OutputCompression.of("gzip", 9));
+        assertThat(properties.forExportType("OTHER")).isEqualTo(OutputCompression.of("gzip", 6));
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidOverride() {
+        assertThatThrownBy(() -> new CompressionProperties("none", 6, 1024, 0, Map.of(
+                "AUDIT_LOG", new CompressionProperties.ExportTypeCompression("gzip", 12))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("level");
+    }
+}
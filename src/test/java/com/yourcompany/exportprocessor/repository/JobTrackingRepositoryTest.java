@@ -0,0 +1,91 @@
+package com.yourcompany.exportprocessor.repository;
+
+import com.yourcompany.exportprocessor.model.JobTracking;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.UpdateItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobTrackingRepositoryTest {
+
+    @Mock
+    private DynamoDbTable<JobTracking> jobTrackingTable;
+
+    private JobTrackingRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new JobTrackingRepository(jobTrackingTable, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateCheckpoint_shouldIssueSingleConditionalUpdate() {
+        // When
+        boolean updated = repository.updateCheckpoint("msg-1", "claim-1", "entry.txt", 42);
+
+        // Then
+        assertThat(updated).isTrue();
+        ArgumentCaptor<UpdateItemEnhancedRequest<JobTracking>> captor =
+                ArgumentCaptor.forClass(UpdateItemEnhancedRequest.class);
+        verify(jobTrackingTable).updateItem(captor.capture());
+        verify(jobTrackingTable, never()).getItem(any(Consumer.class));
+
+        UpdateItemEnhancedRequest<JobTracking> request = captor.getValue();
+        assertThat(request.ignoreNulls()).isTrue();
+        assertThat(request.conditionExpression().expression()).isEqualTo("workerId = :workerId");
+        assertThat(request.conditionExpression().expressionValues().get(":workerId").s())
+                .isEqualTo("claim-1");
+
+        JobTracking item = request.item();
+        assertThat(item.getPk()).isEqualTo("msg#msg-1");
+        assertThat(item.getCheckpointData()).isEqualTo("entry.txt");
+        assertThat(item.getRecordsProcessed()).isEqualTo(42);
+        assertThat(item.getInProgressExpiry()).isNotNull();
+        // Attributes not being changed stay null so they are left untouched
+        assertThat(item.getStatus()).isNull();
+        assertThat(item.getJobId()).isNull();
+        assertThat(item.getCreatedAt()).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void markCompleted_shouldReportLostOwnership() {
+        // Given - the job was reclaimed
+        when(jobTrackingTable.updateItem(any(UpdateItemEnhancedRequest.class)))
+                .thenThrow(ConditionalCheckFailedException.builder().message("condition failed").build());
+
+        // When / Then
+        assertThat(repository.markCompleted("msg-1", "claim-1")).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claimJob_shouldRecordFreshTokenPerClaim() {
+        // When - the same message is claimed twice by this process, e.g. after its lock expired
+        String first = repository.claimJob("msg-1", "job-1");
+        String second = repository.claimJob("msg-1", "job-1");
+
+        // Then
+        assertThat(first).isNotNull().isNotEqualTo(second);
+        ArgumentCaptor<PutItemEnhancedRequest<JobTracking>> captor =
+                ArgumentCaptor.forClass(PutItemEnhancedRequest.class);
+        verify(jobTrackingTable, times(2)).putItem(captor.capture());
+        assertThat(captor.getAllValues().get(0).item().getWorkerId()).isEqualTo(first);
+        assertThat(captor.getAllValues().get(1).item().getWorkerId()).isEqualTo(second);
+    }
+}
@@ -0,0 +1,94 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.service.AdaptiveConcurrencyController.ResourceSample;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class AdaptiveConcurrencyControllerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Mock
+    private S3UploadService s3UploadService;
+
+    private AdaptiveConcurrencyController controller;
+
+    @BeforeEach
+    void setUp() {
+        DirectBufferPool bufferPool = new DirectBufferPool(1, 256, new SimpleMeterRegistry());
+        controller = new AdaptiveConcurrencyController(
+                s3UploadService, bufferPool, new SimpleMeterRegistry(),
+                1, 3, 25, 25, 1024, 10, System.getProperty("java.io.tmpdir"));
+    }
+
+    @Test
+    void adjust_shouldRaiseLimitWhileSaturatedAndThroughputImproves() throws InterruptedException {
+        // Given - the only slot is busy
+        assertThat(controller.tryAcquire(Duration.ZERO)).isTrue();
+        assertThat(controller.tryAcquire(Duration.ZERO)).isFalse();
+
+        // When
+        controller.adjust(healthy(0, 0));
+        controller.adjust(healthy(100, 1));
+
+        // Then
+        assertThat(controller.getLimit()).isEqualTo(2);
+        assertThat(controller.tryAcquire(Duration.ZERO)).isTrue();
+    }
+
+    @Test
+    void adjust_shouldStopRaisingWhenThroughputPlateaus() throws InterruptedException {
+        // Given
+        controller.tryAcquire(Duration.ZERO);
+        controller.adjust(healthy(0, 0));
+        controller.adjust(healthy(100, 1));
+        controller.tryAcquire(Duration.ZERO);
+
+        // When - second slot adds only 2% throughput
+        controller.adjust(healthy(202, 2));
+
+        // Then
+        assertThat(controller.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void adjust_shouldLowerLimitUnderMemoryPressure() throws InterruptedException {
+        // Given
+        controller.tryAcquire(Duration.ZERO);
+        controller.adjust(healthy(0, 0));
+        controller.adjust(healthy(100, 1));
+        assertThat(controller.getLimit()).isEqualTo(2);
+
+        // When - heap is nearly full
+        controller.adjust(new ResourceSample(0.05, 1.0, 10 * GB, 200, 2 * SECOND));
+
+        // Then - lowered but never below the floor
+        assertThat(controller.getLimit()).isEqualTo(1);
+        controller.adjust(new ResourceSample(0.05, 1.0, 10 * GB, 300, 3 * SECOND));
+        assertThat(controller.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void adjust_shouldNotRaiseLimitWhenSlotsAreIdle() {
+        // When
+        controller.adjust(healthy(0, 0));
+        controller.adjust(healthy(100, 1));
+
+        // Then
+        assertThat(controller.getLimit()).isEqualTo(1);
+    }
+
+    private static ResourceSample healthy(long uploadedBytes, long seconds) {
+        return new ResourceSample(0.8, 1.0, 10 * GB, uploadedBytes, seconds * SECOND);
+    }
+}
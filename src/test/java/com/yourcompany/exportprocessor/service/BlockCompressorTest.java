@@ -0,0 +1,135 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.config.CompressionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlockCompressorTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    private Map<String, ByteArrayOutputStream> objects;
+
+    private BlockCompressor blockCompressor;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // 1 KB blocks on two threads
+        blockCompressor = new BlockCompressor(RecordingS3.uploadService(s3AsyncClient, meterRegistry),
+                new CompressionProperties("gzip", 6, 1, 2, Map.of()), meterRegistry);
+        objects = RecordingS3.record(s3AsyncClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        blockCompressor.shutdown();
+    }
+
+    @Test
+    void compressAndUpload_shouldWriteGzipMembersThatDecompressToTheEntry() throws IOException {
+        // Given - about ten blocks
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        byte[] entry = text.toString().getBytes(StandardCharsets.UTF_8);
+
+        // When
+        long compressedBytes = blockCompressor.compressAndUpload("bucket", "p/a.txt.gz",
+                new ByteArrayInputStream(entry), OutputCompression.of("gzip", 6));
+
+        // Then
+        byte[] object = objects.get("p/a.txt.gz").toByteArray();
+        assertThat(compressedBytes).isEqualTo(object.length).isLessThan(entry.length);
+        assertThat(gzipMembers(object)).isEqualTo((entry.length + 1023) / 1024);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(object))) {
+            assertThat(in.readAllBytes()).isEqualTo(entry);
+        }
+        // Output below one part: a single PutObject
+        verify(s3AsyncClient).putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class));
+        verify(s3AsyncClient, never()).createMultipartUpload(any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void compressAndUpload_shouldUseMultipartOnceOutputReachesOnePart() throws IOException {
+        // Given - incompressible bytes, a little over one part
+        byte[] entry = new byte[6 * 1024 * 1024];
+        new Random(42).nextBytes(entry);
+
+        // When
+        long compressedBytes = blockCompressor.compressAndUpload("bucket", "p/b.bin.gz",
+                new ByteArrayInputStream(entry), OutputCompression.of("gzip", 1));
+
+        // Then
+        byte[] object = objects.get("p/b.bin.gz").toByteArray();
+        assertThat(compressedBytes).isEqualTo(object.length);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(object))) {
+            assertThat(in.readAllBytes()).isEqualTo(entry);
+        }
+        verify(s3AsyncClient).completeMultipartUpload(any(Consumer.class));
+        verify(s3AsyncClient, never()).putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void compressAndUpload_shouldAbortUploadWhenEntryCannotBeRead() {
+        // Given - more than one part of incompressible bytes, then a read failure
+        when(s3AsyncClient.abortMultipartUpload(any(Consumer.class))).thenReturn(completedFuture(null));
+        byte[] head = new byte[6 * 1024 * 1024];
+        new Random(7).nextBytes(head);
+        InputStream failing = new SequenceInputStream(new ByteArrayInputStream(head), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Truncated archive");
+            }
+        });
+
+        // When / Then
+        assertThatThrownBy(() -> blockCompressor.compressAndUpload("bucket", "p/a.txt.gz",
+                failing, OutputCompression.of("gzip", 1)))
+                .isInstanceOf(RuntimeException.class)
+                .hasRootCauseMessage("Truncated archive");
+        verify(s3AsyncClient).abortMultipartUpload(any(Consumer.class));
+        verify(s3AsyncClient, never()).completeMultipartUpload(any(Consumer.class));
+    }
+
+    /** Counts gzip member headers (magic, deflate, no flags). */
+    private static int gzipMembers(byte[] object) {
+        int members = 0;
+        for (int i = 0; i + 3 < object.length; i++) {
+            if ((object[i] & 0xff) == 0x1f && (object[i + 1] & 0xff) == 0x8b && object[i + 2] == 8 && object[i + 3] == 0) {
+                members++;
+            }
+        }
+        return members;
+    }
+}
@@ -0,0 +1,116 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.repository.JobTrackingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CheckpointWriterTest {
+
+    @Mock
+    private JobTrackingRepository jobTrackingRepository;
+
+    private CheckpointWriter checkpointWriter;
+
+    @BeforeEach
+    void setUp() {
+        // Long interval so only explicit flushes write in these tests
+        checkpointWriter = new CheckpointWriter(jobTrackingRepository, 3_600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        checkpointWriter.shutdown();
+    }
+
+    @Test
+    void flushPending_shouldWriteOnlyLatestCheckpointPerMessage() throws InterruptedException {
+        // Given
+        when(jobTrackingRepository.updateCheckpoint(anyString(), anyString(), anyString(), anyInt())).thenReturn(true);
+        checkpointWriter.submit("msg-1", "claim-1", "a.txt", 1);
+        checkpointWriter.submit("msg-1", "claim-1", "b.txt", 2);
+        checkpointWriter.submit("msg-2", "claim-2", "x.txt", 7);
+
+        // When
+        checkpointWriter.flushPending();
+        checkpointWriter.flushPending();
+
+        // Then
+        verify(jobTrackingRepository).updateCheckpoint("msg-1", "claim-1", "b.txt", 2);
+        verify(jobTrackingRepository).updateCheckpoint("msg-2", "claim-2", "x.txt", 7);
+        verifyNoMoreInteractions(jobTrackingRepository);
+    }
+
+    @Test
+    void flush_shouldWritePendingCheckpointSynchronously() {
+        // Given
+        when(jobTrackingRepository.updateCheckpoint(anyString(), anyString(), anyString(), anyInt())).thenReturn(true);
+        checkpointWriter.submit("msg-1", "claim-1", "a.txt", 1);
+
+        // When
+        boolean owned = checkpointWriter.flush("claim-1");
+
+        // Then
+        assertThat(owned).isTrue();
+        verify(jobTrackingRepository).updateCheckpoint("msg-1", "claim-1", "a.txt", 1);
+        assertThat(checkpointWriter.pendingMessages()).isZero();
+    }
+
+    @Test
+    void submit_shouldReportLostOwnershipAfterRejectedWrite() throws InterruptedException {
+        // Given
+        when(jobTrackingRepository.updateCheckpoint(anyString(), anyString(), anyString(), anyInt())).thenReturn(false);
+        assertThat(checkpointWriter.submit("msg-1", "claim-1", "a.txt", 1)).isTrue();
+
+        // When
+        checkpointWriter.flushPending();
+
+        // Then
+        assertThat(checkpointWriter.submit("msg-1", "claim-1", "b.txt", 2)).isFalse();
+        assertThat(checkpointWriter.flush("claim-1")).isFalse();
+        verify(jobTrackingRepository, times(1)).updateCheckpoint(anyString(), anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void flushPending_shouldRetryFailedWrite() throws InterruptedException {
+        // Given
+        when(jobTrackingRepository.updateCheckpoint(anyString(), anyString(), anyString(), anyInt()))
+                .thenThrow(new RuntimeException("throttled"))
+                .thenReturn(true);
+        checkpointWriter.submit("msg-1", "claim-1", "a.txt", 1);
+
+        // When
+        checkpointWriter.flushPending();
+        checkpointWriter.flushPending();
+
+        // Then
+        verify(jobTrackingRepository, times(2)).updateCheckpoint("msg-1", "claim-1", "a.txt", 1);
+    }
+
+    @Test
+    void submit_shouldKeepNewerClaimOfSameMessageApart() throws InterruptedException {
+        // Given - the stale run's claim was superseded
+        when(jobTrackingRepository.updateCheckpoint("msg-1", "claim-1", "a.txt", 1)).thenReturn(false);
+        when(jobTrackingRepository.updateCheckpoint("msg-1", "claim-2", "b.txt", 2)).thenReturn(true);
+        checkpointWriter.submit("msg-1", "claim-1", "a.txt", 1);
+        checkpointWriter.flushPending();
+
+        // When
+        boolean staleOwned = checkpointWriter.submit("msg-1", "claim-1", "c.txt", 3);
+        boolean newerOwned = checkpointWriter.submit("msg-1", "claim-2", "b.txt", 2);
+
+        // Then
+        assertThat(staleOwned).isFalse();
+        assertThat(newerOwned).isTrue();
+        assertThat(checkpointWriter.flush("claim-2")).isTrue();
+        verify(jobTrackingRepository).updateCheckpoint("msg-1", "claim-2", "b.txt", 2);
+    }
+}
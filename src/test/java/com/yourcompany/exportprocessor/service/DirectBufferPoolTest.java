@@ -0,0 +1,105 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DirectBufferPoolTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DirectBufferPool pool;
+
+    @BeforeEach
+    void setUp() {
+        // 4 slabs of 256 KB
+        meterRegistry = new SimpleMeterRegistry();
+        pool = new DirectBufferPool(1, 256, meterRegistry);
+    }
+
+    @Test
+    void lease_shouldHoldBytesAcrossSlabs() throws Exception {
+        // Given
+        byte[] data = new byte[600 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        // When
+        try (DirectBufferPool.Lease lease = pool.acquire(data.length)) {
+            lease.fill(new ByteArrayInputStream(data), new byte[4096]);
+
+            // Then
+            assertThat(lease.size()).isEqualTo(data.length);
+            assertThat(lease.views()).hasSize(3);
+            assertThat(lease.asInputStream().readAllBytes()).isEqualTo(data);
+        }
+        assertThat(pool.availableBytes()).isEqualTo(pool.maxBytes());
+    }
+
+    @Test
+    void acquire_shouldReuseReturnedSlabs() throws Exception {
+        // Given
+        pool.acquire(1).close();
+
+        // When
+        pool.acquire(1).close();
+
+        // Then
+        assertThat(meterRegistry.get("export.buffer.pool.acquisitions").tag("result", "miss").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("export.buffer.pool.acquisitions").tag("result", "hit").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void acquire_shouldBlockUntilBudgetIsReturned() throws Exception {
+        // Given - the whole budget is leased
+        DirectBufferPool.Lease held = pool.acquire(pool.maxBytes());
+
+        // When
+        CompletableFuture<DirectBufferPool.Lease> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire(1);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Then
+        Thread.sleep(100);
+        assertThat(waiting).isNotDone();
+        held.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertThat(meterRegistry.get("export.buffer.pool.waits").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void trim_shouldReturnUnusedSlabs() throws IOException, InterruptedException {
+        // Given
+        DirectBufferPool.Lease lease = pool.acquire(pool.maxBytes());
+        lease.fill(new ByteArrayInputStream(new byte[10]), new byte[16]);
+
+        // When
+        lease.trim();
+
+        // Then
+        assertThat(pool.availableBytes()).isEqualTo(pool.maxBytes() - pool.getSlabSize());
+        lease.close();
+        assertThat(pool.availableBytes()).isEqualTo(pool.maxBytes());
+    }
+
+    @Test
+    void acquire_shouldRejectRequestLargerThanBudget() {
+        assertThatThrownBy(() -> pool.acquire(pool.maxBytes() + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,134 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static com.yourcompany.exportprocessor.service.TestArchives.crc32;
+import static com.yourcompany.exportprocessor.service.TestArchives.zipOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DirectZipExtractionServiceTest {
+
+    @Mock
+    private S3UploadService s3UploadService;
+
+    @Mock
+    private ZipExtractionService zipExtractionService;
+
+    private DirectBufferPool bufferPool;
+
+    private DirectZipExtractionService directZipExtractionService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        bufferPool = new DirectBufferPool(16, 64, meterRegistry);
+        directZipExtractionService = new DirectZipExtractionService(
+                s3UploadService, bufferPool, zipExtractionService, new UploadPermitWaiters(meterRegistry),
+                meterRegistry);
+        ReflectionTestUtils.setField(directZipExtractionService, "maxConcurrentUploads", 3);
+        ReflectionTestUtils.setField(directZipExtractionService, "checkpointIntervalSeconds", 300);
+        ReflectionTestUtils.setField(directZipExtractionService, "multipartThresholdMb", 100L);
+        ReflectionTestUtils.setField(directZipExtractionService, "stagingBufferMb", 1);
+        ReflectionTestUtils.setField(directZipExtractionService, "inputBufferKb", 256);
+    }
+
+    @Test
+    void extractAndUpload_shouldUploadStagedEntriesWithTheirCrc() throws IOException {
+        // Given
+        byte[] zip = zipOf("a.txt", "b/b.txt", "/c.txt");
+
+        // When
+        int count = directZipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zip), "bucket", "exports/cust/job/", (name, n) -> { });
+
+        // Then
+        assertThat(count).isEqualTo(3);
+        verify(s3UploadService).uploadBuffers(eq("bucket"), eq("exports/cust/job/a.txt"), any(), eq(13L),
+                eq(crc32("content-a.txt")));
+        verify(s3UploadService).uploadBuffers(eq("bucket"), eq("exports/cust/job/b/b.txt"), any(), eq(15L),
+                eq(crc32("content-b/b.txt")));
+        verify(s3UploadService).uploadBuffers(eq("bucket"), eq("exports/cust/job/c.txt"), any(), eq(14L),
+                eq(crc32("content-/c.txt")));
+        verifyNoInteractions(zipExtractionService);
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+    }
+
+    @Test
+    void extractAndUpload_shouldCheckCrcBeforeUploadingEntryThatFillsItsLease() throws IOException {
+        // Given - a stored entry of exactly one 64 KB slab, altered after its header was written
+        byte[] content = new byte[64 * 1024];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            ZipEntry entry = new ZipEntry("a.bin");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc32(content));
+            zos.putNextEntry(entry);
+            zos.write(content);
+            zos.closeEntry();
+        }
+        byte[] zip = bytes.toByteArray();
+        zip[30 + "a.bin".length()] ^= 1;
+        byte[] altered = content.clone();
+        altered[0] ^= 1;
+
+        // When / Then
+        assertThatThrownBy(() -> directZipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zip), "bucket", "p/", (name, n) -> { }))
+                .isInstanceOf(RuntimeException.class)
+                .hasRootCauseInstanceOf(ZipException.class)
+                .hasRootCauseMessage(String.format("Bad CRC-32 for entry a.bin: expected %08x, computed %08x",
+                        crc32(content), crc32(altered)));
+        verifyNoInteractions(s3UploadService);
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+    }
+
+    @Test
+    void extractAndUpload_shouldPropagateUploadFailure() throws IOException {
+        // Given
+        doThrow(new RuntimeException("S3 upload failed"))
+                .when(s3UploadService).uploadBuffers(anyString(), anyString(), any(), anyLong(), anyLong());
+
+        // When / Then
+        assertThatThrownBy(() -> directZipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zipOf("a", "b")), "bucket", "p/", (name, n) -> { }))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("ZIP extraction failed");
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+    }
+
+    @Test
+    void extractAndUpload_shouldHandCompressedOutputToStreamingEngine() {
+        // Given
+        ByteArrayInputStream zip = new ByteArrayInputStream(new byte[0]);
+        OutputCompression gzip = OutputCompression.of("gzip", 6);
+        Runnable drained = () -> { };
+        when(zipExtractionService.extractAndUpload(eq(zip), eq("bucket"), eq("p/"), any(),
+                eq(ExportManifest.disabled()), eq(gzip), eq(drained))).thenReturn(7);
+
+        // When
+        int count = directZipExtractionService.extractAndUpload(zip, "bucket", "p/", (name, n) -> { },
+                ExportManifest.disabled(), gzip, drained);
+
+        // Then
+        assertThat(count).isEqualTo(7);
+        verifyNoInteractions(s3UploadService);
+    }
+}
@@ -0,0 +1,164 @@
+package com.yourcompany.exportprocessor.service;
+
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static com.yourcompany.exportprocessor.service.TestArchives.crc32;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DirectZipReaderTest {
+
+    @Test
+    void read_shouldInflateEntriesWithDataDescriptors() throws IOException {
+        // Given - java.util.zip writes deflated entries with data descriptors, sizes unknown up front
+        byte[] big = randomText(300_000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            zos.putNextEntry(new ZipEntry("dir/"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("dir/big.txt"));
+            zos.write(big);
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("empty.txt"));
+            zos.closeEntry();
+        }
+
+        // When
+        Map<String, byte[]> entries = readAll(bytes.toByteArray());
+
+        // Then
+        assertThat(entries).containsOnlyKeys("dir/", "dir/big.txt", "empty.txt");
+        assertThat(entries.get("dir/big.txt")).isEqualTo(big);
+        assertThat(entries.get("empty.txt")).isEmpty();
+    }
+
+    @Test
+    void read_shouldReadStoredAndZip64Entries() throws IOException {
+        // Given - a streamed zip64 archive: 8-byte sizes in the extra field and data descriptors
+        byte[] stored = randomText(70_000);
+        byte[] deflated = randomText(50_000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream((OutputStream) bytes)) {
+            zos.setUseZip64(Zip64Mode.Always);
+            ZipArchiveEntry storedEntry = new ZipArchiveEntry("stored.bin");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(stored.length);
+            storedEntry.setCrc(crc32(stored));
+            zos.putArchiveEntry(storedEntry);
+            zos.write(stored);
+            zos.closeArchiveEntry();
+            zos.putArchiveEntry(new ZipArchiveEntry("deflated.txt"));
+            zos.write(deflated);
+            zos.closeArchiveEntry();
+        }
+
+        // When
+        Map<String, byte[]> entries = readAll(bytes.toByteArray());
+
+        // Then
+        assertThat(entries.get("stored.bin")).isEqualTo(stored);
+        assertThat(entries.get("deflated.txt")).isEqualTo(deflated);
+    }
+
+    @Test
+    void next_shouldRejectEntryWhoseCrcDoesNotMatch() throws IOException {
+        // Given - a stored entry whose data is altered after the header was written
+        byte[] content = "hello, world".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            ZipEntry entry = new ZipEntry("a.txt");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc32(content));
+            zos.putNextEntry(entry);
+            zos.write(content);
+            zos.closeEntry();
+        }
+        byte[] zip = bytes.toByteArray();
+        zip[30 + "a.txt".length()] ^= 1;
+
+        // When / Then - the unread entry is still checked before moving on
+        DirectZipReader reader = new DirectZipReader(Channels.newChannel(new ByteArrayInputStream(zip)), 0);
+        assertThat(reader.next()).isTrue();
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(ZipException.class)
+                .hasMessageContaining("Bad CRC-32 for entry a.txt");
+    }
+
+    @Test
+    void finishEntry_shouldCheckEntryReadUpToItsSize() throws IOException {
+        // Given - a stored entry whose data is altered after the header was written
+        byte[] content = "hello, world".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            ZipEntry entry = new ZipEntry("a.txt");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc32(content));
+            zos.putNextEntry(entry);
+            zos.write(content);
+            zos.closeEntry();
+        }
+        byte[] zip = bytes.toByteArray();
+        zip[30 + "a.txt".length()] ^= 1;
+        DirectZipReader reader = new DirectZipReader(Channels.newChannel(new ByteArrayInputStream(zip)), 0);
+        assertThat(reader.next()).isTrue();
+
+        // When - exactly the header's size is read, so end of entry has not been seen
+        ByteBuffer data = ByteBuffer.allocate(content.length);
+        while (data.hasRemaining()) {
+            reader.read(data);
+        }
+
+        // Then
+        assertThatThrownBy(reader::finishEntry)
+                .isInstanceOf(ZipException.class)
+                .hasMessageContaining("Bad CRC-32 for entry a.txt");
+    }
+
+    private static Map<String, byte[]> readAll(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        ByteBuffer chunk = ByteBuffer.allocateDirect(8 * 1024);
+        try (DirectZipReader reader = new DirectZipReader(Channels.newChannel(new ByteArrayInputStream(zip)), 0)) {
+            while (reader.next()) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                while (reader.read(chunk.clear()) >= 0) {
+                    byte[] read = new byte[chunk.flip().remaining()];
+                    chunk.get(read);
+                    content.write(read);
+                }
+                assertThat(reader.getCrc()).isEqualTo(reader.crc());
+                entries.put(reader.getName(), content.toByteArray());
+            }
+        }
+        return entries;
+    }
+
+    /** Text that compresses, so deflated entries span several input buffer refills. */
+    private static byte[] randomText(int size) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 32);
+        while (sb.length() < size) {
+            sb.append("record-").append(random.nextInt(1_000_000)).append('\n');
+        }
+        sb.setLength(size);
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
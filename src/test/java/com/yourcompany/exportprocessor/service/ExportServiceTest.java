@@ -1,6 +1,7 @@
 package com.yourcompany.exportprocessor.service;
 
 import com.yourcompany.exportprocessor.client.ExportApiClient;
+import com.yourcompany.exportprocessor.config.CompressionProperties;
 import com.yourcompany.exportprocessor.model.ExportRequest;
 import com.yourcompany.exportprocessor.repository.JobTrackingRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,9 +9,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -24,9 +27,24 @@ class ExportServiceTest {
     @Mock
     private ZipExtractionService zipExtractionService;
 
+    @Mock
+    private SeekableZipExtractionService seekableZipExtractionService;
+
+    @Mock
+    private DirectZipExtractionService directZipExtractionService;
+
     @Mock
     private S3UploadService s3UploadService;
 
+    @Mock
+    private CheckpointWriter checkpointWriter;
+
+    @Mock
+    private HeartbeatService heartbeatService;
+
+    @Mock
+    private ExportManifestStore manifestStore;
+
     @Mock
     private JobTrackingRepository jobTrackingRepository;
 
@@ -37,9 +55,17 @@ class ExportServiceTest {
         exportService = new ExportService(
                 exportApiClient,
                 zipExtractionService,
+                seekableZipExtractionService,
+                directZipExtractionService,
                 s3UploadService,
-                jobTrackingRepository
+                checkpointWriter,
+                heartbeatService,
+                manifestStore,
+                jobTrackingRepository,
+                new CompressionProperties("none", 6, 1024, 0, null)
         );
+        ReflectionTestUtils.setField(exportService, "outputBucket", "test-export-outputs");
+        ReflectionTestUtils.setField(exportService, "extractionEngine", "streaming");
     }
 
     @Test
@@ -56,11 +82,11 @@ class ExportServiceTest {
 
         InputStream mockStream = new ByteArrayInputStream(new byte[0]);
         when(exportApiClient.downloadExport("export-456")).thenReturn(mockStream);
-        when(zipExtractionService.extractAndUpload(any(), anyString(), anyString(), any()))
+        when(zipExtractionService.extractAndUpload(any(), anyString(), anyString(), any(), any(), any(), any()))
                 .thenReturn(10);
 
         // When
-        exportService.processExport(request, messageId);
+        exportService.processExport(request, messageId, "claim-001");
 
         // Then
         verify(exportApiClient).downloadExport("export-456");
@@ -68,7 +94,42 @@ class ExportServiceTest {
                 eq(mockStream),
                 anyString(),
                 contains("exports/cust-789/job-123/"),
+                any(),
+                eq(ExportManifest.disabled()),
+                eq(OutputCompression.NONE),
                 any()
         );
+        verifyNoInteractions(manifestStore, jobTrackingRepository);
+    }
+
+    @Test
+    void processExport_shouldKeepManifestAndReportSkippedBytesWhenIncremental() {
+        // Given
+        ReflectionTestUtils.setField(exportService, "incrementalEnabled", true);
+        ExportRequest request = ExportRequest.builder()
+                .jobId("job-2")
+                .exportId("export-2")
+                .metadata(ExportRequest.ExportMetadata.builder()
+                        .customerId("cust-1")
+                        .exportType("FULL")
+                        .build())
+                .build();
+        ExportManifest.Entry previous = new ExportManifest.Entry("a.txt", 100, 7, "exports/cust-1/job-1/a.txt");
+        ExportManifest manifest = ExportManifest.basedOn(List.of(previous));
+
+        when(exportApiClient.downloadExport("export-2")).thenReturn(new ByteArrayInputStream(new byte[0]));
+        when(manifestStore.load("test-export-outputs", "cust-1", "FULL")).thenReturn(manifest);
+        when(zipExtractionService.extractAndUpload(any(), anyString(), anyString(), any(), eq(manifest), any(), any()))
+                .thenAnswer(invocation -> {
+                    manifest.recordReused(previous, "exports/cust-1/job-2/a.txt");
+                    return 1;
+                });
+
+        // When
+        exportService.processExport(request, "msg-2", "claim-2");
+
+        // Then
+        verify(manifestStore).save("test-export-outputs", "cust-1", "FULL", manifest);
+        verify(jobTrackingRepository).updateSkipped("msg-2", "claim-2", 1, 100L);
     }
 }
@@ -0,0 +1,146 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.client.DownloadProgress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HeartbeatServiceTest {
+
+    @Mock
+    private SqsClient sqsClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private HeartbeatService heartbeatService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(sqsClient.getQueueUrl(any(Consumer.class)))
+                .thenReturn(GetQueueUrlResponse.builder().queueUrl("http://queue").build());
+        meterRegistry = new SimpleMeterRegistry();
+        // Interval 0: every registered message is due on the first tick
+        heartbeatService = new HeartbeatService(sqsClient, meterRegistry, "queue", 0, 3600, 900);
+    }
+
+    @AfterEach
+    void tearDown() {
+        heartbeatService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tick_shouldRenewMessagesInBatchesOfTen() {
+        // Given
+        when(sqsClient.changeMessageVisibilityBatch(any(Consumer.class))).thenAnswer(invocation ->
+                succeedAll(invocation.getArgument(0)));
+        for (int i = 0; i < 23; i++) {
+            heartbeatService.startHeartbeat("msg-" + i, "rh-" + i);
+        }
+
+        // When
+        heartbeatService.tick();
+
+        // Then - 10 + 10 + 3
+        verify(sqsClient, times(3)).changeMessageVisibilityBatch(any(Consumer.class));
+        assertThat(meterRegistry.get("export.heartbeat.renewals").tag("result", "success").counter().count())
+                .isEqualTo(23.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tick_shouldDropMessagesWithInvalidReceiptHandle() {
+        // Given
+        when(sqsClient.changeMessageVisibilityBatch(any(Consumer.class))).thenReturn(
+                ChangeMessageVisibilityBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder()
+                                .id("0").code("ReceiptHandleIsInvalid").senderFault(true).build())
+                        .build());
+        heartbeatService.startHeartbeat("msg-1", "rh-1");
+
+        // When
+        heartbeatService.tick();
+
+        // Then
+        assertThat(heartbeatService.activeHeartbeats()).isZero();
+        assertThat(meterRegistry.get("export.heartbeat.renewals").tag("result", "failure").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cancel_shouldStopRenewals() {
+        // Given
+        HeartbeatService.Heartbeat heartbeat = heartbeatService.startHeartbeat("msg-1", "rh-1");
+
+        // When
+        heartbeat.cancel();
+        heartbeatService.tick();
+
+        // Then
+        verify(sqsClient, never()).changeMessageVisibilityBatch(any(Consumer.class));
+        assertThat(heartbeatService.activeHeartbeats()).isZero();
+    }
+
+    @Test
+    void visibilityFor_shouldFollowRemainingTimeEstimate() {
+        // Given - a quarter downloaded after 100 seconds leaves about 300 seconds
+        HeartbeatService.Heartbeat heartbeat = heartbeatService.startHeartbeat("msg-1", "rh-1");
+        long now = System.currentTimeMillis() + 100_000;
+
+        // When / Then
+        assertThat(heartbeatService.visibilityFor(heartbeat, now)).isEqualTo(60);
+
+        heartbeatService.trackProgress("msg-1", progress(25, 100));
+        assertThat(heartbeatService.visibilityFor(heartbeat, now)).isBetween(355, 365);
+
+        heartbeatService.trackProgress("msg-1", progress(1, 1000));
+        assertThat(heartbeatService.visibilityFor(heartbeat, now)).isEqualTo(900);
+    }
+
+    private static ChangeMessageVisibilityBatchResponse succeedAll(Consumer<ChangeMessageVisibilityBatchRequest.Builder> consumer) {
+        ChangeMessageVisibilityBatchRequest.Builder builder = ChangeMessageVisibilityBatchRequest.builder();
+        consumer.accept(builder);
+        List<ChangeMessageVisibilityBatchResultEntry> results = builder.build().entries().stream()
+                .map(e -> ChangeMessageVisibilityBatchResultEntry.builder().id(e.id()).build())
+                .toList();
+        return ChangeMessageVisibilityBatchResponse.builder().successful(results).build();
+    }
+
+    private static DownloadProgress progress(long done, long total) {
+        return new DownloadProgress() {
+            @Override
+            public long bytesTransferred() {
+                return done;
+            }
+
+            @Override
+            public long totalBytes() {
+                return total;
+            }
+
+            @Override
+            public void whenFinished(Runnable callback) {
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MultipartStreamUploaderTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    private DirectBufferPool bufferPool;
+
+    private MultipartStreamUploader uploader;
+
+    @BeforeEach
+    void setUp() {
+        bufferPool = new DirectBufferPool(64, 1024, new SimpleMeterRegistry());
+        uploader = new MultipartStreamUploader(s3AsyncClient, bufferPool, 5, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void upload_shouldCutPartsFromUnknownLengthStream() {
+        // Given
+        when(s3AsyncClient.createMultipartUpload(any(Consumer.class)))
+                .thenReturn(completedFuture(CreateMultipartUploadResponse.builder().uploadId("u-1").build()));
+        when(s3AsyncClient.uploadPart(any(Consumer.class), any(AsyncRequestBody.class)))
+                .thenReturn(completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+        when(s3AsyncClient.completeMultipartUpload(any(Consumer.class)))
+                .thenReturn(completedFuture(CompleteMultipartUploadResponse.builder().build()));
+
+        // When
+        long uploaded = uploader.upload("bucket", "key", new ByteArrayInputStream(new byte[(int) (12 * MB)]), -1);
+
+        // Then - 5 MB + 5 MB + 2 MB, with every part buffer back in the pool
+        assertThat(uploaded).isEqualTo(12 * MB);
+        verify(s3AsyncClient, times(3)).uploadPart(any(Consumer.class), any(AsyncRequestBody.class));
+        verify(s3AsyncClient).completeMultipartUpload(any(Consumer.class));
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+    }
+
+    @Test
+    void upload_shouldUseSinglePutWhenStreamFitsInOnePart() {
+        // Given
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(completedFuture(PutObjectResponse.builder().build()));
+
+        // When
+        long uploaded = uploader.upload("bucket", "key", new ByteArrayInputStream(new byte[1024]), -1);
+
+        // Then
+        assertThat(uploaded).isEqualTo(1024);
+        verify(s3AsyncClient).putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class));
+    }
+
+    @Test
+    void partSize_shouldStayWithinPartLimit() {
+        // Known length: 50 GB in 5 MB parts would need more than 10,000 parts
+        long known = uploader.partSize(1, 50L * 1024 * MB);
+        assertThat(known * MultipartStreamUploader.MAX_PARTS).isGreaterThanOrEqualTo(50L * 1024 * MB);
+
+        // Unknown length: sizes double every tier
+        assertThat(uploader.partSize(1, -1)).isEqualTo(5 * MB);
+        assertThat(uploader.partSize(MultipartStreamUploader.PARTS_PER_TIER + 1, -1)).isEqualTo(10 * MB);
+
+        // Never larger than the buffer pool can lease
+        assertThat(uploader.partSize(MultipartStreamUploader.PARTS_PER_TIER * 10 + 1, -1)).isEqualTo(64 * MB);
+    }
+
+    @Test
+    void partSize_shouldRejectKnownLengthBeyondPoolBudget() {
+        // 10,001 parts of the whole 64 MB budget
+        assertThatThrownBy(() -> uploader.partSize(1, 10_001 * 64 * MB))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("budget-mb");
+    }
+
+    @Test
+    void filePartSize_shouldIgnorePoolBudget() {
+        // 10,001 parts of the whole 64 MB budget fit, since file parts are not leased
+        long length = 10_001 * 64 * MB;
+        assertThat(uploader.filePartSize(length)).isGreaterThan(64 * MB);
+        assertThat(uploader.filePartSize(length) * MultipartStreamUploader.MAX_PARTS).isGreaterThanOrEqualTo(length);
+        assertThat(uploader.filePartSize(MB)).isEqualTo(5 * MB);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void open_shouldCarrySmallHeadIntoFirstPart() throws Exception {
+        // Given - a 1 MB head, below the part minimum
+        when(s3AsyncClient.createMultipartUpload(any(Consumer.class)))
+                .thenReturn(completedFuture(CreateMultipartUploadResponse.builder().uploadId("u-1").build()));
+        when(s3AsyncClient.uploadPart(any(Consumer.class), any(AsyncRequestBody.class)))
+                .thenReturn(completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+        when(s3AsyncClient.completeMultipartUpload(any(Consumer.class)))
+                .thenReturn(completedFuture(CompleteMultipartUploadResponse.builder().build()));
+        DirectBufferPool.Lease head = bufferPool.acquire(MB);
+        head.fill(new ByteArrayInputStream(new byte[(int) MB]), new byte[8192]);
+
+        // When
+        try (MultipartStreamUploader.PartWriter writer = uploader.open("bucket", "key", -1, head)) {
+            writer.write(new ByteArrayInputStream(new byte[(int) (6 * MB)]));
+            assertThat(writer.complete()).isEqualTo(7 * MB);
+        }
+
+        // Then - 5 MB (head + 4 MB) + 2 MB, with every buffer back in the pool
+        verify(s3AsyncClient, times(2)).uploadPart(any(Consumer.class), any(AsyncRequestBody.class));
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+    }
+}
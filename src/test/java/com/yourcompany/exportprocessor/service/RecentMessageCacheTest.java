@@ -0,0 +1,81 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentMessageCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void isKnown_shouldReturnTrueForRememberedMessages() {
+        // Given
+        RecentMessageCache cache = new RecentMessageCache(meterRegistry, 100, 10, false);
+        cache.remember("msg-1");
+
+        // When / Then
+        assertThat(cache.isKnown("msg-1")).isTrue();
+        assertThat(cache.isKnown("msg-2")).isFalse();
+        assertThat(meterRegistry.get("export.dedup.cache.lookups").tag("result", "hit").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("export.dedup.cache.lookups").tag("result", "miss").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void remember_shouldEvictOldestBeyondMaxSize() {
+        // Given
+        RecentMessageCache cache = new RecentMessageCache(meterRegistry, 3, 10, false);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            cache.remember("msg-" + i);
+        }
+
+        // Then
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.isKnown("msg-0")).isFalse();
+        assertThat(cache.isKnown("msg-4")).isTrue();
+        assertThat(meterRegistry.get("export.dedup.cache.size").gauge().value()).isEqualTo(3.0);
+    }
+
+    @Test
+    void isKnown_shouldExpireEntriesAfterTtl() {
+        // Given - zero TTL expires immediately
+        RecentMessageCache cache = new RecentMessageCache(meterRegistry, 100, 0, false);
+        cache.remember("msg-1");
+
+        // When / Then
+        assertThat(cache.isKnown("msg-1")).isFalse();
+    }
+
+    @Test
+    void forget_shouldAllowReprocessing() {
+        // Given
+        RecentMessageCache cache = new RecentMessageCache(meterRegistry, 100, 10, true);
+        cache.remember("msg-1");
+
+        // When
+        cache.forget("msg-1");
+
+        // Then
+        assertThat(cache.isKnown("msg-1")).isFalse();
+    }
+
+    @Test
+    void bloomFilter_shouldNotHideRememberedMessages() {
+        // Given
+        RecentMessageCache cache = new RecentMessageCache(meterRegistry, 1000, 10, true);
+        for (int i = 0; i < 500; i++) {
+            cache.remember("msg-" + i);
+        }
+
+        // When / Then
+        for (int i = 0; i < 500; i++) {
+            assertThat(cache.isKnown("msg-" + i)).isTrue();
+        }
+        assertThat(cache.isKnown("other")).isFalse();
+    }
+}
@@ -0,0 +1,126 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.yourcompany.exportprocessor.service.TestBodies.stream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class RecordBatchWriterTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    private Map<String, ByteArrayOutputStream> objects;
+
+    private S3UploadService s3UploadService;
+
+    @BeforeEach
+    void setUp() {
+        s3UploadService = RecordingS3.uploadService(s3AsyncClient, new SimpleMeterRegistry());
+        objects = RecordingS3.record(s3AsyncClient);
+    }
+
+    @Test
+    void finish_shouldWriteRecordsThroughStages() throws Exception {
+        // Given - one stage drops heartbeats, the next tags what is left
+        List<RecordStage> stages = List.of(
+                record -> !"heartbeat".equals(record.getType()),
+                record -> {
+                    record.getData().put("source", "export");
+                    return true;
+                });
+        List<String> completed = new ArrayList<>();
+        RecordBatchWriter writer = new RecordBatchWriter(s3UploadService, "bucket", "p/", 1024 * 1024, stages,
+                Runnable::run, (last, count) -> completed.add(last + ":" + count));
+
+        // When
+        int arrayRecords = writer.add("a.json", stream("""
+                [{"id":"1","type":"order","timestamp":"2024-01-01T00:00:00Z","total":12.5,"items":[{"sku":"x"}]},
+                 {"id":"2","type":"heartbeat"}]
+                """));
+        int lineRecords = writer.add("b.jsonl", stream("""
+                {"id":3,"type":"order","timestamp":1704067200000,"paid":true,"note":null}
+                {"type":"order","count":7}
+                """));
+        int batches = writer.finish();
+
+        // Then
+        assertThat(arrayRecords).isEqualTo(2);
+        assertThat(lineRecords).isEqualTo(2);
+        assertThat(batches).isEqualTo(1);
+        assertThat(content("p/_records/part-00000.jsonl")).isEqualTo("""
+                {"id":"1","type":"order","timestamp":"2024-01-01T00:00:00Z","total":12.5,"items":[{"sku":"x"}],"source":"export"}
+                {"id":"3","type":"order","timestamp":"2024-01-01T00:00:00Z","paid":true,"note":null,"source":"export"}
+                {"type":"order","count":7,"source":"export"}
+                """);
+        assertThat(completed).containsExactly("b.jsonl:4");
+    }
+
+    @Test
+    void finish_shouldKeepEveryDigitOfDecimalValues() throws Exception {
+        // Given
+        RecordBatchWriter writer = new RecordBatchWriter(s3UploadService, "bucket", "p/", 1024, List.of(),
+                Runnable::run, (last, count) -> { });
+
+        // When
+        writer.add("a.jsonl", stream("""
+                {"id":"1","amount":1234567890.123456789,"rate":0.10000000000000000001,"scale":1.5e-7}
+                """));
+        writer.finish();
+
+        // Then
+        assertThat(content("p/_records/part-00000.jsonl")).isEqualTo("""
+                {"id":"1","amount":1234567890.123456789,"rate":0.10000000000000000001,"scale":1.5E-7}
+                """);
+    }
+
+    @Test
+    void add_shouldRejectValuesThatAreNotRecords() throws Exception {
+        // Given
+        RecordBatchWriter writer = new RecordBatchWriter(s3UploadService, "bucket", "p/", 1024, List.of(),
+                Runnable::run, (last, count) -> { });
+
+        // When / Then
+        assertThatThrownBy(() -> writer.add("a.json", stream("[[1, 2]]")))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageStartingWith("Expected a JSON object per record in a.json");
+    }
+
+    @Test
+    void add_shouldRejectIdOrTypeThatIsNotScalar() throws Exception {
+        // Given
+        RecordBatchWriter writer = new RecordBatchWriter(s3UploadService, "bucket", "p/", 1024, List.of(),
+                Runnable::run, (last, count) -> { });
+
+        // When / Then
+        assertThatThrownBy(() -> writer.add("a.jsonl", stream("""
+                {"id":{"value":"1"},"type":"order"}
+                """)))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageStartingWith("Expected a string, number or boolean for id");
+        assertThatThrownBy(() -> writer.add("b.jsonl", stream("""
+                {"id":"2","type":["order"]}
+                """)))
+                .isInstanceOf(JsonParseException.class)
+                .hasMessageStartingWith("Expected a string, number or boolean for type");
+    }
+
+    private String content(String key) {
+        return objects.get(key).toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,68 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static com.yourcompany.exportprocessor.service.TestBodies.drain;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * An upload service over a mocked {@code S3AsyncClient} that keeps what is uploaded, by key.
+ */
+final class RecordingS3 {
+
+    private RecordingS3() {
+    }
+
+    /** Upload service with a 16 MB buffer pool, 5 MB parts and two parts in flight. */
+    static S3UploadService uploadService(S3AsyncClient s3AsyncClient, MeterRegistry meterRegistry) {
+        DirectBufferPool bufferPool = new DirectBufferPool(16, 1024, meterRegistry);
+        MultipartStreamUploader uploader = new MultipartStreamUploader(s3AsyncClient, bufferPool, 5, 2);
+        return new S3UploadService(s3AsyncClient, null, uploader, meterRegistry);
+    }
+
+    /**
+     * Stubs single and multipart uploads, leniently, to append their bodies to the returned map.
+     * Upload id is the key, so parts can be matched back to their object.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, ByteArrayOutputStream> record(S3AsyncClient s3AsyncClient) {
+        Map<String, ByteArrayOutputStream> objects = new ConcurrentHashMap<>();
+        lenient().when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation -> {
+            byte[] body = drain(invocation.getArgument(1));
+            objects.computeIfAbsent(((PutObjectRequest) invocation.getArgument(0)).key(),
+                    k -> new ByteArrayOutputStream()).writeBytes(body);
+            return completedFuture(PutObjectResponse.builder().build());
+        });
+        lenient().when(s3AsyncClient.createMultipartUpload(any(Consumer.class))).thenAnswer(invocation -> {
+            CreateMultipartUploadRequest.Builder builder = CreateMultipartUploadRequest.builder();
+            ((Consumer<CreateMultipartUploadRequest.Builder>) invocation.getArgument(0)).accept(builder);
+            return completedFuture(CreateMultipartUploadResponse.builder().uploadId(builder.build().key()).build());
+        });
+        lenient().when(s3AsyncClient.uploadPart(any(Consumer.class), any(AsyncRequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest.Builder builder = UploadPartRequest.builder();
+            ((Consumer<UploadPartRequest.Builder>) invocation.getArgument(0)).accept(builder);
+            byte[] body = drain(invocation.getArgument(1));
+            objects.computeIfAbsent(builder.build().uploadId(), k -> new ByteArrayOutputStream()).writeBytes(body);
+            return completedFuture(UploadPartResponse.builder().eTag("etag").build());
+        });
+        lenient().when(s3AsyncClient.completeMultipartUpload(any(Consumer.class)))
+                .thenReturn(completedFuture(CompleteMultipartUploadResponse.builder().build()));
+        return objects;
+    }
+}
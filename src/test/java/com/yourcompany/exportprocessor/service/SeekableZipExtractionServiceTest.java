@@ -0,0 +1,113 @@
+package com.yourcompany.exportprocessor.service;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+
+import static com.yourcompany.exportprocessor.service.TestArchives.crc32;
+import static com.yourcompany.exportprocessor.service.TestArchives.zipOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SeekableZipExtractionServiceTest {
+
+    @Mock
+    private S3UploadService s3UploadService;
+
+    private SeekableZipExtractionService seekableZipExtractionService;
+
+    @BeforeEach
+    void setUp() {
+        seekableZipExtractionService = new SeekableZipExtractionService(s3UploadService);
+        ReflectionTestUtils.setField(seekableZipExtractionService, "parallelism", 4);
+        ReflectionTestUtils.setField(seekableZipExtractionService, "checkpointIntervalSeconds", 300);
+    }
+
+    @Test
+    void extractAndUpload_shouldUploadEntriesWithCentralDirectorySizes() throws IOException {
+        // Given
+        Map<String, byte[]> uploaded = new ConcurrentHashMap<>();
+        Map<String, Long> sizes = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            String key = invocation.getArgument(1);
+            uploaded.put(key, invocation.<InputStream>getArgument(2).readAllBytes());
+            sizes.put(key, invocation.getArgument(3));
+            return null;
+        }).when(s3UploadService).uploadStream(anyString(), anyString(), any(), anyLong(), anyLong());
+
+        // When
+        int count = seekableZipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zipOf("a.txt", "dir/", "dir/b.txt", "c.txt")),
+                "bucket", "p/", (name, n) -> { });
+
+        // Then
+        assertThat(count).isEqualTo(3);
+        assertThat(uploaded).containsOnlyKeys("p/a.txt", "p/dir/b.txt", "p/c.txt");
+        assertThat(new String(uploaded.get("p/dir/b.txt"), StandardCharsets.UTF_8)).isEqualTo("content-dir/b.txt");
+        assertThat(sizes.get("p/dir/b.txt")).isEqualTo(17L);
+    }
+
+    @Test
+    void extractAndUpload_shouldUploadStoredEntriesAsSlicesOfTheArchive() throws IOException {
+        // Given - one stored and one deflated entry
+        ReflectionTestUtils.setField(seekableZipExtractionService, "storedPassthrough", true);
+        byte[] media = "already-compressed-media".getBytes(StandardCharsets.UTF_8);
+        byte[] text = "content-notes.txt".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(bytes)) {
+            ZipArchiveEntry stored = new ZipArchiveEntry("media.jpg");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(media.length);
+            stored.setCrc(crc32(media));
+            zos.putArchiveEntry(stored);
+            zos.write(media);
+            zos.closeArchiveEntry();
+            zos.putArchiveEntry(new ZipArchiveEntry("notes.txt"));
+            zos.write(text);
+            zos.closeArchiveEntry();
+        }
+        byte[] zip = bytes.toByteArray();
+        List<byte[]> slices = new ArrayList<>();
+        doAnswer(invocation -> {
+            try (FileChannel file = FileChannel.open(invocation.getArgument(2))) {
+                ByteBuffer slice = ByteBuffer.allocate(Math.toIntExact(invocation.getArgument(4)));
+                file.read(slice, invocation.getArgument(3));
+                slices.add(slice.array());
+            }
+            return null;
+        }).when(s3UploadService).uploadFileRange(anyString(), anyString(), any(), anyLong(), anyLong(), anyLong());
+
+        // When
+        int count = seekableZipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zip), "bucket", "p/", (name, n) -> { });
+
+        // Then - the stored entry is a byte range of the archive; the deflated one is still streamed
+        assertThat(count).isEqualTo(2);
+        verify(s3UploadService).uploadFileRange(eq("bucket"), eq("p/media.jpg"), any(), anyLong(),
+                eq((long) media.length), eq(crc32(media)));
+        assertThat(slices).containsExactly(media);
+        verify(s3UploadService).uploadStream(eq("bucket"), eq("p/notes.txt"), any(), eq((long) text.length),
+                eq(crc32(text)));
+    }
+}
@@ -0,0 +1,253 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yourcompany.exportprocessor.client.ExportApiClient;
+import com.yourcompany.exportprocessor.client.ExportProbe;
+import com.yourcompany.exportprocessor.model.ExportRequest;
+import com.yourcompany.exportprocessor.model.JobTracking;
+import com.yourcompany.exportprocessor.repository.JobTrackingRepository;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardCoordinatorTest {
+
+    @Mock
+    private ExportApiClient exportApiClient;
+
+    @Mock
+    private JobTrackingRepository jobTrackingRepository;
+
+    @Mock
+    private SqsClient sqsClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ShardCoordinator shardCoordinator;
+
+    @BeforeEach
+    void setUp() {
+        // Shard any export of 1 MB or more into shards of at least 1 MB
+        shardCoordinator = new ShardCoordinator(exportApiClient, jobTrackingRepository, sqsClient, objectMapper,
+                "export-requests", true, 1, 1, 64, false, false, false);
+    }
+
+    @Test
+    void plan_shouldCutArchiveIntoRangesThatStreamOnTheirOwn() throws IOException {
+        // Given - ten 300 KB entries written with data descriptors
+        byte[] zip = zipOf(10, 300 * 1024);
+
+        // When
+        List<ShardCoordinator.ShardPlan> shards;
+        try (ZipFile zipFile = ZipFile.builder()
+                .setSeekableByteChannel(new SeekableInMemoryByteChannel(zip))
+                .setIgnoreLocalFileHeader(true)
+                .get()) {
+            shards = ShardCoordinator.plan(zipFile.getEntriesInPhysicalOrder().asIterator(), zip.length, 1024 * 1024);
+        }
+
+        // Then - each range holds exactly its entries, and together they hold every entry once
+        assertThat(shards).hasSize(3);
+        assertThat(shards.get(0).start()).isZero();
+        assertThat(shards.get(2).end()).isEqualTo(zip.length);
+        List<String> all = new ArrayList<>();
+        for (ShardCoordinator.ShardPlan shard : shards) {
+            List<String> names = entriesOf(Arrays.copyOfRange(zip, (int) shard.start(), (int) shard.end()));
+            assertThat(names).hasSize(shard.entries());
+            assertThat(names.get(0)).isEqualTo(shard.firstEntry());
+            assertThat(names.get(names.size() - 1)).isEqualTo(shard.lastEntry());
+            all.addAll(names);
+        }
+        assertThat(all).containsExactly("e0.bin", "e1.bin", "e2.bin", "e3.bin", "e4.bin",
+                "e5.bin", "e6.bin", "e7.bin", "e8.bin", "e9.bin");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fanOut_shouldWriteShardItemsAndSendOneMessagePerShard() throws Exception {
+        // Given
+        byte[] zip = zipOf(10, 300 * 1024);
+        ExportProbe probe = new ExportProbe(zip.length, true, "\"etag-1\"");
+        when(exportApiClient.probeExport("export-1")).thenReturn(probe);
+        when(exportApiClient.openRanged("export-1", probe, 64 * 1024)).thenReturn(new SeekableInMemoryByteChannel(zip));
+        when(sqsClient.getQueueUrl(any(Consumer.class)))
+                .thenReturn(GetQueueUrlResponse.builder().queueUrl("https://sqs/export-requests").build());
+        when(sqsClient.sendMessage(any(Consumer.class))).thenReturn(SendMessageResponse.builder().build());
+        when(jobTrackingRepository.markSharded("msg-1", "claim-1", 3)).thenReturn(true);
+        ExportRequest request = ExportRequest.builder()
+                .jobId("job-1")
+                .exportId("export-1")
+                .metadata(ExportRequest.ExportMetadata.builder().customerId("cust-1").build())
+                .build();
+
+        // When
+        boolean sharded = shardCoordinator.fanOut(request, "msg-1", "claim-1");
+
+        // Then
+        assertThat(sharded).isTrue();
+        verify(jobTrackingRepository).createShard(eq("msg-1"), eq(0), eq(0L), anyLong(), eq("e0.bin"), anyString());
+        verify(jobTrackingRepository, times(3)).createShard(eq("msg-1"), anyInt(), anyLong(), anyLong(),
+                anyString(), anyString());
+        ArgumentCaptor<Consumer<SendMessageRequest.Builder>> sent = ArgumentCaptor.forClass(Consumer.class);
+        InOrder inOrder = inOrder(jobTrackingRepository, sqsClient);
+        inOrder.verify(jobTrackingRepository).markSharded("msg-1", "claim-1", 3);
+        inOrder.verify(sqsClient, times(3)).sendMessage(sent.capture());
+
+        SendMessageRequest.Builder last = SendMessageRequest.builder();
+        sent.getAllValues().get(2).accept(last);
+        ExportRequest child = objectMapper.readValue(last.build().messageBody(), ExportRequest.class);
+        assertThat(child.getJobId()).isEqualTo("job-1");
+        assertThat(child.getMetadata().getCustomerId()).isEqualTo("cust-1");
+        assertThat(child.getShard().getParentMessageId()).isEqualTo("msg-1");
+        assertThat(child.getShard().getIndex()).isEqualTo(2);
+        assertThat(child.getShard().getCount()).isEqualTo(3);
+        assertThat(child.getShard().getEndOffset()).isEqualTo(zip.length);
+        assertThat(child.getShard().getValidator()).isEqualTo("\"etag-1\"");
+        verify(jobTrackingRepository, times(3)).markShardSent(eq("msg-1"), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fanOut_shouldSkipShardsSentByAnEarlierAttempt() throws Exception {
+        // Given - the first attempt sent shard 0, then failed
+        byte[] zip = zipOf(10, 300 * 1024);
+        ExportProbe probe = new ExportProbe(zip.length, true, "\"etag-1\"");
+        when(exportApiClient.probeExport("export-1")).thenReturn(probe);
+        when(exportApiClient.openRanged("export-1", probe, 64 * 1024)).thenReturn(new SeekableInMemoryByteChannel(zip));
+        when(sqsClient.getQueueUrl(any(Consumer.class)))
+                .thenReturn(GetQueueUrlResponse.builder().queueUrl("https://sqs/export-requests").build());
+        when(sqsClient.sendMessage(any(Consumer.class))).thenReturn(SendMessageResponse.builder().build());
+        when(jobTrackingRepository.markSharded("msg-1", "claim-2", 3)).thenReturn(true);
+        when(jobTrackingRepository.findShards("msg-1")).thenReturn(List.of(
+                JobTracking.builder().sk(JobTracking.shardSk(0)).sentAt(Instant.now()).build(),
+                JobTracking.builder().sk(JobTracking.shardSk(1)).build()));
+        ExportRequest request = ExportRequest.builder().jobId("job-1").exportId("export-1").build();
+
+        // When
+        boolean sharded = shardCoordinator.fanOut(request, "msg-1", "claim-2");
+
+        // Then
+        assertThat(sharded).isTrue();
+        verify(sqsClient, times(2)).sendMessage(any(Consumer.class));
+        verify(jobTrackingRepository, never()).markShardSent("msg-1", 0);
+        verify(jobTrackingRepository).markShardSent("msg-1", 1);
+        verify(jobTrackingRepository).markShardSent("msg-1", 2);
+    }
+
+    @Test
+    void fanOut_shouldProcessUnshardedWhenCentralDirectoryCannotBeRead() throws Exception {
+        // Given - the tail of the archive is not a central directory
+        byte[] notZip = new byte[2 * 1024 * 1024];
+        ExportProbe probe = new ExportProbe(notZip.length, true, "\"etag-1\"");
+        when(exportApiClient.probeExport("export-1")).thenReturn(probe);
+        when(exportApiClient.openRanged("export-1", probe, 64 * 1024)).thenReturn(new SeekableInMemoryByteChannel(notZip));
+        ExportRequest request = ExportRequest.builder().jobId("job-1").exportId("export-1").build();
+
+        // When
+        boolean sharded = shardCoordinator.fanOut(request, "msg-1", "claim-1");
+
+        // Then
+        assertThat(sharded).isFalse();
+        verifyNoInteractions(jobTrackingRepository, sqsClient);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fanOut_shouldNotSendShardMessagesAfterLosingTheClaim() throws Exception {
+        // Given - another worker reclaims the job while the central directory is read
+        byte[] zip = zipOf(10, 300 * 1024);
+        ExportProbe probe = new ExportProbe(zip.length, true, "\"etag-1\"");
+        when(exportApiClient.probeExport("export-1")).thenReturn(probe);
+        when(exportApiClient.openRanged("export-1", probe, 64 * 1024)).thenReturn(new SeekableInMemoryByteChannel(zip));
+        when(jobTrackingRepository.markSharded("msg-1", "claim-1", 3)).thenReturn(false);
+        ExportRequest request = ExportRequest.builder().jobId("job-1").exportId("export-1").build();
+
+        // When
+        boolean sharded = shardCoordinator.fanOut(request, "msg-1", "claim-1");
+
+        // Then - the message is only acknowledged; the new owner fans out again
+        assertThat(sharded).isTrue();
+        verify(jobTrackingRepository, times(3)).createShard(eq("msg-1"), anyInt(), anyLong(), anyLong(),
+                anyString(), anyString());
+        verify(sqsClient, never()).sendMessage(any(Consumer.class));
+    }
+
+    @Test
+    void completeShard_shouldCompleteParentOnceEveryShardIsCompleted() {
+        // Given - the other shard finished earlier
+        ExportRequest.Shard shard = new ExportRequest.Shard("msg-1", 1, 2, 100, 200, "\"etag-1\"");
+        when(jobTrackingRepository.findShards("msg-1")).thenReturn(List.of(
+                JobTracking.builder().status(JobTracking.Status.COMPLETED).recordsProcessed(5).build(),
+                JobTracking.builder().status(JobTracking.Status.COMPLETED).recordsProcessed(7).build()));
+        when(jobTrackingRepository.completeSharded("msg-1", 12)).thenReturn(true);
+
+        // When
+        shardCoordinator.completeShard(shard, 7);
+
+        // Then
+        verify(jobTrackingRepository).updateShard("msg-1", 1, JobTracking.Status.COMPLETED, 7, null);
+        verify(jobTrackingRepository).completeSharded("msg-1", 12);
+    }
+
+    private static List<String> entriesOf(byte[] range) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (ZipArchiveInputStream zis = new ZipArchiveInputStream(
+                ShardCoordinator.shardStream(new ByteArrayInputStream(range)))) {
+            ZipArchiveEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                zis.readAllBytes();
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    /** Incompressible entries, so each takes its full size in the archive. */
+    private static byte[] zipOf(int entries, int size) throws IOException {
+        Random random = new Random(42);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entries; i++) {
+                byte[] content = new byte[size];
+                random.nextBytes(content);
+                zos.putNextEntry(new ZipEntry("e" + i + ".bin"));
+                zos.write(content);
+                zos.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
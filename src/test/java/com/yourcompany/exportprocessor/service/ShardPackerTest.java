@@ -0,0 +1,85 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.yourcompany.exportprocessor.service.TestBodies.stream;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardPackerTest {
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    private Map<String, ByteArrayOutputStream> objects;
+
+    private S3UploadService s3UploadService;
+
+    @BeforeEach
+    void setUp() {
+        s3UploadService = RecordingS3.uploadService(s3AsyncClient, new SimpleMeterRegistry());
+        objects = RecordingS3.record(s3AsyncClient);
+    }
+
+    @Test
+    void finish_shouldWriteShardsAndIndex() throws Exception {
+        // Given - shards roll over once they reach 10 bytes
+        List<String> completed = new ArrayList<>();
+        ShardPacker packer = new ShardPacker(s3UploadService, "bucket", "p/", 10, Runnable::run,
+                (last, count) -> completed.add(last + ":" + count));
+
+        // When
+        packer.add("a.txt", stream("hello"), 1L);
+        packer.add("dir/b.txt", stream("world!"), 2L);
+        packer.add("c.txt", stream("x"), 3L);
+        int shards = packer.finish();
+
+        // Then
+        assertThat(shards).isEqualTo(2);
+        assertThat(content("p/_packed/shard-00000.bin")).isEqualTo("helloworld!");
+        assertThat(content("p/_packed/shard-00001.bin")).isEqualTo("x");
+        assertThat(content("p/_packed/index.jsonl")).isEqualTo("""
+                {"name":"a.txt","key":"p/_packed/shard-00000.bin","offset":0,"length":5,"crc32":1}
+                {"name":"dir/b.txt","key":"p/_packed/shard-00000.bin","offset":5,"length":6,"crc32":2}
+                {"name":"c.txt","key":"p/_packed/shard-00001.bin","offset":0,"length":1,"crc32":3}
+                """);
+        assertThat(completed).containsExactly("dir/b.txt:2", "c.txt:1");
+        assertThat(s3UploadService.getUploadedBytes()).isEqualTo(12 + content("p/_packed/index.jsonl").length());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void close_shouldAbortUnfinishedShard() throws Exception {
+        // Given
+        when(s3AsyncClient.abortMultipartUpload(any(Consumer.class))).thenReturn(completedFuture(null));
+        ShardPacker packer = new ShardPacker(s3UploadService, "bucket", "p/", 1024, Runnable::run, (last, count) -> { });
+        packer.add("a.txt", stream("hello"), 1L);
+
+        // When
+        packer.close();
+
+        // Then
+        verify(s3AsyncClient).abortMultipartUpload(any(Consumer.class));
+        verify(s3AsyncClient, never()).completeMultipartUpload(any(Consumer.class));
+    }
+
+    private String content(String key) {
+        return objects.get(key).toString(StandardCharsets.UTF_8);
+    }
+}
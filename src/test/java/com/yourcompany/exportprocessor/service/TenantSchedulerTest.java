@@ -0,0 +1,151 @@
+package com.yourcompany.exportprocessor.service;
+
+import com.yourcompany.exportprocessor.config.TenantProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class TenantSchedulerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final Duration WAIT = Duration.ofHours(1);
+
+    @Mock
+    private S3UploadService s3UploadService;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ExecutorService waiters = Executors.newVirtualThreadPerTaskExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TenantScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        // A single processing slot
+        scheduler = schedulerWithSlots(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        waiters.shutdownNow();
+    }
+
+    @Test
+    void tryAcquire_shouldGiveFreedSlotToLeastChargedCustomer() throws Exception {
+        // Given - big customer runs one export and queued another before small customer arrived
+        TenantScheduler.Permit running = scheduler.tryAcquire("big", 0, Duration.ZERO);
+        assertThat(running).isNotNull();
+        clock.set(5 * SECOND);
+        Future<TenantScheduler.Permit> bigNext = waiters.submit(() -> scheduler.tryAcquire("big", 0, WAIT));
+        awaitWaiting(1);
+        Future<TenantScheduler.Permit> small = waiters.submit(() -> scheduler.tryAcquire("small", 0, WAIT));
+        awaitWaiting(2);
+
+        // When - big has used 10s of slot time, small starts level at 5s
+        clock.set(10 * SECOND);
+        running.release();
+
+        // Then
+        TenantScheduler.Permit smallPermit = small.get(5, TimeUnit.SECONDS);
+        assertThat(smallPermit).isNotNull();
+        assertThat(bigNext.isDone()).isFalse();
+        assertThat(scheduler.getWaiting()).isEqualTo(1);
+
+        smallPermit.release();
+        assertThat(bigNext.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(meterRegistry.get("export.tenant.queue.wait").tag("customer", "small").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void acquire_shouldHoldCustomerAtItsCapUntilOneOfItsExportsEnds() throws Exception {
+        // Given - two slots, a cap of one export per customer
+        TenantScheduler twoSlots = schedulerWithSlots(2);
+        TenantScheduler.Permit permit = twoSlots.acquire("big", System.currentTimeMillis());
+        Future<TenantScheduler.Permit> bigNext = waiters.submit(() -> twoSlots.acquire("big", 0));
+
+        // When / Then - the free slot goes to another customer, not to big's waiting export
+        assertThat(twoSlots.tryAcquire(null, System.currentTimeMillis(), Duration.ZERO)).isNotNull();
+        assertThat(bigNext.isDone()).isFalse();
+
+        permit.release();
+        permit.release();
+        assertThat(bigNext.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void acquire_shouldTurnAwayCustomerHoldingItsWaitingMessages() throws Exception {
+        // Given - big runs its one capped export and holds its one waiting message
+        TenantScheduler.Permit running = scheduler.acquire("big", System.currentTimeMillis());
+        Future<TenantScheduler.Permit> bigNext = waiters.submit(() -> scheduler.acquire("big", 0));
+        awaitWaiting(1);
+
+        // When
+        TenantScheduler.Permit turnedAway = scheduler.acquire("big", System.currentTimeMillis());
+
+        // Then - returned at once, leaving the listener free to take other customers' messages
+        assertThat(turnedAway).isNull();
+        assertThat(scheduler.getWaiting()).isEqualTo(1);
+        assertThat(meterRegistry.get("export.tenant.turned.away").tag("customer", "big").counter().count())
+                .isEqualTo(1.0);
+
+        running.release();
+        assertThat(bigNext.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void drain_shouldHandSlotToNextExportWithinOverlapBudget() throws InterruptedException {
+        // Given - the only slot is taken
+        TenantScheduler.Permit first = scheduler.tryAcquire("a", System.currentTimeMillis(), Duration.ZERO);
+        assertThat(scheduler.tryAcquire("b", System.currentTimeMillis(), Duration.ZERO)).isNull();
+
+        // When - the first export has read its archive
+        first.drain();
+
+        // Then - the next export starts, but only one export may drain at a time
+        TenantScheduler.Permit second = scheduler.tryAcquire("b", System.currentTimeMillis(), Duration.ZERO);
+        assertThat(second).isNotNull();
+        assertThat(scheduler.getDraining()).isEqualTo(1);
+        second.drain();
+        assertThat(scheduler.getDraining()).isEqualTo(1);
+        assertThat(scheduler.tryAcquire("c", System.currentTimeMillis(), Duration.ZERO)).isNull();
+
+        first.release();
+        assertThat(scheduler.getDraining()).isZero();
+        assertThat(scheduler.tryAcquire("c", System.currentTimeMillis(), Duration.ZERO)).isNull();
+        second.release();
+        assertThat(scheduler.tryAcquire("c", System.currentTimeMillis(), Duration.ZERO)).isNotNull();
+    }
+
+    private TenantScheduler schedulerWithSlots(int slots) {
+        DirectBufferPool bufferPool = new DirectBufferPool(1, 256, meterRegistry);
+        AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(
+                s3UploadService, bufferPool, meterRegistry,
+                slots, slots, 25, 25, 1024, 10, System.getProperty("java.io.tmpdir"));
+        return new TenantScheduler(controller, new TenantProperties(1, 1, 30, 1, Map.of()),
+                meterRegistry, 1, clock::get);
+    }
+
+    private void awaitWaiting(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getWaiting() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(scheduler.getWaiting()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,48 @@
+package com.yourcompany.exportprocessor.service;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Small ZIP archives for extraction tests.
+ */
+final class TestArchives {
+
+    private TestArchives() {
+    }
+
+    /**
+     * A streamed archive of deflated entries, each holding {@code "content-" + name}.
+     * Names ending in {@code /} are written as empty directory entries.
+     */
+    static byte[] zipOf(String... names) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(bytes)) {
+            for (String name : names) {
+                zos.putArchiveEntry(new ZipArchiveEntry(name));
+                if (!name.endsWith("/")) {
+                    zos.write(("content-" + name).getBytes(StandardCharsets.UTF_8));
+                }
+                zos.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** CRC-32 of {@code content}, as a ZIP header or S3 checksum holds it. */
+    static long crc32(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    /** CRC-32 of the UTF-8 bytes of {@code content}. */
+    static long crc32(String content) {
+        return crc32(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
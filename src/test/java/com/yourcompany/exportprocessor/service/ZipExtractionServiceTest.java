@@ -0,0 +1,238 @@
+package com.yourcompany.exportprocessor.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipException;
+
+import static com.yourcompany.exportprocessor.service.TestArchives.crc32;
+import static com.yourcompany.exportprocessor.service.TestArchives.zipOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ZipExtractionServiceTest {
+
+    @Mock
+    private S3UploadService s3UploadService;
+
+    private DirectBufferPool bufferPool;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ZipExtractionService zipExtractionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bufferPool = new DirectBufferPool(16, 64, meterRegistry);
+        zipExtractionService = new ZipExtractionService(s3UploadService, bufferPool,
+                new UploadPermitWaiters(meterRegistry), meterRegistry);
+        ReflectionTestUtils.setField(zipExtractionService, "maxConcurrentUploads", 3);
+        ReflectionTestUtils.setField(zipExtractionService, "checkpointIntervalSeconds", 300);
+        ReflectionTestUtils.setField(zipExtractionService, "stagingBufferMb", 1);
+    }
+
+    @Test
+    void extractAndUpload_shouldUploadEveryFileEntry() throws IOException {
+        // Given
+        byte[] zip = zipOf("a.txt", "b/b.txt", "/c.txt");
+
+        // When
+        int count = zipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zip), "bucket", "exports/cust/job/", (name, n) -> { });
+
+        // Then
+        assertThat(count).isEqualTo(3);
+        verify(s3UploadService).uploadBuffers(eq("bucket"), eq("exports/cust/job/a.txt"), any(), eq(13L),
+                eq(crc32("content-a.txt")));
+        verify(s3UploadService).uploadBuffers(eq("bucket"), eq("exports/cust/job/b/b.txt"), any(), eq(15L),
+                eq(crc32("content-b/b.txt")));
+        verify(s3UploadService).uploadBuffers(eq("bucket"), eq("exports/cust/job/c.txt"), any(), eq(14L),
+                eq(crc32("content-/c.txt")));
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+        assertThat(meterRegistry.get("export.entry.size").summary().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("export.entry.size").summary().totalAmount()).isEqualTo(13 + 15 + 14);
+        assertThat(meterRegistry.get("export.entry.inflate").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void extractAndUpload_shouldRunUploadsConcurrently() throws IOException {
+        // Given - each upload blocks until all three are in flight
+        CountDownLatch allStarted = new CountDownLatch(3);
+        doAnswer(invocation -> {
+            allStarted.countDown();
+            assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            return null;
+        }).when(s3UploadService).uploadBuffers(anyString(), anyString(), any(), anyLong(), anyLong());
+
+        // When
+        int count = zipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zipOf("1", "2", "3")), "bucket", "p/", (name, n) -> { });
+
+        // Then
+        assertThat(count).isEqualTo(3);
+    }
+
+    @Test
+    void extractAndUpload_shouldPropagateUploadFailure() throws IOException {
+        // Given
+        doThrow(new RuntimeException("S3 upload failed"))
+                .when(s3UploadService).uploadBuffers(anyString(), anyString(), any(), anyLong(), anyLong());
+
+        // When / Then
+        assertThatThrownBy(() -> zipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zipOf("a", "b")), "bucket", "p/", (name, n) -> { }))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("ZIP extraction failed");
+    }
+
+    @Test
+    void extractAndUpload_shouldKeepReadingAfterEntryThatOutgrowsStaging() throws IOException {
+        // Given - two entries of unknown size, each larger than the 1 MB staging buffer
+        doAnswer(invocation -> invocation.getArgument(2, InputStream.class).transferTo(OutputStream.nullOutputStream()))
+                .when(s3UploadService).uploadStream(anyString(), anyString(), any(), anyLong(), anyLong());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(bytes)) {
+            for (String name : List.of("big-1.txt", "big-2.txt")) {
+                zos.putArchiveEntry(new ZipArchiveEntry(name));
+                zos.write(new byte[3 * 1024 * 1024 / 2]);
+                zos.closeArchiveEntry();
+            }
+        }
+
+        // When
+        int count = zipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(bytes.toByteArray()), "bucket", "p/", (name, n) -> { });
+
+        // Then - streaming the first entry's remainder must not close the archive
+        assertThat(count).isEqualTo(2);
+        verify(s3UploadService).uploadStream(eq("bucket"), eq("p/big-1.txt"), any(), eq(-1L), eq(-1L));
+        verify(s3UploadService).uploadStream(eq("bucket"), eq("p/big-2.txt"), any(), eq(-1L), eq(-1L));
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+    }
+
+    @Test
+    void extractAndUpload_shouldPackSmallEntriesWhenEnabled() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(zipExtractionService, "packingEnabled", true);
+        ReflectionTestUtils.setField(zipExtractionService, "packingMaxEntryKb", 64);
+        ReflectionTestUtils.setField(zipExtractionService, "packingShardSizeMb", 64);
+        when(s3UploadService.openMultipart(anyString(), anyString()))
+                .thenAnswer(invocation -> mock(MultipartStreamUploader.PartWriter.class));
+
+        // When
+        int count = zipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zipOf("a.txt", "b.txt", "c.txt")), "bucket", "p/", (name, n) -> { });
+
+        // Then - one shard plus its index instead of three objects
+        assertThat(count).isEqualTo(3);
+        verify(s3UploadService).openMultipart("bucket", "p/_packed/shard-00000.bin");
+        verify(s3UploadService).openMultipart("bucket", "p/_packed/index.jsonl");
+        verify(s3UploadService, times(2)).completeMultipart(any());
+        verify(s3UploadService, never()).uploadBuffers(anyString(), anyString(), any(), anyLong(), anyLong());
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+    }
+
+    @Test
+    void extractAndUpload_shouldReuseEntriesUnchangedSincePreviousRun() throws IOException {
+        // Given - a.txt moved to a new job prefix, b.txt kept its key, c.txt changed
+        ExportManifest manifest = ExportManifest.basedOn(List.of(
+                new ExportManifest.Entry("a.txt", 13, crc32("content-a.txt"), "old/a.txt"),
+                new ExportManifest.Entry("b.txt", 13, crc32("content-b.txt"), "p/b.txt"),
+                new ExportManifest.Entry("c.txt", 13, 42, "old/c.txt")));
+
+        // When
+        int count = zipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zipOf("a.txt", "b.txt", "c.txt")), "bucket", "p/", (name, n) -> { },
+                manifest, OutputCompression.NONE, () -> { });
+
+        // Then
+        assertThat(count).isEqualTo(3);
+        verify(s3UploadService).copyObject("bucket", "old/a.txt", "p/a.txt");
+        verify(s3UploadService).uploadBuffers(eq("bucket"), eq("p/c.txt"), any(), eq(13L),
+                eq(crc32("content-c.txt")));
+        verifyNoMoreInteractions(s3UploadService);
+        assertThat(manifest.entriesSkipped()).isEqualTo(2);
+        assertThat(manifest.bytesSkipped()).isEqualTo(26);
+        assertThat(manifest.entries()).extracting(ExportManifest.Entry::key)
+                .containsExactlyInAnyOrder("p/a.txt", "p/b.txt", "p/c.txt");
+        assertThat(bufferPool.availableBytes()).isEqualTo(bufferPool.maxBytes());
+    }
+
+    @Test
+    void extractAndUpload_shouldCountRecordsOfJsonEntriesInRecordMode() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(zipExtractionService, "recordsEnabled", true);
+        ReflectionTestUtils.setField(zipExtractionService, "recordBatchSizeMb", 64);
+        when(s3UploadService.openMultipart(anyString(), anyString()))
+                .thenAnswer(invocation -> mock(MultipartStreamUploader.PartWriter.class));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(bytes)) {
+            zos.putArchiveEntry(new ZipArchiveEntry("orders.jsonl"));
+            zos.write("{\"id\":1}\n{\"id\":2}\n{\"id\":3}\n".getBytes(StandardCharsets.UTF_8));
+            zos.closeArchiveEntry();
+            zos.putArchiveEntry(new ZipArchiveEntry("readme.txt"));
+            zos.write("not records".getBytes(StandardCharsets.UTF_8));
+            zos.closeArchiveEntry();
+        }
+
+        // When
+        int count = zipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(bytes.toByteArray()), "bucket", "p/", (name, n) -> { });
+
+        // Then - three records plus one plain file
+        assertThat(count).isEqualTo(4);
+        verify(s3UploadService).openMultipart("bucket", "p/_records/part-00000.jsonl");
+        verify(s3UploadService).completeMultipart(any());
+        verify(s3UploadService).uploadBuffers(eq("bucket"), eq("p/readme.txt"), any(), eq(11L), anyLong());
+    }
+
+    @Test
+    void extractAndUpload_shouldRejectEntryWithBadCrc() throws IOException {
+        // Given - the CRC in the first entry's data descriptor no longer matches its data
+        byte[] zip = zipOf("a.txt", "b.txt");
+        int descriptor = indexOf(zip, new byte[]{'P', 'K', 7, 8});
+        zip[descriptor + 4] ^= 0x01;
+
+        // When / Then
+        assertThatThrownBy(() -> zipExtractionService.extractAndUpload(
+                new ByteArrayInputStream(zip), "bucket", "p/", (name, n) -> { }))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("ZIP extraction failed")
+                .hasRootCauseInstanceOf(ZipException.class)
+                .hasRootCauseMessage(String.format("Bad CRC-32 for entry a.txt: expected %08x, computed %08x",
+                        crc32("content-a.txt") ^ 0x01, crc32("content-a.txt")));
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalArgumentException("pattern not found");
+    }
+}